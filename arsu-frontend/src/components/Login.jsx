@@ -13,8 +13,11 @@ const Login = () => {
         e.preventDefault();
         try {
             const response = await axios.post('/api/users/login', { username, password });
-            setUser(response.data); // Set the user in context
-            console.log('User logged in:', response.data);
+            const { token, user } = response.data;
+            // Later requests authenticate with the session token instead of the password
+            axios.defaults.headers.common.Authorization = `Bearer ${token}`;
+            setUser(user); // Set the user in context
+            console.log('User logged in:', user);
             // Navigate to the dashboard after successful login
             navigate('/dashboard');
         } catch (error) {
@@ -5,6 +5,7 @@ const UploadVideo = () => {
     const [title, setTitle] = useState('');
     const [description, setDescription] = useState('');
     const [file, setFile] = useState(null);
+    const [error, setError] = useState(null);
 
     const handleUpload = async (e) => {
         e.preventDefault();
@@ -12,6 +13,7 @@ const UploadVideo = () => {
         formData.append('title', title);
         formData.append('description', description);
         formData.append('file', file);
+        setError(null);
 
         try {
             const response = await axios.post('/api/videos/upload', formData, {
@@ -21,6 +23,11 @@ const UploadVideo = () => {
             });
             console.log('Video uploaded:', response.data);
         } catch (error) {
+            const status = error.response && error.response.status;
+            if (status === 429 || status === 503) {
+                const retryAfter = error.response.headers['retry-after'];
+                setError(`Too many videos are waiting to be processed. Please try again in ${retryAfter || 'a few'} seconds.`);
+            }
             console.error('Error uploading video:', error);
         }
     };
@@ -31,6 +38,7 @@ const UploadVideo = () => {
             <input type="text" placeholder="Description" value={description} onChange={(e) => setDescription(e.target.value)} />
             <input type="file" onChange={(e) => setFile(e.target.files[0])} />
             <button type="submit">Upload</button>
+            {error && <div className="error-message">{error}</div>}
         </form>
     );
 };
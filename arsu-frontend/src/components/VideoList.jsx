@@ -3,50 +3,50 @@ import axios from 'axios';
 import './VideoList.css';
 import VideoPlayer from './VideoPlayer.jsx';
 
+const PAGE_SIZE = 20;
+
 const VideoList = () => {
     const [videos, setVideos] = useState([]);
-    const [selectedQuality, setSelectedQuality] = useState('720p');
+    const [selectedQuality, setSelectedQuality] = useState('auto');
     const [loading, setLoading] = useState(true);
     const [error, setError] = useState(null);
 
+    const [nextCursor, setNextCursor] = useState(null);
+    const [loadingMore, setLoadingMore] = useState(false);
+
+    // The grid shows posters; only the clicked video loads its stream
+    const [activeVideoId, setActiveVideoId] = useState(null);
+
+    // Pages come back as { videos, nextCursor }; nextCursor is null on the last page
+    const fetchPage = async (cursor) => {
+        const params = { limit: PAGE_SIZE, includeDescription: true };
+        if (cursor) {
+            params.cursor = cursor;
+        }
+        const response = await axios.get('/api/videos/all', { params });
+
+        // Validate that each video has an ID
+        const page = (response.data.videos || []).filter(video => {
+            if (!video.id && !video._id) {
+                console.warn('Found video without ID:', video);
+                return false;
+            }
+            return true;
+        });
+
+        // Normalize the data to ensure each video has an id property
+        const normalizedVideos = page.map(video => ({
+            ...video,
+            id: video.id || video._id // MongoDB might use _id
+        }));
+        setVideos(previous => cursor ? [...previous, ...normalizedVideos] : normalizedVideos);
+        setNextCursor(response.data.nextCursor || null);
+    };
+
     useEffect(() => {
         const fetchVideos = async () => {
             try {
-                const response = await axios.get('/api/videos/all');
-                console.log('API Response:', response.data); // Debug log
-
-                if (Array.isArray(response.data)) {
-                    // Validate that each video has an ID
-                    const validVideos = response.data.filter(video => {
-                        if (!video.id && !video._id) {
-                            console.warn('Found video without ID:', video);
-                            return false;
-                        }
-                        return true;
-                    });
-
-                    // Normalize the data to ensure each video has an id property
-                    const normalizedVideos = validVideos.map(video => ({
-                        ...video,
-                        id: video.id || video._id // MongoDB might use _id
-                    }));
-
-                    setVideos(normalizedVideos);
-                } else if (typeof response.data === 'object') {
-                    // Handle potential Spring HATEOAS response
-                    const videoArray = Array.isArray(response.data._embedded?.videos)
-                        ? response.data._embedded.videos
-                        : [response.data];
-
-                    const normalizedVideos = videoArray
-                        .filter(video => video.id || video._id)
-                        .map(video => ({
-                            ...video,
-                            id: video.id || video._id
-                        }));
-
-                    setVideos(normalizedVideos);
-                }
+                await fetchPage(null);
             } catch (error) {
                 console.error('Error fetching videos:', error);
                 setError(error.response?.data?.message || 'Failed to load videos');
@@ -58,6 +58,17 @@ const VideoList = () => {
         fetchVideos();
     }, []);
 
+    const handleLoadMore = async () => {
+        setLoadingMore(true);
+        try {
+            await fetchPage(nextCursor);
+        } catch (error) {
+            console.error('Error fetching more videos:', error);
+        } finally {
+            setLoadingMore(false);
+        }
+    };
+
     const handleQualityChange = (event) => {
         setSelectedQuality(event.target.value);
     };
@@ -67,9 +78,14 @@ const VideoList = () => {
             console.error('Attempted to get URL for video with no ID');
             return null;
         }
-        return `/api/videos/stream/${videoId}?quality=${selectedQuality}`;
+        // The master playlist lets hls.js switch bitrate on its own
+        const playlist = selectedQuality === 'auto' ? 'master' : selectedQuality;
+        return `/api/videos/stream/${videoId}/${playlist}.m3u8`;
     };
 
+    // Videos without a processing state predate the transcode queue and are always ready
+    const isPlayable = (video) => !video.processingState || video.processingState === 'DONE' || video.playable;
+
     if (loading) return <div>Loading videos...</div>;
     if (error) return <div className="error-message">{error}</div>;
     if (!videos.length) return <div>No videos available</div>;
@@ -86,6 +102,7 @@ const VideoList = () => {
                     onChange={handleQualityChange}
                     className="quality-select"
                 >
+                    <option value="auto">Auto</option>
                     <option value="240p">240p</option>
                     <option value="480p">480p</option>
                     <option value="720p">720p</option>
@@ -103,12 +120,32 @@ const VideoList = () => {
                             <h3 className="video-title">{video.title}</h3>
                             <p className="video-description">{video.description}</p>
                             <div className="video-player-container">
-                                <VideoPlayer src={videoUrl} />
+                                {isPlayable(video) && activeVideoId === video.id ? (
+                                    <VideoPlayer src={videoUrl} poster={video.thumbnail} />
+                                ) : isPlayable(video) ? (
+                                    <button className="video-thumbnail" onClick={() => setActiveVideoId(video.id)}>
+                                        {video.thumbnail ? (
+                                            <img src={video.thumbnail} alt={video.title} loading="lazy" />
+                                        ) : (
+                                            <span className="video-thumbnail-placeholder">▶ Play</span>
+                                        )}
+                                    </button>
+                                ) : (
+                                    <div className="video-processing">
+                                        {video.processingState === 'FAILED' ? 'Processing failed' : 'Processing...'}
+                                    </div>
+                                )}
                             </div>
                         </div>
                     );
                 })}
             </div>
+
+            {nextCursor && (
+                <button className="load-more" onClick={handleLoadMore} disabled={loadingMore}>
+                    {loadingMore ? 'Loading...' : 'Load more'}
+                </button>
+            )}
         </div>
     );
 };
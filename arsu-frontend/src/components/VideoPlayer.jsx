@@ -1,7 +1,7 @@
 import React, { useEffect, useRef } from 'react';
 import Hls from 'hls.js'; // Import Hls.js
 
-const VideoPlayer = ({ src }) => {
+const VideoPlayer = ({ src, poster }) => {
     const videoRef = useRef(null);
 
     useEffect(() => {
@@ -30,6 +30,7 @@ const VideoPlayer = ({ src }) => {
         <video
             ref={videoRef}
             controls
+            poster={poster}
             className="video-player"
         />
     );
@@ -0,0 +1,154 @@
+package com.example.arsu.cache;
+
+import com.example.arsu.config.JacksonConfig;
+import com.example.arsu.config.RedisConfig;
+import com.example.arsu.model.MediaInfo;
+import com.example.arsu.model.ProcessingState;
+import com.example.arsu.model.Video;
+import com.example.arsu.model.VideoPage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listing pages through the mappers the application configures: the HTTP converter's mapper that writes
+ * API responses, the legacy default-typing Redis serializer, and the versioned Smile codec that replaced it
+ * (with and without LZ4 above 1 KiB).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class VideoSerializationBenchmark {
+
+    // VideoService.DEFAULT_PAGE_SIZE and the maximum page size
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private ObjectMapper httpMapper;
+    private ObjectMapper redisMapper;
+    private GenericJackson2JsonRedisSerializer redisSerializer;
+    private List<Video> videos;
+    private VideoPage page;
+    private byte[] serializedPage;
+    private VersionedRedisSerializer smileSerializer;
+    private VersionedRedisSerializer smileLz4Serializer;
+    private byte[] smilePage;
+    private byte[] smileLz4Page;
+
+    @Setup
+    public void setUp() {
+        httpMapper = new JacksonConfig().mappingJackson2HttpMessageConverter().getObjectMapper();
+        redisMapper = new RedisConfig().objectMapper();
+        redisSerializer = new GenericJackson2JsonRedisSerializer(redisMapper);
+
+        videos = new ArrayList<>();
+        for (int i = 0; i < pageSize; i++) {
+            videos.add(video(i));
+        }
+        page = new VideoPage(videos, videos.get(videos.size() - 1).getId());
+        serializedPage = redisSerializer.serialize(page);
+
+        List<CacheCodec> codecs = List.of(JacksonCacheCodec.smile(), JacksonCacheCodec.json());
+        smileSerializer = new VersionedRedisSerializer(JacksonCacheCodec.smile(), codecs, redisSerializer, 0,
+                new SimpleMeterRegistry());
+        smileLz4Serializer = new VersionedRedisSerializer(JacksonCacheCodec.smile(), codecs, redisSerializer, 1024,
+                new SimpleMeterRegistry());
+        smilePage = smileSerializer.serialize(page);
+        smileLz4Page = smileLz4Serializer.serialize(page);
+    }
+
+    @Benchmark
+    public byte[] httpListing() throws Exception {
+        return httpMapper.writeValueAsBytes(videos);
+    }
+
+    @Benchmark
+    public byte[] redisMapperListing() throws Exception {
+        return redisMapper.writeValueAsBytes(videos);
+    }
+
+    @Benchmark
+    public byte[] redisSerialize() {
+        return redisSerializer.serialize(page);
+    }
+
+    @Benchmark
+    public Object redisDeserialize() {
+        return redisSerializer.deserialize(serializedPage);
+    }
+
+    @Benchmark
+    public Object redisRoundTrip() {
+        return redisSerializer.deserialize(redisSerializer.serialize(page));
+    }
+
+    @Benchmark
+    public byte[] smileSerialize() {
+        return smileSerializer.serialize(page);
+    }
+
+    @Benchmark
+    public Object smileDeserialize() {
+        return smileSerializer.deserialize(smilePage);
+    }
+
+    @Benchmark
+    public byte[] smileLz4Serialize() {
+        return smileLz4Serializer.serialize(page);
+    }
+
+    @Benchmark
+    public Object smileLz4Deserialize() {
+        return smileLz4Serializer.deserialize(smileLz4Page);
+    }
+
+    private static Video video(int i) {
+        Video video = new Video("Benchmark video " + i, "A description of a few sentences, long enough to be "
+                + "representative of what users write under an upload. ".repeat(3), "user-" + (i % 7));
+        video.setId(UUID.randomUUID().toString().replace("-", "").substring(0, 24));
+        video.setStorageId(video.getId());
+        video.setContentHash(UUID.randomUUID().toString().replace("-", "") + UUID.randomUUID().toString().replace("-", ""));
+        video.setUrl(video.getId() + "/" + UUID.randomUUID() + "_clip.mp4");
+        video.setThumbnail("previews/poster-k2m9x1.jpg");
+        video.setPreviewTrack("previews/sprites-k2m9x1.vtt");
+        video.setProcessingState(ProcessingState.DONE);
+        video.setPlayable(true);
+        video.setJobId(UUID.randomUUID().toString());
+        video.setRenditions(List.of("240p", "480p", "720p", "1080p"));
+        video.setViewCount(1000L * i);
+        video.setWatchTimeSeconds(60000L * i);
+        video.setCreatedAt(new Date());
+        video.setUpdatedAt(new Date());
+
+        MediaInfo source = new MediaInfo();
+        source.setWidth(1920);
+        source.setHeight(1080);
+        source.setFrameRate(29.97);
+        source.setDurationSeconds(600 + i);
+        source.setVideoCodec("h264");
+        source.setAudioCodec("aac");
+        source.setBitrate(6_000_000);
+        video.setSourceInfo(source);
+        return video;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.arsu.service;
+
+import com.example.arsu.streaming.Rendition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the ffmpeg output arguments of the whole rendition ladder with TranscodeService.addQualityOutput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TranscodeCommandBenchmark {
+
+    private final TranscodeService transcodeService = new TranscodeService();
+    private final Path outputDir = Path.of("/data/arsu/ab/cd/65f1c2e4a9b7d3e8f0a1b2c3");
+
+    @Benchmark
+    public List<String> ladderOutputs() {
+        List<String> command = new ArrayList<>();
+        Rendition[] renditions = Rendition.values();
+        for (int i = 0; i < renditions.length; i++) {
+            transcodeService.addQualityOutput(command, outputDir, renditions[i].getQuality(), "[v" + i + "out]",
+                    renditions[i].getBitrateKbps() + "k", "vod");
+        }
+        return command;
+    }
+}
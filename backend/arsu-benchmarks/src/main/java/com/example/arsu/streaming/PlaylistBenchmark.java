@@ -0,0 +1,94 @@
+package com.example.arsu.streaming;
+
+import com.example.arsu.model.MediaInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Parsing a finished media playlist, as ManifestCache does on a miss, and generating the master playlist
+ * from a transcoded video directory, which stats every segment of every rendition.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PlaylistBenchmark {
+
+    // 10-second segments: a ten-minute clip and a one-hour video
+    @Param({"60", "360"})
+    private int segments;
+
+    private final MasterPlaylistGenerator generator = new MasterPlaylistGenerator();
+    private String mediaPlaylist;
+    private Path videoDir;
+    private MediaInfo source;
+
+    @Setup
+    public void setUp() throws IOException {
+        videoDir = Files.createTempDirectory("arsu-playlists");
+        for (Rendition rendition : Rendition.values()) {
+            StringBuilder playlist = new StringBuilder()
+                    .append("#EXTM3U\n#EXT-X-VERSION:3\n#EXT-X-TARGETDURATION:10\n")
+                    .append("#EXT-X-MEDIA-SEQUENCE:0\n#EXT-X-PLAYLIST-TYPE:VOD\n");
+            long segmentBytes = rendition.getBitrateKbps() * 1000L / 8 * 10;
+            for (int i = 0; i < segments; i++) {
+                String name = String.format("%s_%03d.ts", rendition.getQuality(), i);
+                double duration = i == segments - 1 ? 4.2 : 10.010000;
+                playlist.append("#EXTINF:").append(String.format("%.6f", duration)).append(",\n")
+                        .append(name).append('\n');
+                // Sparse files: generation only looks at sizes
+                try (RandomAccessFile file = new RandomAccessFile(videoDir.resolve(name).toFile(), "rw")) {
+                    file.setLength(segmentBytes + i % 13 * 1024);
+                }
+            }
+            playlist.append("#EXT-X-ENDLIST\n");
+            Files.writeString(videoDir.resolve(rendition.getPlaylistName()), playlist);
+            if (rendition == Rendition.P720) {
+                mediaPlaylist = playlist.toString();
+            }
+        }
+
+        source = new MediaInfo();
+        source.setWidth(1920);
+        source.setHeight(1080);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(videoDir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public MediaPlaylist parseMediaPlaylist() {
+        return MediaPlaylist.parse(mediaPlaylist);
+    }
+
+    @Benchmark
+    public String generateMasterPlaylist() throws IOException {
+        return generator.generate(videoDir, source);
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.arsu.streaming;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serving one segment file to a loopback socket four ways: through a heap array, through a direct buffer
+ * (SegmentCache), through a mapped buffer (SegmentPrefetcher's large segments) and with FileChannel.transferTo
+ * (ZeroCopyFileSender and Tomcat's sendfile). The file stays in the page cache, so this compares copies,
+ * not disk reads. A background thread drains the socket.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SegmentReadBenchmark {
+
+    // Roughly one 10-second segment at 480p, 1080p and a high-bitrate source
+    @Param({"524288", "2097152", "8388608"})
+    private int segmentBytes;
+
+    private Path segment;
+    private ServerSocketChannel server;
+    private SocketChannel client;
+    private Thread drainer;
+    private ByteBuffer direct;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        segment = Files.createTempFile("arsu-segment", ".ts");
+        byte[] bytes = new byte[segmentBytes];
+        new Random(42).nextBytes(bytes);
+        Files.write(segment, bytes);
+        direct = ByteBuffer.allocateDirect(segmentBytes);
+
+        server = ServerSocketChannel.open().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        client = SocketChannel.open(server.getLocalAddress());
+        SocketChannel accepted = server.accept();
+        drainer = new Thread(() -> drain(accepted), "segment-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, InterruptedException {
+        client.close();
+        drainer.join(5000);
+        server.close();
+        Files.deleteIfExists(segment);
+    }
+
+    @Benchmark
+    public int heap() throws IOException {
+        byte[] bytes = Files.readAllBytes(segment);
+        writeFully(ByteBuffer.wrap(bytes));
+        return bytes.length;
+    }
+
+    @Benchmark
+    public int direct() throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            direct.clear();
+            while (direct.hasRemaining() && channel.read(direct) >= 0) {
+                // read until full
+            }
+        }
+        direct.flip();
+        writeFully(direct);
+        return direct.limit();
+    }
+
+    @Benchmark
+    public int mapped() throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped.load();
+            writeFully(mapped);
+            return mapped.limit();
+        }
+    }
+
+    @Benchmark
+    public long transferTo() throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, client);
+            }
+            return position;
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            client.write(buffer);
+        }
+    }
+
+    private static void drain(SocketChannel channel) {
+        ByteBuffer sink = ByteBuffer.allocateDirect(256 * 1024);
+        try (channel) {
+            while (channel.read(sink) >= 0) {
+                sink.clear();
+            }
+        } catch (IOException e) {
+            // Closed at tear-down
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.arsu.cache;
+
+import java.io.IOException;
+
+/**
+ * Encodes Redis cache values of a known type to bytes and back. The type travels in the value's header
+ * (see {@link VersionedRedisSerializer}), so codecs do not embed class names. Implementations are thread-safe.
+ */
+public interface CacheCodec {
+
+    /**
+     * Stored in the header of every value this codec writes; never reuse an id for a different encoding.
+     */
+    byte id();
+
+    /**
+     * Name used to select the codec in configuration.
+     */
+    String name();
+
+    byte[] encode(Object value) throws IOException;
+
+    <T> T decode(byte[] data, int offset, int length, Class<T> type) throws IOException;
+}
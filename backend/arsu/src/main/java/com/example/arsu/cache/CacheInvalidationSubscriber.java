@@ -0,0 +1,26 @@
+package com.example.arsu.cache;
+
+import com.example.arsu.config.RedisSubscriptions;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.stereotype.Component;
+
+/**
+ * Subscribes the video cache to the evictions published by the other nodes.
+ * Until the subscription is up the near tier relies on its TTL.
+ */
+@Component
+public class CacheInvalidationSubscriber {
+
+    @Autowired
+    private RedisSubscriptions redisSubscriptions;
+
+    @Autowired
+    private VideoCache videoCache;
+
+    @PostConstruct
+    public void init() {
+        redisSubscriptions.subscribe(videoCache, new ChannelTopic(VideoCache.INVALIDATION_CHANNEL));
+    }
+}
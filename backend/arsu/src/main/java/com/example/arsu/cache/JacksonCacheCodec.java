@@ -0,0 +1,58 @@
+package com.example.arsu.cache;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+
+import java.io.IOException;
+
+/**
+ * Cache codec over a Jackson mapper without default typing. Smile is binary JSON with back-references
+ * for repeated property names, which makes listing pages of many videos compact; plain JSON stays
+ * readable with redis-cli. Both ignore unknown properties so nodes of a newer version can add fields.
+ */
+public class JacksonCacheCodec implements CacheCodec {
+
+    private final byte id;
+    private final String name;
+    private final ObjectMapper mapper;
+
+    JacksonCacheCodec(byte id, String name, ObjectMapper mapper) {
+        this.id = id;
+        this.name = name;
+        // Same property visibility as the legacy mapper, so the same fields are cached
+        this.mapper = mapper
+                .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY)
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    public static JacksonCacheCodec smile() {
+        return new JacksonCacheCodec((byte) 1, "smile", new SmileMapper());
+    }
+
+    public static JacksonCacheCodec json() {
+        return new JacksonCacheCodec((byte) 2, "json", new ObjectMapper());
+    }
+
+    @Override
+    public byte id() {
+        return id;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public byte[] encode(Object value) throws IOException {
+        return mapper.writeValueAsBytes(value);
+    }
+
+    @Override
+    public <T> T decode(byte[] data, int offset, int length, Class<T> type) throws IOException {
+        return mapper.readValue(data, offset, length, type);
+    }
+}
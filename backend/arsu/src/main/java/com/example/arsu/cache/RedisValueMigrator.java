@@ -0,0 +1,103 @@
+package com.example.arsu.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Rewrites legacy JSON values in the configured key patterns in the current format, keeping their TTLs.
+ * Off by default: entries migrate lazily as they expire or are rewritten. When enabled, it runs once in the
+ * background and retries until Redis is reachable. A value is only replaced while its key still exists, so
+ * an eviction racing the rewrite is not undone.
+ */
+@Component
+public class RedisValueMigrator {
+    private static final Logger log = LoggerFactory.getLogger(RedisValueMigrator.class);
+
+    @Value("${cache.codec.migrate-legacy:false}")
+    private boolean enabled;
+
+    @Value("${cache.codec.migrate-patterns:video:*,videos:user:*,session:*}")
+    private String[] patterns;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private VersionedRedisSerializer redisValueSerializer;
+
+    private volatile boolean done;
+
+    @Scheduled(fixedDelayString = "${cache.codec.migrate-retry-ms:60000}")
+    public void migrateOnce() {
+        if (!enabled || done) {
+            return;
+        }
+        try {
+            long migrated = 0;
+            for (String pattern : patterns) {
+                migrated += migrate(pattern);
+            }
+            log.info("Migrated {} legacy Redis values to the current cache format", migrated);
+            done = true;
+        } catch (Exception e) {
+            log.warn("Could not migrate legacy Redis values, will retry: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Rewrites the legacy values under one key pattern and returns how many were rewritten.
+     */
+    public long migrate(String pattern) {
+        Long migrated = redisTemplate.execute((RedisCallback<Long>) connection -> {
+            long count = 0;
+            ScanOptions options = ScanOptions.scanOptions().match(pattern).count(500).build();
+            try (Cursor<byte[]> keys = connection.keyCommands().scan(options)) {
+                while (keys.hasNext()) {
+                    if (rewrite(connection, keys.next())) {
+                        count++;
+                    }
+                }
+            }
+            return count;
+        });
+        return migrated == null ? 0 : migrated;
+    }
+
+    private boolean rewrite(RedisConnection connection, byte[] key) {
+        byte[] stored = connection.stringCommands().get(key);
+        if (!VersionedRedisSerializer.isLegacy(stored)) {
+            return false;
+        }
+        byte[] rewritten;
+        try {
+            rewritten = redisValueSerializer.serialize(redisValueSerializer.deserialize(stored));
+        } catch (Exception e) {
+            log.debug("Skipping unreadable value of {}: {}", new String(key, StandardCharsets.UTF_8), e.getMessage());
+            return false;
+        }
+        // Unregistered types, or the legacy format still being written
+        if (rewritten == null || VersionedRedisSerializer.isLegacy(rewritten)) {
+            return false;
+        }
+        Long ttlMillis = connection.keyCommands().pTtl(key);
+        if (ttlMillis == null || ttlMillis == -2) {
+            return false;
+        }
+        Expiration expiration = ttlMillis > 0 ? Expiration.milliseconds(ttlMillis) : Expiration.persistent();
+        Boolean set = connection.stringCommands().set(key, rewritten, expiration, RedisStringCommands.SetOption.ifPresent());
+        return Boolean.TRUE.equals(set);
+    }
+}
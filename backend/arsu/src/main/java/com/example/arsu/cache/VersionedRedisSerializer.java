@@ -0,0 +1,194 @@
+package com.example.arsu.cache;
+
+import com.example.arsu.model.Comment;
+import com.example.arsu.model.Session;
+import com.example.arsu.model.Video;
+import com.example.arsu.model.VideoPage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis value serializer that prefixes every value with a small header instead of embedding class names:
+ * <pre>
+ * magic (0xC5) | version | codec id | flags | type id | [uncompressed length, int] | payload
+ * </pre>
+ * The type id indexes a fixed list of the types the application caches or publishes. Payloads of at least
+ * compressionThresholdBytes are LZ4-compressed when that makes them smaller.
+ * <p>
+ * Values without the header are the default-typed JSON written before this serializer existed, and are
+ * read with the legacy serializer. It also writes values of unregistered types, and every value when no
+ * codec is configured: this release ships with cache.codec.format=legacy, so every node reads the new
+ * format before any node writes it; the format is switched to smile once it is deployed everywhere. Old
+ * entries expire with their TTL, are rewritten on their next write, or can be rewritten at once by
+ * {@link RedisValueMigrator}.
+ */
+public class VersionedRedisSerializer implements RedisSerializer<Object> {
+
+    static final byte MAGIC = (byte) 0xC5;
+    static final byte VERSION = 1;
+
+    private static final int HEADER_BYTES = 5;
+    private static final int FLAG_LZ4 = 1;
+
+    // Append only: the position of a type is its id in stored values
+    private static final List<Class<?>> TYPES = List.of(
+            String.class, Video.class, VideoPage.class, Session.class, Comment.class);
+
+    private static final String LEGACY = "legacy";
+
+    private final CacheCodec writeCodec;
+    private final Map<Byte, CacheCodec> readCodecs = new HashMap<>();
+    private final RedisSerializer<Object> legacy;
+    private final int compressionThresholdBytes;
+    private final LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+    private final LZ4FastDecompressor decompressor = LZ4Factory.fastestInstance().fastDecompressor();
+
+    private final Map<Class<?>, Integer> typeIds = new HashMap<>();
+    private final TypeMeters[] typeMeters = new TypeMeters[TYPES.size()];
+    private final TypeMeters legacyMeters;
+    private final Counter legacyReads;
+
+    private record TypeMeters(Timer encode, Timer decode, DistributionSummary bytes) {
+
+        static TypeMeters register(MeterRegistry registry, String type) {
+            return new TypeMeters(
+                    Timer.builder("arsu.redis.codec.encode").tag("type", type).register(registry),
+                    Timer.builder("arsu.redis.codec.decode").tag("type", type).register(registry),
+                    DistributionSummary.builder("arsu.redis.codec.bytes")
+                            .description("Size of values written to Redis")
+                            .baseUnit("bytes")
+                            .tag("type", type)
+                            .register(registry));
+        }
+    }
+
+    /**
+     * @param writeCodec codec for new values, or null to keep writing the legacy format
+     * @param readCodecs every codec that may have written a value still in Redis
+     */
+    public VersionedRedisSerializer(CacheCodec writeCodec, List<CacheCodec> readCodecs,
+                                    RedisSerializer<Object> legacy, int compressionThresholdBytes,
+                                    MeterRegistry meterRegistry) {
+        this.writeCodec = writeCodec;
+        for (CacheCodec codec : readCodecs) {
+            this.readCodecs.put(codec.id(), codec);
+        }
+        this.legacy = legacy;
+        this.compressionThresholdBytes = compressionThresholdBytes;
+        for (int i = 0; i < TYPES.size(); i++) {
+            Class<?> type = TYPES.get(i);
+            typeIds.put(type, i);
+            String name = type.getSimpleName();
+            typeMeters[i] = TypeMeters.register(meterRegistry,
+                    Character.toLowerCase(name.charAt(0)) + name.substring(1));
+        }
+        legacyMeters = TypeMeters.register(meterRegistry, LEGACY);
+        legacyReads = Counter.builder("arsu.redis.codec.legacy.reads")
+                .description("Values read in the pre-header JSON format")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether the stored bytes are in the legacy format, i.e. written without a header.
+     */
+    public static boolean isLegacy(byte[] bytes) {
+        return bytes != null && bytes.length > 0 && bytes[0] != MAGIC;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        long start = System.nanoTime();
+        Integer typeId = typeIds.get(value.getClass());
+        if (writeCodec == null || typeId == null) {
+            byte[] bytes = legacy.serialize(value);
+            record(legacyMeters, start, bytes.length);
+            return bytes;
+        }
+
+        byte[] payload;
+        try {
+            payload = writeCodec.encode(value);
+        } catch (IOException e) {
+            throw new SerializationException("Could not encode " + value.getClass().getSimpleName(), e);
+        }
+        byte flags = 0;
+        int uncompressedLength = payload.length;
+        if (compressionThresholdBytes > 0 && payload.length >= compressionThresholdBytes) {
+            byte[] compressed = compressor.compress(payload);
+            if (compressed.length + Integer.BYTES < payload.length) {
+                payload = compressed;
+                flags |= FLAG_LZ4;
+            }
+        }
+
+        boolean lz4 = (flags & FLAG_LZ4) != 0;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + (lz4 ? Integer.BYTES : 0) + payload.length)
+                .put(MAGIC).put(VERSION).put(writeCodec.id()).put(flags).put(typeId.byteValue());
+        if (lz4) {
+            buffer.putInt(uncompressedLength);
+        }
+        byte[] bytes = buffer.put(payload).array();
+        record(typeMeters[typeId], start, bytes.length);
+        return bytes;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        long start = System.nanoTime();
+        if (isLegacy(bytes)) {
+            legacyReads.increment();
+            Object value = legacy.deserialize(bytes);
+            legacyMeters.decode().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return value;
+        }
+
+        if (bytes.length < HEADER_BYTES || bytes[1] > VERSION) {
+            throw new SerializationException("Unsupported cache value version " + (bytes.length > 1 ? bytes[1] : -1));
+        }
+        CacheCodec codec = readCodecs.get(bytes[2]);
+        int typeId = bytes[4];
+        if (codec == null || typeId < 0 || typeId >= TYPES.size()) {
+            throw new SerializationException("Unknown cache codec " + bytes[2] + " or type " + typeId);
+        }
+
+        try {
+            Object value;
+            if ((bytes[3] & FLAG_LZ4) != 0) {
+                int uncompressedLength = ByteBuffer.wrap(bytes, HEADER_BYTES, Integer.BYTES).getInt();
+                byte[] payload = decompressor.decompress(bytes, HEADER_BYTES + Integer.BYTES, uncompressedLength);
+                value = codec.decode(payload, 0, payload.length, TYPES.get(typeId));
+            } else {
+                value = codec.decode(bytes, HEADER_BYTES, bytes.length - HEADER_BYTES, TYPES.get(typeId));
+            }
+            typeMeters[typeId].decode().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return value;
+        } catch (IOException | RuntimeException e) {
+            throw new SerializationException("Could not decode " + TYPES.get(typeId).getSimpleName(), e);
+        }
+    }
+
+    private void record(TypeMeters meters, long start, int size) {
+        meters.encode().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        meters.bytes().record(size);
+    }
+}
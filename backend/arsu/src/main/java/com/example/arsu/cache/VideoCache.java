@@ -0,0 +1,281 @@
+package com.example.arsu.cache;
+
+import com.example.arsu.model.Video;
+import com.example.arsu.model.VideoPage;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Two-tier read-through cache for video metadata: a bounded in-process tier in front of Redis, both with TTLs.
+ * Evictions clear both tiers and are broadcast on a Redis channel so the near tiers of the other nodes drop
+ * their copies too. When Redis is unavailable the cache degrades to the near tier in front of Mongo.
+ * Every eviction also bumps a generation counter per key; a read-through that loaded its value while an
+ * eviction ran sees the generation move and deletes what it wrote, so it cannot leave a stale value behind.
+ */
+@Component
+public class VideoCache implements MessageListener {
+    private static final Logger log = LoggerFactory.getLogger(VideoCache.class);
+
+    public static final String INVALIDATION_CHANNEL = "video-cache-invalidation";
+
+    private static final String VIDEO_KEY = "video:";
+    private static final String USER_PAGE_KEY = "videos:user:";
+    private static final String USER_VERSION_KEY = "videos:version:user:";
+    private static final String GENERATION_KEY = "cache:generation:";
+
+    @Value("${video.cache.near.max-entries:10000}")
+    private long nearMaxEntries;
+
+    @Value("${video.cache.near.ttl-seconds:30}")
+    private long nearTtlSeconds;
+
+    @Value("${video.cache.redis.ttl-seconds:600}")
+    private long redisTtlSeconds;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    private Cache<String, Object> near;
+
+    private final LongAdder nearHits = new LongAdder();
+    private final LongAdder nearMisses = new LongAdder();
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder redisMisses = new LongAdder();
+    private final LongAdder redisErrors = new LongAdder();
+    private final LongAdder staleWritesUndone = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        near = Caffeine.newBuilder()
+                .maximumSize(nearMaxEntries)
+                .expireAfterWrite(Duration.ofSeconds(nearTtlSeconds))
+                .build();
+    }
+
+    /**
+     * Video by id, loading it with the loader on a miss in both tiers. Returned objects are shared; do not modify.
+     */
+    public Video getVideo(String videoId, Supplier<Video> loader) {
+        return get(VIDEO_KEY + videoId, Video.class, loader);
+    }
+
+    /**
+     * First listing page of a user's videos, loading it with the loader on a miss in both tiers.
+     */
+    public VideoPage getUserPage(String userId, boolean includeDescription, Supplier<VideoPage> loader) {
+        return get(userPageKey(userId, includeDescription), VideoPage.class, loader);
+    }
+
+    /**
+     * Version of a user's video listing, bumped by every eviction of the user's pages, or null if Redis is
+     * unavailable. A counter created afresh (e.g. after Redis lost its data) starts at the current time, so it
+     * never repeats a version handed out before.
+     */
+    public Long getUserVersion(String userId) {
+        String key = USER_VERSION_KEY + userId;
+        try {
+            Long version = redisTemplate.opsForValue().increment(key, 0);
+            if (version != null && version == 0) {
+                version = redisTemplate.opsForValue().increment(key, System.currentTimeMillis());
+            }
+            return version;
+        } catch (Exception e) {
+            redisErrors.increment();
+            log.debug("Redis read of {} failed: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Drops a video and its owner's cached pages from both tiers here and from the near tiers of every other node,
+     * and bumps the owner's listing version.
+     */
+    public void evict(String videoId, String userId) {
+        List<String> keys = new ArrayList<>();
+        if (videoId != null) {
+            keys.add(VIDEO_KEY + videoId);
+        }
+        if (userId != null) {
+            keys.add(userPageKey(userId, false));
+            keys.add(userPageKey(userId, true));
+        }
+        near.invalidateAll(keys);
+        try {
+            // Before the delete, so a read-through that wrote after it still sees the generation move
+            for (String key : keys) {
+                redisTemplate.opsForValue().increment(GENERATION_KEY + key);
+                redisTemplate.expire(GENERATION_KEY + key, redisTtlSeconds, TimeUnit.SECONDS);
+            }
+            redisTemplate.delete(keys);
+            if (userId != null) {
+                redisTemplate.opsForValue().increment(USER_VERSION_KEY + userId);
+            }
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, String.join(",", keys));
+        } catch (Exception e) {
+            redisErrors.increment();
+            log.warn("Could not evict {} from Redis: {}", keys, e.getMessage());
+        }
+    }
+
+    /**
+     * Evictions published by any node, including this one.
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object keys = redisTemplate.getValueSerializer().deserialize(message.getBody());
+        if (keys instanceof String) {
+            for (String key : ((String) keys).split(",")) {
+                near.invalidate(key);
+            }
+        }
+    }
+
+    public long getNearHitCount() {
+        return nearHits.sum();
+    }
+
+    public long getNearMissCount() {
+        return nearMisses.sum();
+    }
+
+    public long getRedisHitCount() {
+        return redisHits.sum();
+    }
+
+    public long getRedisMissCount() {
+        return redisMisses.sum();
+    }
+
+    public long getRedisErrorCount() {
+        return redisErrors.sum();
+    }
+
+    /**
+     * Read-through writes deleted again because an eviction ran while their value was loaded.
+     */
+    public long getStaleWritesUndone() {
+        return staleWritesUndone.sum();
+    }
+
+    public double getNearHitRatio() {
+        return ratio(nearHits.sum(), nearMisses.sum());
+    }
+
+    /**
+     * Hit ratio of the Redis tier over the lookups that missed the near tier.
+     */
+    public double getRedisHitRatio() {
+        return ratio(redisHits.sum(), redisMisses.sum());
+    }
+
+    public long getNearSize() {
+        return near.estimatedSize();
+    }
+
+    @Scheduled(initialDelayString = "${video.cache.stats-interval-ms:60000}",
+            fixedDelayString = "${video.cache.stats-interval-ms:60000}")
+    public void logStats() {
+        log.debug("Video cache: near {} entries, hit ratio {}; Redis hit ratio {}, {} errors",
+                getNearSize(), String.format("%.3f", getNearHitRatio()), String.format("%.3f", getRedisHitRatio()),
+                getRedisErrorCount());
+    }
+
+    private <T> T get(String key, Class<T> type, Supplier<T> loader) {
+        Object value = near.getIfPresent(key);
+        if (type.isInstance(value)) {
+            nearHits.increment();
+            return type.cast(value);
+        }
+        nearMisses.increment();
+
+        value = readRedis(key);
+        if (type.isInstance(value)) {
+            redisHits.increment();
+            near.put(key, value);
+            return type.cast(value);
+        }
+        redisMisses.increment();
+
+        Long generation = readGeneration(key);
+        T loaded = loader.get();
+        if (loaded != null) {
+            near.put(key, loaded);
+            if (generation != null) {
+                writeRedis(key, loaded, generation);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Current eviction generation of a key, or null if Redis is unavailable. A counter created by the read
+     * expires like the entries it guards.
+     */
+    private Long readGeneration(String key) {
+        String generationKey = GENERATION_KEY + key;
+        try {
+            Long generation = redisTemplate.opsForValue().increment(generationKey, 0);
+            if (generation != null && generation == 0) {
+                redisTemplate.expire(generationKey, redisTtlSeconds, TimeUnit.SECONDS);
+            }
+            return generation;
+        } catch (Exception e) {
+            redisErrors.increment();
+            log.debug("Redis read of {} failed: {}", generationKey, e.getMessage());
+            return null;
+        }
+    }
+
+    private Object readRedis(String key) {
+        try {
+            return redisTemplate.opsForValue().get(key);
+        } catch (Exception e) {
+            redisErrors.increment();
+            log.debug("Redis read of {} failed: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeRedis(String key, Object value, long generation) {
+        try {
+            redisTemplate.opsForValue().set(key, value, redisTtlSeconds, TimeUnit.SECONDS);
+            Long current = redisTemplate.opsForValue().increment(GENERATION_KEY + key, 0);
+            if (current == null || current != generation) {
+                // Evicted while the value was loaded, so it may predate the change; drop it everywhere
+                staleWritesUndone.increment();
+                near.invalidate(key);
+                redisTemplate.delete(key);
+                redisTemplate.convertAndSend(INVALIDATION_CHANNEL, key);
+            }
+        } catch (Exception e) {
+            redisErrors.increment();
+            log.debug("Redis write of {} failed: {}", key, e.getMessage());
+        }
+    }
+
+    private String userPageKey(String userId, boolean includeDescription) {
+        return USER_PAGE_KEY + userId + (includeDescription ? ":full" : ":summary");
+    }
+
+    private double ratio(long hits, long misses) {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+}
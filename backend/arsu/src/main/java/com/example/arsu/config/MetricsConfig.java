@@ -0,0 +1,123 @@
+package com.example.arsu.config;
+
+import com.example.arsu.cache.VideoCache;
+import com.example.arsu.service.CommentStreamHub;
+import com.example.arsu.service.CommentWriteBuffer;
+import com.example.arsu.service.TranscodeJobService;
+import com.example.arsu.streaming.ManifestCache;
+import com.example.arsu.streaming.SegmentCache;
+import com.example.arsu.streaming.SegmentPrefetcher;
+import com.example.arsu.streaming.ZeroCopyFileSender;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Exposes the counters the media pipeline already keeps as Micrometer meters. Every meter reads an existing
+ * LongAdder or field when it is scraped, so the streaming hot path pays nothing extra for being measured.
+ * Upload and encode timings are recorded where they happen; HTTP, Mongo, Redis and Kafka timings come from
+ * Spring Boot's own instrumentation (see application.properties).
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder cacheMetrics(VideoCache videoCache, SegmentCache segmentCache, ManifestCache manifestCache) {
+        return registry -> {
+            cacheGets(registry, "video.near", videoCache, VideoCache::getNearHitCount, VideoCache::getNearMissCount);
+            cacheGets(registry, "video.redis", videoCache, VideoCache::getRedisHitCount, VideoCache::getRedisMissCount);
+            FunctionCounter.builder("cache.errors", videoCache, VideoCache::getRedisErrorCount)
+                    .tag("cache", "video.redis")
+                    .register(registry);
+            FunctionCounter.builder("cache.stale.writes.undone", videoCache, VideoCache::getStaleWritesUndone)
+                    .tag("cache", "video.redis")
+                    .register(registry);
+            Gauge.builder("cache.size", videoCache, VideoCache::getNearSize)
+                    .tag("cache", "video.near")
+                    .register(registry);
+
+            cacheGets(registry, "segments", segmentCache, SegmentCache::getHitCount, SegmentCache::getMissCount);
+            FunctionCounter.builder("cache.evictions", segmentCache, SegmentCache::getEvictionCount)
+                    .tag("cache", "segments")
+                    .register(registry);
+            Gauge.builder("cache.size.bytes", segmentCache, SegmentCache::getSizeBytes)
+                    .tag("cache", "segments")
+                    .baseUnit("bytes")
+                    .register(registry);
+
+            cacheGets(registry, "manifests", manifestCache, ManifestCache::getHitCount, ManifestCache::getMissCount);
+            Gauge.builder("cache.size", manifestCache, ManifestCache::getSize)
+                    .tag("cache", "manifests")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder streamingMetrics(ZeroCopyFileSender fileSender, SegmentPrefetcher segmentPrefetcher,
+                                        CommentStreamHub commentStreamHub, CommentWriteBuffer commentWriteBuffer) {
+        return registry -> {
+            bytesSent(registry, fileSender, "segment", "video/mp2t");
+            bytesSent(registry, fileSender, "original", "video/mp4");
+            bytesSent(registry, fileSender, "poster", MediaType.IMAGE_JPEG_VALUE);
+            bytesSent(registry, fileSender, "preview-track", "text/vtt");
+            FunctionCounter.builder("arsu.segments.prefetched", segmentPrefetcher, SegmentPrefetcher::getPrefetchedCount)
+                    .description("Segments read ahead of playback")
+                    .register(registry);
+            FunctionCounter.builder("arsu.segments.prefetch.dropped", segmentPrefetcher,
+                            SegmentPrefetcher::getDroppedCount)
+                    .description("Read-aheads skipped because the prefetch pool was busy")
+                    .register(registry);
+            Gauge.builder("arsu.comments.stream.clients", commentStreamHub, CommentStreamHub::getClientCount)
+                    .description("Open comment event streams on this node")
+                    .register(registry);
+            Gauge.builder("arsu.comments.write.queued", commentWriteBuffer, CommentWriteBuffer::getQueuedCount)
+                    .description("Comments waiting for the next batched insert")
+                    .register(registry);
+            FunctionCounter.builder("arsu.comments.written", commentWriteBuffer, CommentWriteBuffer::getWrittenCount)
+                    .register(registry);
+            FunctionCounter.builder("arsu.comments.write.failed", commentWriteBuffer,
+                            CommentWriteBuffer::getFailedCount)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder transcodeMetrics(TranscodeJobService transcodeJobService) {
+        return registry -> {
+            Gauge.builder("arsu.transcode.queue.depth", transcodeJobService, TranscodeJobService::getQueuedJobCount)
+                    .description("Transcode jobs waiting across all nodes, as of the last poll")
+                    .register(registry);
+            Gauge.builder("arsu.transcode.slots.used", transcodeJobService, TranscodeJobService::getUsedSlots)
+                    .description("Encoder slots in use on this node")
+                    .register(registry);
+            Gauge.builder("arsu.transcode.slots", transcodeJobService, TranscodeJobService::getCpuSlots)
+                    .description("Encoder slots on this node")
+                    .register(registry);
+        };
+    }
+
+    private static <T> void cacheGets(MeterRegistry registry, String cache, T source,
+                                      ToDoubleFunction<T> hits, ToDoubleFunction<T> misses) {
+        FunctionCounter.builder("cache.gets", source, hits)
+                .tags("cache", cache, "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", source, misses)
+                .tags("cache", cache, "result", "miss")
+                .register(registry);
+    }
+
+    private static void bytesSent(MeterRegistry registry, ZeroCopyFileSender fileSender, String type,
+                                  String contentType) {
+        FunctionCounter.builder("arsu.stream.bytes.sent", fileSender, sender -> sender.getBytesSent(contentType))
+                .description("Response body bytes of streamed files")
+                .baseUnit("bytes")
+                .tag("type", type)
+                .register(registry);
+    }
+}
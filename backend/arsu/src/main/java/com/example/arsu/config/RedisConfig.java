@@ -1,8 +1,13 @@
 package com.example.arsu.config;
 
+import com.example.arsu.cache.CacheCodec;
+import com.example.arsu.cache.JacksonCacheCodec;
+import com.example.arsu.cache.VersionedRedisSerializer;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -11,26 +16,53 @@ import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.util.List;
+
 @Configuration
 @EnableCaching
 public class RedisConfig {
 
+    // legacy keeps writing default-typed JSON while every node learns to read the new formats;
+    // switch to smile (or json) in the release after that
+    @Value("${cache.codec.format:legacy}")
+    private String codecFormat;
+
+    @Value("${cache.codec.compression-threshold-bytes:1024}")
+    private int compressionThresholdBytes;
+
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory redisConnectionFactory) {
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory redisConnectionFactory,
+                                                       VersionedRedisSerializer redisValueSerializer) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(redisConnectionFactory);
 
         // Set String serializer for keys
         template.setKeySerializer(new StringRedisSerializer());
 
-        // Set JSON serializer for values
-        GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer(objectMapper());
-        template.setValueSerializer(serializer);
-        template.setHashValueSerializer(serializer);
+        // Set the versioned binary serializer for values
+        template.setValueSerializer(redisValueSerializer);
+        template.setHashValueSerializer(redisValueSerializer);
 
         return template;
     }
 
+    /**
+     * Writes values with the configured codec and reads every codec plus the legacy JSON format.
+     */
+    @Bean
+    public VersionedRedisSerializer redisValueSerializer(MeterRegistry meterRegistry) {
+        List<CacheCodec> codecs = List.of(JacksonCacheCodec.smile(), JacksonCacheCodec.json());
+        CacheCodec writeCodec = null;
+        if (!"legacy".equals(codecFormat)) {
+            writeCodec = codecs.stream()
+                    .filter(codec -> codec.name().equals(codecFormat))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown cache.codec.format: " + codecFormat));
+        }
+        return new VersionedRedisSerializer(writeCodec, codecs, new GenericJackson2JsonRedisSerializer(objectMapper()),
+                compressionThresholdBytes, meterRegistry);
+    }
+
     @Bean
     public ObjectMapper objectMapper() {
         ObjectMapper objectMapper = new ObjectMapper();
@@ -0,0 +1,75 @@
+package com.example.arsu.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.Topic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * The node's single Redis pub/sub connection, shared by every channel subscriber.
+ * It is (re)established in the background, so the application starts without Redis and resubscribes
+ * every registered channel once Redis is reachable again.
+ */
+@Component
+public class RedisSubscriptions {
+    private static final Logger log = LoggerFactory.getLogger(RedisSubscriptions.class);
+
+    @Autowired
+    private RedisConnectionFactory redisConnectionFactory;
+
+    private RedisMessageListenerContainer container;
+
+    @PostConstruct
+    public void init() {
+        container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.afterPropertiesSet();
+    }
+
+    /**
+     * Registers the listener; it starts receiving as soon as the connection is up.
+     */
+    public void subscribe(MessageListener listener, Topic topic) {
+        try {
+            container.addMessageListener(listener, topic);
+        } catch (Exception e) {
+            // Still registered; the next reconnect subscribes it
+            log.debug("Could not subscribe to {} yet: {}", topic.getTopic(), e.getMessage());
+        }
+    }
+
+    public void unsubscribe(MessageListener listener, Topic topic) {
+        try {
+            container.removeMessageListener(listener, topic);
+        } catch (Exception e) {
+            log.debug("Could not unsubscribe from {}: {}", topic.getTopic(), e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${redis.subscribe-retry-ms:30000}")
+    public void ensureListening() {
+        if (container.isListening()) {
+            return;
+        }
+        try {
+            // A failed start leaves the container marked as running; reset it before retrying
+            container.stop();
+            container.start();
+            log.info("Listening for Redis pub/sub messages");
+        } catch (Exception e) {
+            log.debug("Could not connect the Redis pub/sub listener: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws Exception {
+        container.destroy();
+    }
+}
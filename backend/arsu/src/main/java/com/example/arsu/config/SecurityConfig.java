@@ -1,26 +1,80 @@
 package com.example.arsu.config;
 
+import com.example.arsu.service.SessionService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authorization.AuthenticatedAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.AuthorizationManagers;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+
+import java.util.Arrays;
+import java.util.List;
 
 @Configuration
 public class SecurityConfig {
 
+    // Addresses (CIDR) allowed to read actuator endpoints without a session, e.g. the Prometheus scraper
+    @Value("${management.internal-networks:127.0.0.1/32,::1/128}")
+    private String[] internalNetworks;
+
     @Bean
     public BCryptPasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder();
     }
 
+    /**
+     * Media streaming is public and its hot path skips the security filter chain entirely;
+     * this also keeps Tomcat's own output stream unwrapped for direct-buffer writes.
+     */
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public WebSecurityCustomizer webSecurityCustomizer() {
+        return web -> web.ignoring().requestMatchers("/api/videos/stream/**");
+    }
+
+    /**
+     * Stateless: the user is identified by the Redis-backed token session, never an HTTP session.
+     * Actuator endpoints other than health are for signed-in users and internal networks only.
+     */
+    @Bean
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, SessionService sessionService) throws Exception {
         http
                 .csrf(csrf -> csrf.disable())
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .addFilterBefore(new SessionAuthenticationFilter(sessionService), UsernamePasswordAuthenticationFilter.class)
+                .exceptionHandling(exceptions -> exceptions
+                        .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
                 .authorizeHttpRequests(auth -> auth
+                        .requestMatchers("/api/users/me", "/api/users/logout").authenticated()
+                        .requestMatchers(HttpMethod.DELETE, "/api/videos/**").authenticated()
+                        .requestMatchers(EndpointRequest.to("health")).permitAll()
+                        .requestMatchers(EndpointRequest.toAnyEndpoint()).access(AuthorizationManagers.anyOf(
+                                AuthenticatedAuthorizationManager.authenticated(), fromInternalNetwork()))
                         .anyRequest().permitAll()
                 );
         return http.build();
     }
+
+    private AuthorizationManager<RequestAuthorizationContext> fromInternalNetwork() {
+        List<IpAddressMatcher> networks = Arrays.stream(internalNetworks)
+                .map(String::trim)
+                .filter(network -> !network.isEmpty())
+                .map(IpAddressMatcher::new)
+                .toList();
+        return (authentication, context) -> new AuthorizationDecision(
+                networks.stream().anyMatch(network -> network.matches(context.getRequest())));
+    }
 }
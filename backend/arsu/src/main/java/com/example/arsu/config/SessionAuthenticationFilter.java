@@ -0,0 +1,68 @@
+package com.example.arsu.config;
+
+import com.example.arsu.model.Session;
+import com.example.arsu.service.SessionService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Authenticates requests carrying "Authorization: Bearer &lt;token&gt;" against the Redis session store.
+ * Requests without a token pass through anonymously; no password is ever checked here.
+ */
+public class SessionAuthenticationFilter extends OncePerRequestFilter {
+    private static final Logger log = LoggerFactory.getLogger(SessionAuthenticationFilter.class);
+
+    private static final String BEARER = "Bearer ";
+
+    private final SessionService sessionService;
+
+    // Lets async dispatches of the same request see the authentication without another lookup
+    private final SecurityContextRepository contextRepository = new RequestAttributeSecurityContextRepository();
+
+    public SessionAuthenticationFilter(SessionService sessionService) {
+        this.sessionService = sessionService;
+    }
+
+    public static String extractToken(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.startsWith(BEARER)) {
+            return null;
+        }
+        return header.substring(BEARER.length()).trim();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String token = extractToken(request);
+        if (token != null) {
+            Session session = null;
+            try {
+                session = sessionService.validate(token);
+            } catch (Exception e) {
+                log.warn("Could not validate session: {}", e.getMessage());
+            }
+            if (session != null) {
+                SecurityContext context = SecurityContextHolder.createEmptyContext();
+                context.setAuthentication(new UsernamePasswordAuthenticationToken(session, null, List.of()));
+                SecurityContextHolder.setContext(context);
+                contextRepository.saveContext(context, request, response);
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.arsu.config;
+
+import com.example.arsu.storage.FileSystemObjectStore;
+import com.example.arsu.storage.LocalDiskStorage;
+import com.example.arsu.storage.ObjectStoreClient;
+import com.example.arsu.storage.ObjectStoreStorage;
+import com.example.arsu.storage.S3ObjectStore;
+import com.example.arsu.storage.VideoStorage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Chooses the storage backend: "local" keeps videos on the data disks listed in video.storage.paths,
+ * "object" keeps them in an object-store bucket and uses those disks as the local staging area.
+ * The bucket is an S3 (or S3-compatible) bucket with video.storage.object.client=s3, or a local directory
+ * standing in for one with "filesystem", for development and tests. S3 credentials come from the SDK's
+ * default provider chain (environment, system properties, profile files, instance roles).
+ */
+@Configuration
+public class StorageConfig {
+    private static final Logger log = LoggerFactory.getLogger(StorageConfig.class);
+
+    @Value("${video.storage.backend:local}")
+    private String backend;
+
+    // Comma-separated data disks; defaults to the single legacy storage directory
+    @Value("${video.storage.paths:${video.storage.path:/home/aryan/ARSU/Storage}}")
+    private String paths;
+
+    @Value("${video.storage.min-free-bytes:1073741824}")
+    private long minFreeBytes;
+
+    @Value("${video.storage.object.client:filesystem}")
+    private String objectClient;
+
+    @Value("${video.storage.object.bucket-path:/home/aryan/ARSU/Bucket}")
+    private String bucketPath;
+
+    @Value("${video.storage.object.bucket:}")
+    private String bucket;
+
+    // Empty for AWS itself; set for MinIO, Ceph and other S3-compatible stores
+    @Value("${video.storage.object.endpoint:}")
+    private String endpoint;
+
+    @Value("${video.storage.object.region:us-east-1}")
+    private String region;
+
+    @Value("${video.storage.object.path-style-access:false}")
+    private boolean pathStyleAccess;
+
+    @Value("${video.storage.object.part-size-bytes:8388608}")
+    private long partSizeBytes;
+
+    @Value("${video.storage.object.upload-threads:8}")
+    private int uploadThreads;
+
+    // Committed and fetched files kept on the staging disks before the least recently used are deleted
+    @Value("${video.storage.object.local-cache-bytes:10737418240}")
+    private long localCacheBytes;
+
+    @Bean
+    @ConditionalOnProperty(name = "video.storage.object.client", havingValue = "s3")
+    public S3Client s3Client() {
+        S3ClientBuilder builder = S3Client.builder()
+                .region(Region.of(region))
+                .forcePathStyle(pathStyleAccess);
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        return builder.build();
+    }
+
+    @Bean
+    public VideoStorage videoStorage(ObjectProvider<S3Client> s3Client) {
+        List<Path> roots = new ArrayList<>();
+        for (String path : paths.split(",")) {
+            if (!path.isBlank()) {
+                roots.add(Paths.get(path.trim()));
+            }
+        }
+        LocalDiskStorage local = new LocalDiskStorage(roots, minFreeBytes);
+        switch (backend) {
+            case "local":
+                log.info("Storing videos on {}", roots);
+                return local;
+            case "object":
+                return new ObjectStoreStorage(local, objectStoreClient(s3Client, roots), partSizeBytes, uploadThreads,
+                        localCacheBytes);
+            default:
+                throw new IllegalStateException("Unknown video.storage.backend: " + backend);
+        }
+    }
+
+    private ObjectStoreClient objectStoreClient(ObjectProvider<S3Client> s3Client, List<Path> roots) {
+        switch (objectClient) {
+            case "s3":
+                if (bucket.isBlank()) {
+                    throw new IllegalStateException("video.storage.object.bucket is required with the s3 client");
+                }
+                log.info("Storing videos in S3 bucket {}{}, staged on {}", bucket,
+                        endpoint.isBlank() ? "" : " at " + endpoint, roots);
+                return new S3ObjectStore(s3Client.getObject(), bucket);
+            case "filesystem":
+                log.info("Storing videos in the filesystem bucket at {}, staged on {}", bucketPath, roots);
+                return new FileSystemObjectStore(Paths.get(bucketPath));
+            default:
+                throw new IllegalStateException("Unknown video.storage.object.client: " + objectClient);
+        }
+    }
+}
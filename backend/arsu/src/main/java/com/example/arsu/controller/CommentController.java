@@ -1,26 +1,90 @@
 package com.example.arsu.controller;
 
 import com.example.arsu.model.Comment;
+import com.example.arsu.model.CommentPage;
 import com.example.arsu.service.CommentService;
+import com.example.arsu.service.CommentStreamHub;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/comments")
 public class CommentController {
+    private static final Logger logger = LoggerFactory.getLogger(CommentController.class);
+
     @Autowired
     private CommentService commentService;
 
+    @Autowired
+    private CommentStreamHub commentStreamHub;
+
+    /**
+     * Add a comment. The request completes once the comment's batch is durably written;
+     * the servlet thread is released while it waits.
+     */
     @PostMapping("/add")
-    public Comment addComment(@RequestBody Comment comment) {
-        return commentService.addComment(comment);
+    public CompletableFuture<ResponseEntity<Comment>> addComment(@RequestBody Comment comment) {
+        try {
+            return commentService.addComment(comment).handle((saved, error) -> {
+                if (error != null) {
+                    logger.error("Error saving comment: {}", error.getMessage());
+                    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+                }
+                return ResponseEntity.ok(saved);
+            });
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid request: {}", e.getMessage());
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        } catch (RejectedExecutionException e) {
+            logger.warn("Comment refused: {}", e.getMessage());
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build());
+        }
     }
 
+    /**
+     * Get a video's comments, newest first, one page at a time.
+     * Pass the returned nextCursor back as cursor for the next page.
+     */
     @GetMapping("/video/{videoId}")
-    public List<Comment> getCommentsByVideoId(@PathVariable String videoId) {
-        return commentService.getCommentsByVideoId(videoId);
+    public ResponseEntity<CommentPage> getCommentsByVideoId(@PathVariable String videoId,
+                                                            @RequestParam(required = false) String cursor,
+                                                            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            return ResponseEntity.ok(commentService.getCommentsByVideoId(videoId, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
     }
-}
 
+    /**
+     * Server-sent events stream of a video's new comments, as "comment" events carrying the comment JSON.
+     * Load the existing comments with the paged endpoint; this only delivers comments added afterwards.
+     */
+    @GetMapping(value = "/video/{videoId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamComments(@PathVariable String videoId) {
+        try {
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                    .header("X-Accel-Buffering", "no")
+                    .body(commentStreamHub.subscribe(videoId));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Comment stream refused: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .build();
+        }
+    }
+}
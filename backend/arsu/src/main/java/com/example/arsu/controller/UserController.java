@@ -1,28 +1,84 @@
 package com.example.arsu.controller;
 
+import com.example.arsu.config.SessionAuthenticationFilter;
+import com.example.arsu.model.LoginResponse;
+import com.example.arsu.model.Session;
 import com.example.arsu.model.User;
+import com.example.arsu.service.SessionService;
 import com.example.arsu.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
 @RestController
 @RequestMapping("/api/users")
 public class UserController {
+    private static final Logger logger = LoggerFactory.getLogger(UserController.class);
+
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private SessionService sessionService;
+
     @PostMapping("/register")
-    public User registerUser(@RequestBody User user) {
-        return userService.registerUser(user);
+    public CompletableFuture<ResponseEntity<User>> registerUser(@RequestBody User user) {
+        try {
+            return userService.registerUser(user).thenApply(ResponseEntity::ok);
+        } catch (RejectedExecutionException e) {
+            return busy();
+        }
     }
 
+    /**
+     * Checks the credentials once and returns a session token for the Authorization header of later requests.
+     */
     @PostMapping("/login")
-    public User loginUser(@RequestBody User user) {
-        User user1 = userService.loginUser(user.getUsername(), user.getPassword());
-        if (user1 != null) {
-            return user1;
-        } else {
-            throw new RuntimeException("Invalid username or password");
+    public CompletableFuture<ResponseEntity<LoginResponse>> loginUser(@RequestBody User user) {
+        try {
+            return userService.loginUser(user.getUsername(), user.getPassword()).handle((login, error) -> {
+                if (error != null) {
+                    logger.error("Error logging in: {}", error.getMessage());
+                    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+                }
+                if (login == null) {
+                    return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+                }
+                return ResponseEntity.ok(login);
+            });
+        } catch (RejectedExecutionException e) {
+            return busy();
+        }
+    }
+
+    @GetMapping("/me")
+    public ResponseEntity<User> currentUser(@AuthenticationPrincipal Session session) {
+        User user = userService.getUser(session.getUserId());
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
+        return ResponseEntity.ok(user);
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(HttpServletRequest request) {
+        sessionService.invalidate(SessionAuthenticationFilter.extractToken(request));
+        return ResponseEntity.noContent().build();
+    }
+
+    private <T> CompletableFuture<ResponseEntity<T>> busy() {
+        logger.warn("Password hashing queue is full");
+        return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .<T>build());
     }
-}
\ No newline at end of file
+}
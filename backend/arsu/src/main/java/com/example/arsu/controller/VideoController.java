@@ -1,26 +1,49 @@
 package com.example.arsu.controller;
 
+import com.example.arsu.model.ProcessingState;
+import com.example.arsu.model.Session;
+import com.example.arsu.model.TranscodeJob;
+import com.example.arsu.model.TrendingList;
+import com.example.arsu.model.TrendingVideo;
 import com.example.arsu.model.Video;
+import com.example.arsu.service.TranscodeJobService;
+import com.example.arsu.service.TranscodeQueueFullException;
 import com.example.arsu.service.VideoService;
-import com.example.arsu.repository.VideoRepository;
+import com.example.arsu.service.ViewCounter;
+import com.example.arsu.storage.VideoStorage;
+import com.example.arsu.streaming.ManifestCache;
+import com.example.arsu.streaming.MasterPlaylistGenerator;
+import com.example.arsu.streaming.PreviewSprites;
+import com.example.arsu.streaming.Rendition;
+import com.example.arsu.streaming.SegmentCache;
+import com.example.arsu.streaming.SegmentPrefetcher;
+import com.example.arsu.streaming.ZeroCopyFileSender;
+import com.example.arsu.trending.TrendingService;
+import com.example.arsu.trending.TrendingWindow;
+import com.fasterxml.jackson.core.JsonGenerator;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
+import java.util.regex.Pattern;
 
 @RestController
 @RequestMapping("/api/videos")
@@ -32,27 +55,73 @@ public class VideoController {
     private VideoService videoService;
 
     @Autowired
-    private VideoRepository videoRepository;
+    private TranscodeJobService transcodeJobService;
 
-    private final Path videoLocation = Paths.get("/home/aryan/ARSU/Storage");
+    @Autowired
+    private ZeroCopyFileSender fileSender;
+
+    @Autowired
+    private ManifestCache manifestCache;
+
+    @Autowired
+    private SegmentCache segmentCache;
+
+    @Autowired
+    private SegmentPrefetcher segmentPrefetcher;
+
+    @Autowired
+    private ViewCounter viewCounter;
+
+    @Autowired
+    private TrendingService trendingService;
+
+    @Autowired
+    private VideoStorage videoStorage;
+
+    // Listings are streamed with the same mapper the MVC converter uses
+    @Autowired
+    private MappingJackson2HttpMessageConverter jsonConverter;
+
+    private static final String HLS_PLAYLIST_TYPE = "application/vnd.apple.mpegurl";
+    private static final Pattern VIDEO_ID_PATTERN = Pattern.compile("[A-Za-z0-9]+");
+    private static final Pattern HLS_FILE_PATTERN = Pattern.compile("[A-Za-z0-9_]+\\.(ts|m3u8)");
+    private static final Pattern PREVIEW_FILE_PATTERN = Pattern.compile("[A-Za-z0-9_]+\\.(jpg|vtt)");
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    // Cacheable, but revalidated on every use (a cheap 304 while the validators match)
+    private static final String REVALIDATE = "public, no-cache";
+    // Segments of a video still being transcoded are complete, but a retried job may rewrite them
+    private static final String IN_PROGRESS_SEGMENT = "public, max-age=10";
 
     /**
      * Upload video API supporting both MultipartFile and File input types.
      * This method uses MultipartFile for video upload and passes it to VideoService for processing.
+     * Responds 202 as soon as the original is stored; transcoding continues in the background.
+     * Responds 429 or 503 with Retry-After when the transcode queue cannot take the video.
+     * The video belongs to the signed-in user, or to "default" for anonymous uploads.
      */
     @PostMapping("/upload")
     public ResponseEntity<Video> uploadVideo(
             @RequestParam("title") String title,
             @RequestParam("description") String description,
-            @RequestParam("file") MultipartFile multipartFile) {
+            @RequestParam("file") MultipartFile multipartFile,
+            @AuthenticationPrincipal Session session) {
         try {
             Video video = new Video();
             video.setTitle(title);
             video.setDescription(description);
-            video.setUserId("default"); // Set appropriate user ID based on your authentication
+            video.setUserId(session != null ? session.getUserId() : "default");
 
             Video savedVideo = videoService.uploadVideo(video, multipartFile);
-            return ResponseEntity.ok(savedVideo);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/videos/" + savedVideo.getId() + "/status"))
+                    .body(savedVideo);
+        } catch (TranscodeQueueFullException e) {
+            // 429 when this user has too much waiting, 503 when the whole queue is saturated
+            logger.warn("Upload refused: {}", e.getMessage());
+            HttpStatus status = e.isUserLimit() ? HttpStatus.TOO_MANY_REQUESTS : HttpStatus.SERVICE_UNAVAILABLE;
+            return ResponseEntity.status(status)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .build();
         } catch (IllegalArgumentException e) {
             logger.warn("Invalid request: {}", e.getMessage());
             return ResponseEntity.badRequest().build();
@@ -63,73 +132,159 @@ public class VideoController {
     }
 
     /**
-     * Get videos by user ID.
+     * Delete a video owned by the signed-in user. Its files are freed once no duplicate upload shares them.
+     */
+    @DeleteMapping("/{videoId}")
+    public ResponseEntity<Void> deleteVideo(@PathVariable String videoId, @AuthenticationPrincipal Session session) {
+        try {
+            Video video = videoService.getVideo(videoId);
+            if (video == null) {
+                logger.warn("Video with ID {} not found", videoId);
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            }
+            if (!session.getUserId().equals(video.getUserId())) {
+                logger.warn("User {} may not delete video {}", session.getUserId(), videoId);
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+            if (!videoService.deleteVideo(videoId)) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            }
+            return ResponseEntity.noContent().build();
+        } catch (Exception e) {
+            logger.error("Error deleting video {}", videoId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Get the transcoding status of a video (queued/running/done/failed plus percent progress).
+     * A duplicate upload reports the job of the video whose storage it shares.
+     */
+    @GetMapping("/{videoId}/status")
+    public ResponseEntity<TranscodeJob> getProcessingStatus(@PathVariable String videoId) {
+        TranscodeJob job = transcodeJobService.getLatestJob(videoService.resolveStorageId(videoId));
+        if (job != null) {
+            return ResponseEntity.ok(job);
+        }
+
+        // Videos uploaded before the job pipeline existed were transcoded synchronously
+        if (videoService.getVideo(videoId) == null) {
+            logger.warn("Video with ID {} not found", videoId);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        TranscodeJob legacyJob = new TranscodeJob();
+        legacyJob.setVideoId(videoId);
+        legacyJob.setState(ProcessingState.DONE);
+        legacyJob.setProgress(100);
+        return ResponseEntity.ok(legacyJob);
+    }
+
+    /**
+     * Get videos by user ID, one page at a time (see {@link #getAllVideos}).
+     * Carries a weak ETag from the user's listing version, so revalidation is answered 304 without Mongo.
      */
     @GetMapping("/user/{userId}")
-    public List<Video> getVideosByUserId(@PathVariable String userId) {
-        return videoService.getVideosByUserId(userId);
+    public void getVideosByUserId(@PathVariable String userId,
+                                  @RequestParam(required = false) String cursor,
+                                  @RequestParam(defaultValue = "20") int limit,
+                                  @RequestParam(defaultValue = "false") boolean includeDescription,
+                                  HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Long version = videoService.getUserListingVersion(userId);
+        if (version != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+            if (new ServletWebRequest(request, response).checkNotModified("W/\"" + version + "\"")) {
+                return;
+            }
+        }
+        writeVideoPage(userId, cursor, limit, includeDescription, response);
     }
 
     /**
-     * Get all videos in the database.
+     * Get all videos in the database, newest first, one page at a time.
+     * Responds {"videos": [...], "nextCursor": "..."}; pass nextCursor back as cursor for the next page.
+     * The page is streamed from the Mongo cursor as it is read, so it is never held in memory as a whole.
      */
     @GetMapping("/all")
-    public ResponseEntity<List<Video>> getAllVideos() {
-        try {
-            List<Video> videos = videoService.getAllVideos();
-            logger.info("Found {} videos", videos.size());
+    public void getAllVideos(@RequestParam(required = false) String cursor,
+                             @RequestParam(defaultValue = "20") int limit,
+                             @RequestParam(defaultValue = "false") boolean includeDescription,
+                             HttpServletResponse response) throws IOException {
+        writeVideoPage(null, cursor, limit, includeDescription, response);
+    }
 
-            // Debug log each video
-            videos.forEach(video -> logger.debug("Video: {}", video));
+    /**
+     * Most requested videos over the last hour ("1h") or day ("1d"), by approximate streaming request counts.
+     * Every node serves the same ranking, refreshed every few seconds.
+     */
+    @GetMapping("/trending")
+    public ResponseEntity<TrendingList> getTrending(@RequestParam(defaultValue = "1h") String window,
+                                                    @RequestParam(defaultValue = "10") int limit) {
+        TrendingWindow trendingWindow = TrendingWindow.fromLabel(window);
+        if (trendingWindow == null || limit <= 0) {
+            logger.warn("Invalid trending request: window={}, limit={}", window, limit);
+            return ResponseEntity.badRequest().build();
+        }
 
-            return ResponseEntity.ok()
-                    .contentType(org.springframework.http.MediaType.APPLICATION_JSON)
-                    .body(videos);
-        } catch (Exception e) {
-            logger.error("Error retrieving videos", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        TrendingService.Ranking ranking = trendingService.getTrending(trendingWindow, limit);
+        List<TrendingVideo> videos = new ArrayList<>(ranking.entries().size());
+        for (TrendingService.Entry entry : ranking.entries()) {
+            // Videos deleted since they were requested drop out
+            Video video = videoService.getVideo(entry.videoId());
+            if (video != null) {
+                videos.add(new TrendingVideo(video, entry.requests()));
+            }
         }
+        return ResponseEntity.ok(new TrendingList(trendingWindow.getLabel(), ranking.totalRequests(),
+                ranking.errorBound(), videos));
     }
 
     /**
      * Stream video in different qualities using HLS.
-     * Allows clients to stream a video in a specific quality (e.g., 720p, 1080p).
+     * Allows clients to stream a video in a specific quality (e.g., 720p, 1080p), or the adaptive
+     * master playlist when no quality is given. Served from the manifest cache; the only lookup is the
+     * video's storage id, which is cached. Finished playlists carry validators, and a matching
+     * If-None-Match or If-Modified-Since is answered 304.
      */
     @GetMapping("/stream/{videoId}")
-    public ResponseEntity<Resource> streamVideo(@PathVariable String videoId, @RequestParam String quality) {
+    public ResponseEntity<byte[]> streamVideo(@PathVariable String videoId,
+                                              @RequestParam(required = false) String quality) {
         try {
-            // Check if the video exists in the repository
-            Optional<Video> videoOptional = videoRepository.findById(videoId);
-            if (videoOptional.isEmpty()) {
-                logger.warn("Video with ID {} not found", videoId);
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            if (!VIDEO_ID_PATTERN.matcher(videoId).matches()) {
+                logger.warn("Invalid video ID requested: {}", videoId);
+                return ResponseEntity.badRequest().build();
             }
-            Video video = videoOptional.get();
 
             // Validate the quality parameter
-            List<String> supportedQualities = Arrays.asList("720p", "1080p", "480p", "240p");
-            if (!supportedQualities.contains(quality)) {
-                logger.warn("Invalid quality requested: {}", quality);
-                return ResponseEntity.badRequest().build();
+            String playlistName = MasterPlaylistGenerator.MASTER_PLAYLIST;
+            if (quality != null) {
+                Rendition rendition = Rendition.fromQuality(quality);
+                if (rendition == null) {
+                    logger.warn("Invalid quality requested: {}", quality);
+                    return ResponseEntity.badRequest().build();
+                }
+                playlistName = rendition.getPlaylistName();
             }
 
-            // Validate the video URL
-            if (video.getUrl() == null || video.getUrl().isEmpty()) {
-                logger.warn("Video URL is missing for video ID {}", videoId);
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            String storageId = videoService.resolveStorageId(videoId);
+            ManifestCache.Manifest playlist = manifestCache.getPlaylist(storageId, playlistName);
+            if (playlist == null) {
+                logger.warn("HLS playlist {} not found for video ID {}", playlistName, videoId);
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
             }
 
-            // Path to the HLS playlist
-            Path file = videoLocation.resolve(video.getUrl() + "/" + quality + ".m3u8");
-            if (!Files.exists(file)) {
-                logger.warn("HLS file not found at path: {}", file.toString());
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            trendingService.record(videoId);
+            if (quality == null) {
+                viewCounter.recordView(videoId);
             }
-            Resource resource = new UrlResource(file.toUri());
 
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_TYPE, "application/vnd.apple.mpegurl")
-                    .body(resource);
+            // Spring answers 304 itself when the request's validators match these
+            ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_TYPE, HLS_PLAYLIST_TYPE)
+                    .header(HttpHeaders.CACHE_CONTROL, playlistCacheControl(playlist, playlistName));
+            if (playlist.finished()) {
+                builder.eTag(playlist.version().eTag()).lastModified(playlist.version().lastModified());
+            }
+            return builder.body(playlist.content());
 
         } catch (Exception e) {
             logger.error("Error streaming video", e);
@@ -138,41 +293,210 @@ public class VideoController {
     }
 
     /**
-     * Stream raw video file (MP4).
-     * Allows clients to stream the raw video file in its original format.
+     * Serve a file from a video's HLS output directory (e.g. 720p_000.ts or 720p.m3u8).
+     * Playlists reference their segments relatively, so they resolve against this route.
+     * Playlists come from the manifest cache; segments of finished videos come from the off-heap segment
+     * cache, other segments are sent zero-copy from disk, and all honor single and multi-range requests.
+     * Sequential segment requests of finished videos trigger read-ahead of the following segments. Files of
+     * finished videos are immutable and carry the video's validators; a conditional request that matches
+     * them is answered 304 without reading the file. The validators are computed when a playlist is served;
+     * segments only reuse them while they are cached and are otherwise served as in progress.
      */
-    @GetMapping("/stream-raw/{videoId}")
-    public ResponseEntity<Resource> streamRawVideo(@PathVariable String videoId) {
-        try {
-            // Check if the video exists in the repository
-            Optional<Video> videoOptional = videoRepository.findById(videoId);
-            if (videoOptional.isEmpty()) {
-                logger.warn("Video with ID {} not found", videoId);
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+    @GetMapping("/stream/{videoId}/{fileName:.+}")
+    public void streamHlsFile(@PathVariable String videoId, @PathVariable String fileName,
+                              HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!VIDEO_ID_PATTERN.matcher(videoId).matches() || !HLS_FILE_PATTERN.matcher(fileName).matches()) {
+            logger.warn("Invalid HLS file requested: {}/{}", videoId, fileName);
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return;
+        }
+
+        String storageId = videoService.resolveStorageId(videoId);
+        if (fileName.endsWith(".m3u8")) {
+            ManifestCache.Manifest playlist = manifestCache.getPlaylist(storageId, fileName);
+            if (playlist == null) {
+                logger.warn("HLS playlist {} not found for video ID {}", fileName, videoId);
+                response.setStatus(HttpStatus.NOT_FOUND.value());
+                return;
             }
-            Video video = videoOptional.get();
+            trendingService.record(videoId);
+            if (fileName.equals(MasterPlaylistGenerator.MASTER_PLAYLIST)) {
+                viewCounter.recordView(videoId);
+            }
+            response.setHeader(HttpHeaders.CACHE_CONTROL, playlistCacheControl(playlist, fileName));
+            if (playlist.finished() && notModified(request, response, playlist.version())) {
+                return;
+            }
+            response.setContentType(HLS_PLAYLIST_TYPE);
+            response.setContentLength(playlist.content().length);
+            response.getOutputStream().write(playlist.content());
+            return;
+        }
 
-            // Validate the video URL
-            if (video.getUrl() == null || video.getUrl().isEmpty()) {
-                logger.warn("Video URL is missing for video ID {}", videoId);
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        // Players load a playlist before its segments, so a finished video's version is normally cached
+        ManifestCache.Version version = manifestCache.getCachedVersion(storageId);
+        if (version != null) {
+            segmentPrefetcher.onSegmentRequested(storageId, fileName);
+        }
+        response.setHeader(HttpHeaders.CACHE_CONTROL, version != null ? IMMUTABLE : IN_PROGRESS_SEGMENT);
+        if (version != null && notModified(request, response, version)) {
+            recordWatch(videoId, storageId, fileName, request);
+            return;
+        }
+        // Segments of an unfinished video may be rewritten by a retried encode, so only finished ones are cached
+        ByteBuffer segment = version != null ? segmentCache.get(storageId, fileName) : null;
+        if (segment == null) {
+            Path file = videoStorage.file(storageId, fileName);
+            if (file == null) {
+                logger.warn("HLS file {} not found for video ID {}", fileName, videoId);
+                response.reset();
+                response.setStatus(HttpStatus.NOT_FOUND.value());
+                return;
+            }
+            segment = version != null ? segmentCache.load(storageId, fileName, file) : null;
+            if (segment == null) {
+                recordWatch(videoId, storageId, fileName, request);
+                fileSender.send(request, response, file, "video/mp2t");
+                return;
             }
+        }
+        recordWatch(videoId, storageId, fileName, request);
+        fileSender.send(request, response, segment, "video/mp2t");
+    }
 
-            // Path to the raw video file
-            Path file = videoLocation.resolve(video.getUrl());
-            if (!Files.exists(file)) {
-                logger.warn("Raw video file not found at path: {}", file.toString());
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+    /**
+     * Serve a video's poster, seek-preview sprite sheets or their WebVTT index.
+     * Every transcode writes these under new names, so they are cached as immutable.
+     */
+    @GetMapping("/stream/{videoId}/" + PreviewSprites.DIR + "/{fileName:.+}")
+    public void streamPreviewFile(@PathVariable String videoId, @PathVariable String fileName,
+                                  HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!VIDEO_ID_PATTERN.matcher(videoId).matches() || !PREVIEW_FILE_PATTERN.matcher(fileName).matches()) {
+            logger.warn("Invalid preview file requested: {}/{}", videoId, fileName);
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return;
+        }
+
+        // The name identifies the content, so it is a strong validator on its own
+        response.setHeader(HttpHeaders.CACHE_CONTROL, IMMUTABLE);
+        if (new ServletWebRequest(request, response).checkNotModified("\"" + fileName + "\"")) {
+            return;
+        }
+        Path file = videoStorage.file(videoService.resolveStorageId(videoId), PreviewSprites.DIR + "/" + fileName);
+        if (file == null) {
+            logger.warn("Preview file {} not found for video ID {}", fileName, videoId);
+            response.reset();
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        fileSender.send(request, response, file, fileName.endsWith(".vtt") ? "text/vtt" : MediaType.IMAGE_JPEG_VALUE);
+    }
+
+    /**
+     * Stream raw video file (MP4).
+     * Allows clients to stream the raw video file in its original format, including seeking via Range requests.
+     * Originals are content-addressed, so their SHA-256 is their ETag.
+     */
+    @GetMapping("/stream-raw/{videoId}")
+    public void streamRawVideo(@PathVariable String videoId,
+                               HttpServletRequest request, HttpServletResponse response) throws IOException {
+        // Check if the video exists, via the video cache
+        Video video = videoService.getVideo(videoId);
+        if (video == null) {
+            logger.warn("Video with ID {} not found", videoId);
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+
+        // Validate the video URL
+        if (video.getUrl() == null || video.getUrl().isEmpty()) {
+            logger.warn("Video URL is missing for video ID {}", videoId);
+            response.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            return;
+        }
+
+        if (video.getContentHash() != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, REVALIDATE);
+            if (new ServletWebRequest(request, response).checkNotModified("\"" + video.getContentHash() + "\"")) {
+                return;
             }
-            Resource resource = new UrlResource(file.toUri());
+        }
+
+        // The URL is "<storage id>/<file name>"
+        int slash = video.getUrl().indexOf('/');
+        Path file = slash > 0
+                ? videoStorage.file(video.getUrl().substring(0, slash), video.getUrl().substring(slash + 1))
+                : null;
+        if (file == null) {
+            logger.warn("Raw video file {} not found for video ID {}", video.getUrl(), videoId);
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+
+        fileSender.send(request, response, file, "video/mp4");
+    }
+
+    /**
+     * Finished media playlists never change. The master playlist is revalidated on every play, so plays keep
+     * reaching the view counter, and playlists that are still growing are not cached at all.
+     */
+    private String playlistCacheControl(ManifestCache.Manifest playlist, String playlistName) {
+        if (!playlist.finished()) {
+            return "no-cache";
+        }
+        return playlistName.equals(MasterPlaylistGenerator.MASTER_PLAYLIST) ? REVALIDATE : IMMUTABLE;
+    }
 
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_TYPE, "video/mp4")
-                    .body(resource);
+    /**
+     * Sets the video's validators on the response and answers 304 if the request's match them.
+     */
+    private boolean notModified(HttpServletRequest request, HttpServletResponse response,
+                                ManifestCache.Version version) {
+        return new ServletWebRequest(request, response).checkNotModified(version.eTag(), version.lastModified());
+    }
+
+    /**
+     * Counts a served segment as watched and towards trending, once per segment: a range request only counts
+     * when it starts at the beginning of the segment.
+     */
+    private void recordWatch(String videoId, String storageId, String fileName, HttpServletRequest request) {
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range == null || range.startsWith("bytes=0-")) {
+            trendingService.record(videoId);
+            viewCounter.recordWatch(videoId, manifestCache.getSegmentMillis(storageId, fileName));
+        }
+    }
 
+    private void writeVideoPage(String userId, String cursor, int limit, boolean includeDescription,
+                                HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        JsonGenerator generator = jsonConverter.getObjectMapper().getFactory()
+                .createGenerator(response.getOutputStream());
+        try {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("videos");
+            String nextCursor = videoService.streamVideoPage(userId, cursor, limit, includeDescription, video -> {
+                try {
+                    generator.writeObject(video);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+            generator.writeStringField("nextCursor", nextCursor);
+            generator.writeEndObject();
+            generator.close();
+        } catch (IllegalArgumentException e) {
+            // Thrown before any document is written, so the buffered JSON can still be discarded
+            logger.warn("Invalid request: {}", e.getMessage());
+            response.reset();
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
         } catch (Exception e) {
-            logger.error("Error streaming raw video", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            logger.error("Error retrieving videos", e);
+            if (!response.isCommitted()) {
+                response.reset();
+                response.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            }
         }
     }
 }
@@ -1,10 +1,12 @@
 package com.example.arsu.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.util.Date;
 
 @Document(collection = "comments")
+@CompoundIndex(name = "videoId_createdAt", def = "{'videoId': 1, 'createdAt': -1, '_id': -1}")
 public class Comment {
     @Id
     private String id;
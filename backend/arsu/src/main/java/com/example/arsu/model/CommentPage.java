@@ -0,0 +1,35 @@
+package com.example.arsu.model;
+
+import java.util.List;
+
+/**
+ * One page of a video's comments, newest first, plus the cursor of the next page (null on the last page).
+ */
+public class CommentPage {
+    private List<Comment> comments;
+    private String nextCursor;
+
+    public CommentPage() {
+    }
+
+    public CommentPage(List<Comment> comments, String nextCursor) {
+        this.comments = comments;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Comment> getComments() {
+        return comments;
+    }
+
+    public void setComments(List<Comment> comments) {
+        this.comments = comments;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.arsu.model;
+
+/**
+ * The session token issued at login, to be sent back as "Authorization: Bearer &lt;token&gt;", plus the user.
+ */
+public class LoginResponse {
+    private String token;
+    private long expiresInSeconds;
+    private User user;
+
+    public LoginResponse() {
+    }
+
+    public LoginResponse(String token, long expiresInSeconds, User user) {
+        this.token = token;
+        this.expiresInSeconds = expiresInSeconds;
+        this.user = user;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    public long getExpiresInSeconds() {
+        return expiresInSeconds;
+    }
+
+    public void setExpiresInSeconds(long expiresInSeconds) {
+        this.expiresInSeconds = expiresInSeconds;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.arsu.model;
+
+/**
+ * Source properties reported by ffprobe, stored on the video they were probed from.
+ */
+public class MediaInfo {
+    private int width;
+    private int height;
+    private double frameRate;
+    private double durationSeconds;
+    private String videoCodec;
+    private String audioCodec;
+    private long bitrate;
+
+    // Getters and Setters
+
+    public int getWidth() {
+        return width;
+    }
+
+    public void setWidth(int width) {
+        this.width = width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public void setHeight(int height) {
+        this.height = height;
+    }
+
+    public double getFrameRate() {
+        return frameRate;
+    }
+
+    public void setFrameRate(double frameRate) {
+        this.frameRate = frameRate;
+    }
+
+    public double getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public void setDurationSeconds(double durationSeconds) {
+        this.durationSeconds = durationSeconds;
+    }
+
+    public String getVideoCodec() {
+        return videoCodec;
+    }
+
+    public void setVideoCodec(String videoCodec) {
+        this.videoCodec = videoCodec;
+    }
+
+    public String getAudioCodec() {
+        return audioCodec;
+    }
+
+    public void setAudioCodec(String audioCodec) {
+        this.audioCodec = audioCodec;
+    }
+
+    public long getBitrate() {
+        return bitrate;
+    }
+
+    public void setBitrate(long bitrate) {
+        this.bitrate = bitrate;
+    }
+
+    @Override
+    public String toString() {
+        return "MediaInfo{" +
+                "width=" + width +
+                ", height=" + height +
+                ", frameRate=" + frameRate +
+                ", durationSeconds=" + durationSeconds +
+                ", videoCodec='" + videoCodec + '\'' +
+                ", audioCodec='" + audioCodec + '\'' +
+                ", bitrate=" + bitrate +
+                '}';
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.arsu.model;
+
+/**
+ * Lifecycle of a video's transcoding job.
+ */
+public enum ProcessingState {
+    QUEUED,
+    RUNNING,
+    DONE,
+    FAILED
+}
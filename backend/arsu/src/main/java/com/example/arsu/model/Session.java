@@ -0,0 +1,55 @@
+package com.example.arsu.model;
+
+import java.util.Date;
+
+/**
+ * A logged-in user's session as stored in Redis under its token. Never holds credentials.
+ */
+public class Session {
+    private String userId;
+    private String username;
+    private Date createdAt;
+    private Date refreshedAt;
+
+    public Session() {
+    }
+
+    public Session(String userId, String username) {
+        this.userId = userId;
+        this.username = username;
+        this.createdAt = new Date();
+        this.refreshedAt = this.createdAt;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Date getRefreshedAt() {
+        return refreshedAt;
+    }
+
+    public void setRefreshedAt(Date refreshedAt) {
+        this.refreshedAt = refreshedAt;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.arsu.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * One distinct uploaded file, keyed by the SHA-256 of its bytes. Every video uploaded with those bytes
+ * references the same storage directory (named after the first of them); refCount counts those videos.
+ * A new entry is pending until its first upload has been stored and queued for transcoding. When that
+ * transcode fails for good the entry is marked failed and set aside under the id digest:storageId, so the
+ * next upload of the same bytes is stored afresh.
+ */
+@Document(collection = "contents")
+public class StoredContent {
+    @Id
+    private String id;
+    private String storageId;
+    private String url;
+    private long size;
+    private long refCount;
+    private boolean pending;
+    private boolean failed;
+    private Date createdAt;
+
+    public StoredContent() {
+    }
+
+    public StoredContent(String id, String storageId, String url, long size) {
+        this.id = id;
+        this.storageId = storageId;
+        this.url = url;
+        this.size = size;
+        this.refCount = 1;
+        this.pending = true;
+        this.createdAt = new Date();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getStorageId() {
+        return storageId;
+    }
+
+    public void setStorageId(String storageId) {
+        this.storageId = storageId;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public long getRefCount() {
+        return refCount;
+    }
+
+    public void setRefCount(long refCount) {
+        this.refCount = refCount;
+    }
+
+    public boolean isPending() {
+        return pending;
+    }
+
+    public void setPending(boolean pending) {
+        this.pending = pending;
+    }
+
+    public boolean isFailed() {
+        return failed;
+    }
+
+    public void setFailed(boolean failed) {
+        this.failed = failed;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.arsu.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import java.util.Date;
+
+@Document(collection = "transcode_jobs")
+// Scheduler pick, admission counts and stale-job sweep
+@CompoundIndex(name = "state_priority_createdAt", def = "{'state': 1, 'priority': 1, 'createdAt': 1}")
+@CompoundIndex(name = "state_userId", def = "{'state': 1, 'userId': 1}")
+@CompoundIndex(name = "state_updatedAt", def = "{'state': 1, 'updatedAt': 1}")
+@CompoundIndex(name = "videoId_createdAt", def = "{'videoId': 1, 'createdAt': -1}")
+public class TranscodeJob {
+    @Id
+    private String id;
+    private String videoId;
+    private String userId;
+    @JsonIgnore
+    private String inputPath;
+    private ProcessingState state;
+    private TranscodePriority priority;
+    private int cpuSlots;
+    private int progress;
+    private int attempts;
+    private String error;
+    private Date createdAt;
+    private Date updatedAt;
+
+    // Getters and Setters
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getVideoId() {
+        return videoId;
+    }
+
+    public void setVideoId(String videoId) {
+        this.videoId = videoId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getInputPath() {
+        return inputPath;
+    }
+
+    public void setInputPath(String inputPath) {
+        this.inputPath = inputPath;
+    }
+
+    public ProcessingState getState() {
+        return state;
+    }
+
+    public void setState(ProcessingState state) {
+        this.state = state;
+    }
+
+    public TranscodePriority getPriority() {
+        return priority;
+    }
+
+    public void setPriority(TranscodePriority priority) {
+        this.priority = priority;
+    }
+
+    public int getCpuSlots() {
+        return cpuSlots;
+    }
+
+    public void setCpuSlots(int cpuSlots) {
+        this.cpuSlots = cpuSlots;
+    }
+
+    public int getProgress() {
+        return progress;
+    }
+
+    public void setProgress(int progress) {
+        this.progress = progress;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Date getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Date updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
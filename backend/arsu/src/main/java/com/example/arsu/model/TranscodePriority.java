@@ -0,0 +1,10 @@
+package com.example.arsu.model;
+
+/**
+ * Scheduling class of a transcoding job, highest priority first.
+ */
+public enum TranscodePriority {
+    SHORT,
+    LONG,
+    RETRANSCODE
+}
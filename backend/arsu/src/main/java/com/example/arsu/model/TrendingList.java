@@ -0,0 +1,56 @@
+package com.example.arsu.model;
+
+import java.util.List;
+
+/**
+ * Ranking of one window ("1h" or "1d"). Request counts are estimates: never below the true count and,
+ * with high probability, at most errorBound above it.
+ */
+public class TrendingList {
+    private String window;
+    private long totalRequests;
+    private long errorBound;
+    private List<TrendingVideo> videos;
+
+    public TrendingList() {
+    }
+
+    public TrendingList(String window, long totalRequests, long errorBound, List<TrendingVideo> videos) {
+        this.window = window;
+        this.totalRequests = totalRequests;
+        this.errorBound = errorBound;
+        this.videos = videos;
+    }
+
+    public String getWindow() {
+        return window;
+    }
+
+    public void setWindow(String window) {
+        this.window = window;
+    }
+
+    public long getTotalRequests() {
+        return totalRequests;
+    }
+
+    public void setTotalRequests(long totalRequests) {
+        this.totalRequests = totalRequests;
+    }
+
+    public long getErrorBound() {
+        return errorBound;
+    }
+
+    public void setErrorBound(long errorBound) {
+        this.errorBound = errorBound;
+    }
+
+    public List<TrendingVideo> getVideos() {
+        return videos;
+    }
+
+    public void setVideos(List<TrendingVideo> videos) {
+        this.videos = videos;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.arsu.model;
+
+/**
+ * A trending video with its estimated number of streaming requests in the window.
+ */
+public class TrendingVideo {
+    private Video video;
+    private long requests;
+
+    public TrendingVideo() {
+    }
+
+    public TrendingVideo(Video video, long requests) {
+        this.video = video;
+        this.requests = requests;
+    }
+
+    public Video getVideo() {
+        return video;
+    }
+
+    public void setVideo(Video video) {
+        this.video = video;
+    }
+
+    public long getRequests() {
+        return requests;
+    }
+
+    public void setRequests(long requests) {
+        this.requests = requests;
+    }
+}
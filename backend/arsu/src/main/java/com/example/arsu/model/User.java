@@ -1,6 +1,8 @@
 package com.example.arsu.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.util.Date;
 
@@ -8,8 +10,12 @@ import java.util.Date;
 public class User {
     @Id
     private String id;
+    @Indexed(unique = true)
     private String username;
+    @Indexed(unique = true, sparse = true)
     private String email;
+    // Accepted on register/login, never written back out
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private String password;
     private String profilePicture;
     private Date createdAt;
@@ -1,12 +1,18 @@
 package com.example.arsu.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import java.util.Date;
+import java.util.List;
 
 @Document(collection = "videos")
+// Listing keysets: (createdAt desc, _id desc), globally and per user
+@CompoundIndex(name = "userId_createdAt", def = "{'userId': 1, 'createdAt': -1, '_id': -1}")
+@CompoundIndex(name = "createdAt", def = "{'createdAt': -1, '_id': -1}")
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class Video {
     @Id
@@ -22,12 +28,47 @@ public class Video {
     @JsonProperty("url")
     private String url;
 
+    // Directory holding the original and the HLS output; shared by every upload of the same bytes
+    @Indexed(sparse = true)
+    @JsonProperty("storageId")
+    private String storageId;
+
+    // SHA-256 of the uploaded original, the key of its ContentIndex entry
+    @JsonProperty("contentHash")
+    private String contentHash;
+
     @JsonProperty("thumbnail")
     private String thumbnail;
 
+    // WebVTT index of the seek-preview sprite sheets
+    @JsonProperty("previewTrack")
+    private String previewTrack;
+
     @JsonProperty("userId")
     private String userId;
 
+    @JsonProperty("processingState")
+    private ProcessingState processingState;
+
+    @JsonProperty("playable")
+    private boolean playable;
+
+    @JsonProperty("jobId")
+    private String jobId;
+
+    @JsonProperty("sourceInfo")
+    private MediaInfo sourceInfo;
+
+    @JsonProperty("renditions")
+    private List<String> renditions;
+
+    // Aggregated totals, incremented in batches by ViewCounter
+    @JsonProperty("viewCount")
+    private long viewCount;
+
+    @JsonProperty("watchTimeSeconds")
+    private long watchTimeSeconds;
+
     @JsonProperty("createdAt")
     private Date createdAt;
 
@@ -88,6 +129,30 @@ public class Video {
         this.thumbnail = thumbnail;
     }
 
+    public String getPreviewTrack() {
+        return previewTrack;
+    }
+
+    public void setPreviewTrack(String previewTrack) {
+        this.previewTrack = previewTrack;
+    }
+
+    public String getStorageId() {
+        return storageId;
+    }
+
+    public void setStorageId(String storageId) {
+        this.storageId = storageId;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
     public String getUserId() {
         return userId;
     }
@@ -96,6 +161,62 @@ public class Video {
         this.userId = userId;
     }
 
+    public ProcessingState getProcessingState() {
+        return processingState;
+    }
+
+    public void setProcessingState(ProcessingState processingState) {
+        this.processingState = processingState;
+    }
+
+    public boolean isPlayable() {
+        return playable;
+    }
+
+    public void setPlayable(boolean playable) {
+        this.playable = playable;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public MediaInfo getSourceInfo() {
+        return sourceInfo;
+    }
+
+    public void setSourceInfo(MediaInfo sourceInfo) {
+        this.sourceInfo = sourceInfo;
+    }
+
+    public List<String> getRenditions() {
+        return renditions;
+    }
+
+    public void setRenditions(List<String> renditions) {
+        this.renditions = renditions;
+    }
+
+    public long getViewCount() {
+        return viewCount;
+    }
+
+    public void setViewCount(long viewCount) {
+        this.viewCount = viewCount;
+    }
+
+    public long getWatchTimeSeconds() {
+        return watchTimeSeconds;
+    }
+
+    public void setWatchTimeSeconds(long watchTimeSeconds) {
+        this.watchTimeSeconds = watchTimeSeconds;
+    }
+
     public Date getCreatedAt() {
         return createdAt;
     }
@@ -120,7 +241,15 @@ public class Video {
                 ", description='" + description + '\'' +
                 ", url='" + url + '\'' +
                 ", thumbnail='" + thumbnail + '\'' +
+                ", previewTrack='" + previewTrack + '\'' +
                 ", userId='" + userId + '\'' +
+                ", processingState=" + processingState +
+                ", playable=" + playable +
+                ", jobId='" + jobId + '\'' +
+                ", sourceInfo=" + sourceInfo +
+                ", renditions=" + renditions +
+                ", viewCount=" + viewCount +
+                ", watchTimeSeconds=" + watchTimeSeconds +
                 ", createdAt=" + createdAt +
                 ", updatedAt=" + updatedAt +
                 '}';
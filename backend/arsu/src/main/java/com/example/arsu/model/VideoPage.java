@@ -0,0 +1,35 @@
+package com.example.arsu.model;
+
+import java.util.List;
+
+/**
+ * One page of a video listing plus the cursor of the next page (null on the last page).
+ */
+public class VideoPage {
+    private List<Video> videos;
+    private String nextCursor;
+
+    public VideoPage() {
+    }
+
+    public VideoPage(List<Video> videos, String nextCursor) {
+        this.videos = videos;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Video> getVideos() {
+        return videos;
+    }
+
+    public void setVideos(List<Video> videos) {
+        this.videos = videos;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
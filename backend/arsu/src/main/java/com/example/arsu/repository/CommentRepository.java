@@ -3,9 +3,7 @@ package com.example.arsu.repository;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 import com.example.arsu.model.Comment;
-import java.util.List;
 
 @Repository
 public interface CommentRepository extends MongoRepository<Comment, String> {
-    List<Comment> findByVideoId(String videoId);
 }
@@ -0,0 +1,107 @@
+package com.example.arsu.repository;
+
+import com.example.arsu.model.Comment;
+import com.example.arsu.model.TranscodeJob;
+import com.example.arsu.model.User;
+import com.example.arsu.model.Video;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Ensures the indexes declared on the entities (@Indexed, @CompoundIndex) exist, then checks the plans
+ * of the hot queries. Runs in the background and retries until Mongo is reachable, so startup never
+ * waits for Mongo; Spring Data's own auto-index-creation stays off for the same reason.
+ * With mongo.indexes.fail-on-collection-scan, set by tests and CI, the check runs during startup instead
+ * and a hot query that scans its collection fails the application. A server that cannot explain queries
+ * (see {@link QueryPlanVerifier}) is reported but not treated as a failure.
+ */
+@Component
+public class MongoIndexManager implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(MongoIndexManager.class);
+
+    static final List<Class<?>> INDEXED_ENTITIES = List.of(Video.class, Comment.class, User.class, TranscodeJob.class);
+
+    @Value("${mongo.indexes.fail-on-collection-scan:false}")
+    private boolean failOnCollectionScan;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private QueryPlanVerifier queryPlanVerifier;
+
+    private volatile boolean done;
+
+    /**
+     * In strict mode, ensures the indexes and verifies the plans before the application takes traffic.
+     *
+     * @throws IllegalStateException if a hot query scans its collection
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        if (failOnCollectionScan) {
+            ensureIndexes();
+            verify();
+            done = true;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${mongo.indexes.retry-ms:60000}")
+    public void ensureIndexesAndVerify() {
+        // Strict mode checks once at startup instead
+        if (done || failOnCollectionScan) {
+            return;
+        }
+        try {
+            ensureIndexes();
+            verify();
+            done = true;
+        } catch (Exception e) {
+            log.warn("Could not ensure Mongo indexes, will retry: {}", e.getMessage());
+        }
+    }
+
+    void verify() {
+        List<String> collectionScans;
+        try {
+            collectionScans = queryPlanVerifier.findCollectionScans();
+        } catch (UnsupportedOperationException e) {
+            log.warn("Indexes ensured; query plans not verified: {}", e.getMessage());
+            return;
+        }
+        if (collectionScans.isEmpty()) {
+            log.info("Indexes ensured; all {} hot queries use an index", QueryPlanVerifier.HOT_QUERIES.size());
+            return;
+        }
+        collectionScans.forEach(scan -> log.error("Query scans the whole collection: {}", scan));
+        if (failOnCollectionScan) {
+            throw new IllegalStateException(collectionScans.size() + " hot queries scan their collection: "
+                    + collectionScans);
+        }
+    }
+
+    /**
+     * Creates every declared index that does not exist yet; existing indexes are left as they are.
+     */
+    public void ensureIndexes() {
+        IndexResolver resolver = IndexResolver.create(mongoTemplate.getConverter().getMappingContext());
+        for (Class<?> entity : INDEXED_ENTITIES) {
+            IndexOperations indexOps = mongoTemplate.indexOps(entity);
+            for (IndexDefinition index : resolver.resolveIndexFor(entity)) {
+                indexOps.ensureIndex(index);
+            }
+        }
+    }
+}
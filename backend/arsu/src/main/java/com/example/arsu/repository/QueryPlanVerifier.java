@@ -0,0 +1,124 @@
+package com.example.arsu.repository;
+
+import com.example.arsu.model.Comment;
+import com.example.arsu.model.TranscodeJob;
+import com.example.arsu.model.User;
+import com.example.arsu.model.Video;
+import com.mongodb.MongoCommandException;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Explains the query shapes that run on the request path and in the transcode scheduler, and reports
+ * those whose winning plan scans the whole collection. HOT_QUERIES is maintained by hand: a test checks
+ * that it names every derived query method on the repositories, but queries built with MongoTemplate in
+ * the services are only covered once they are added here, and a query missing from the list is not
+ * checked at all. The check only fails startup with mongo.indexes.fail-on-collection-scan, which is off
+ * by default and set by tests and CI (see {@link MongoIndexManager}); otherwise scans are only logged.
+ * Needs a server with a query planner: in-memory wire-protocol servers such as mongo-java-server, used by
+ * the load test, answer every query by scanning and do not implement explain at all.
+ */
+@Component
+public class QueryPlanVerifier {
+
+    /**
+     * A query shape as the repositories and services issue it; the values only need the right type.
+     */
+    public record HotQuery(String name, Class<?> entity, Document filter, Document sort) {
+    }
+
+    static final List<HotQuery> HOT_QUERIES = List.of(
+            new HotQuery("VideoRepository.findByUserId", Video.class,
+                    new Document("userId", "u"), new Document()),
+            new HotQuery("VideoService.streamVideoPage (user)", Video.class,
+                    new Document("userId", "u"), new Document("createdAt", -1).append("_id", -1)),
+            new HotQuery("VideoService.linkDuplicate", Video.class,
+                    new Document("storageId", "s"), new Document()),
+            new HotQuery("VideoService.streamVideoPage (all)", Video.class,
+                    new Document(), new Document("createdAt", -1).append("_id", -1)),
+            new HotQuery("CommentService.getCommentsByVideoId", Comment.class,
+                    new Document("videoId", "v"), new Document("createdAt", -1).append("_id", -1)),
+            new HotQuery("UserRepository.findByUsername", User.class,
+                    new Document("username", "u"), new Document()),
+            new HotQuery("UserRepository.findByEmail", User.class,
+                    new Document("email", "e"), new Document()),
+            new HotQuery("TranscodeJobRepository.findFirstByVideoIdOrderByCreatedAtDesc", TranscodeJob.class,
+                    new Document("videoId", "v"), new Document("createdAt", -1)),
+            new HotQuery("TranscodeJobService.pickNextJob", TranscodeJob.class,
+                    new Document("state", "QUEUED").append("priority", "SHORT"), new Document("createdAt", 1)),
+            new HotQuery("TranscodeJobService.checkAdmission", TranscodeJob.class,
+                    new Document("state", "QUEUED").append("userId", "u"), new Document()),
+            new HotQuery("TranscodeJobService.poll", TranscodeJob.class,
+                    new Document("state", "RUNNING").append("updatedAt", new Document("$lt", new Date())),
+                    new Document()));
+
+    // Error code of a command the server does not implement
+    private static final int COMMAND_NOT_FOUND = 59;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * Names and plans of the hot queries that would scan their collection; empty if all use an index.
+     *
+     * @throws UnsupportedOperationException if the server cannot explain queries
+     */
+    public List<String> findCollectionScans() {
+        List<String> collectionScans = new ArrayList<>();
+        for (HotQuery query : HOT_QUERIES) {
+            Document explain;
+            try {
+                explain = mongoTemplate.getCollection(mongoTemplate.getCollectionName(query.entity()))
+                        .find(query.filter())
+                        .sort(query.sort())
+                        .explain();
+            } catch (MongoCommandException e) {
+                if (e.getErrorCode() == COMMAND_NOT_FOUND) {
+                    throw new UnsupportedOperationException("Server has no query planner to explain with: "
+                            + e.getErrorMessage(), e);
+                }
+                throw e;
+            }
+            if (usesCollectionScan(explain)) {
+                collectionScans.add(query.name() + " " + query.filter().toJson());
+            }
+        }
+        return collectionScans;
+    }
+
+    /**
+     * True if any stage of the winning plan is a COLLSCAN. Handles both the classic plan layout
+     * (inputStage/inputStages) and the slot-based engine's (winningPlan.queryPlan).
+     */
+    static boolean usesCollectionScan(Document explain) {
+        Document queryPlanner = explain.get("queryPlanner", Document.class);
+        return queryPlanner != null && containsCollectionScan(queryPlanner.get("winningPlan"));
+    }
+
+    private static boolean containsCollectionScan(Object stage) {
+        if (stage instanceof Document) {
+            Document document = (Document) stage;
+            if ("COLLSCAN".equals(document.getString("stage"))) {
+                return true;
+            }
+            for (Object child : document.values()) {
+                if (containsCollectionScan(child)) {
+                    return true;
+                }
+            }
+        } else if (stage instanceof List) {
+            for (Object child : (List<?>) stage) {
+                if (containsCollectionScan(child)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
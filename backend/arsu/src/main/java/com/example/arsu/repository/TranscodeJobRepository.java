@@ -0,0 +1,10 @@
+package com.example.arsu.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+import com.example.arsu.model.TranscodeJob;
+
+@Repository
+public interface TranscodeJobRepository extends MongoRepository<TranscodeJob, String> {
+    TranscodeJob findFirstByVideoIdOrderByCreatedAtDesc(String videoId);
+}
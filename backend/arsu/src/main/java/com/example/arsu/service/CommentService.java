@@ -1,26 +1,71 @@
-
 package com.example.arsu.service;
 
 import com.example.arsu.model.Comment;
-import com.example.arsu.repository.CommentRepository;
+import com.example.arsu.model.CommentPage;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class CommentService {
+    private static final int MAX_PAGE_SIZE = 100;
+
+    @Autowired
+    private CommentWriteBuffer commentWriteBuffer;
+
     @Autowired
-    private CommentRepository commentRepository;
+    private MongoTemplate mongoTemplate;
 
-    public Comment addComment(Comment comment) {
+    @Autowired
+    private CommentStreamHub commentStreamHub;
+
+    /**
+     * Queues the comment for a batched insert; the future completes once it is durably stored,
+     * at which point the comment is pushed to the video's live subscribers.
+     */
+    public CompletableFuture<Comment> addComment(Comment comment) {
+        if (comment.getVideoId() == null || comment.getVideoId().isEmpty()) {
+            throw new IllegalArgumentException("videoId is required");
+        }
+        if (comment.getComment() == null || comment.getComment().isBlank()) {
+            throw new IllegalArgumentException("Comment cannot be empty");
+        }
+        comment.setId(null);
         comment.setCreatedAt(new Date());
         comment.setUpdatedAt(new Date());
-        return commentRepository.save(comment);
+        return commentWriteBuffer.submit(comment).thenApply(saved -> {
+            commentStreamHub.publish(saved);
+            return saved;
+        });
     }
 
-    public List<Comment> getCommentsByVideoId(String videoId) {
-        return commentRepository.findByVideoId(videoId);
+    /**
+     * One page of a video's comments, newest first.
+     *
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public CommentPage getCommentsByVideoId(String videoId, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        Criteria criteria = Criteria.where("videoId").is(videoId);
+        if (cursor != null && !cursor.isEmpty()) {
+            criteria = new Criteria().andOperator(criteria, PageCursor.after(cursor));
+        }
+        Query query = Query.query(criteria).with(PageCursor.NEWEST_FIRST).limit(pageSize + 1);
+
+        // One extra comment tells whether there is a next page
+        List<Comment> comments = mongoTemplate.find(query, Comment.class);
+        String nextCursor = null;
+        if (comments.size() > pageSize) {
+            comments = comments.subList(0, pageSize);
+            Comment last = comments.get(pageSize - 1);
+            nextCursor = PageCursor.encode(last.getCreatedAt(), last.getId());
+        }
+        return new CommentPage(comments, nextCursor);
     }
 }
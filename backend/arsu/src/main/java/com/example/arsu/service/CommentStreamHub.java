@@ -0,0 +1,233 @@
+package com.example.arsu.service;
+
+import com.example.arsu.config.RedisSubscriptions;
+import com.example.arsu.model.Comment;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes new comments to the clients watching a video over server-sent events.
+ * Comments are published on a per-video Redis channel so every node sees them; a node subscribes to a
+ * video's channel only while it has at least one local client for that video, however many there are.
+ * When Redis is down, comments are still delivered to the clients connected to the node that stored them.
+ */
+@Component
+public class CommentStreamHub implements MessageListener {
+    private static final Logger log = LoggerFactory.getLogger(CommentStreamHub.class);
+
+    private static final String CHANNEL_PREFIX = "comments:";
+
+    @Value("${comments.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${comments.stream.max-clients:10000}")
+    private int maxClients;
+
+    @Value("${comments.stream.send-threads:4}")
+    private int sendThreads;
+
+    @Value("${comments.stream.publish-queue:10000}")
+    private int publishQueue;
+
+    @Autowired
+    private RedisSubscriptions redisSubscriptions;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jsonConverter;
+
+    private final Map<String, Set<SseEmitter>> clients = new ConcurrentHashMap<>();
+    private final AtomicInteger clientCount = new AtomicInteger();
+
+    private ExecutorService sender;
+    private ExecutorService publisher;
+
+    @PostConstruct
+    public void init() {
+        // Writes to slow clients must not hold up the Redis listener thread
+        sender = new ThreadPoolExecutor(sendThreads, sendThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(10000), runnable -> {
+                    Thread thread = new Thread(runnable, "comment-push");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        // Keeps the Redis round trip off the comment writer thread, which batches every node's inserts
+        publisher = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(publishQueue), runnable -> {
+                    Thread thread = new Thread(runnable, "comment-publish");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Registers a client for a video's new comments.
+     *
+     * @throws RejectedExecutionException if the node already serves its maximum number of clients
+     */
+    public SseEmitter subscribe(String videoId) {
+        if (clientCount.incrementAndGet() > maxClients) {
+            clientCount.decrementAndGet();
+            throw new RejectedExecutionException("Too many comment stream clients");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        clients.compute(videoId, (id, emitters) -> {
+            if (emitters == null) {
+                emitters = new CopyOnWriteArraySet<>();
+                redisSubscriptions.subscribe(this, new ChannelTopic(CHANNEL_PREFIX + id));
+            }
+            emitters.add(emitter);
+            return emitters;
+        });
+        emitter.onCompletion(() -> remove(videoId, emitter));
+        emitter.onTimeout(() -> remove(videoId, emitter));
+        emitter.onError(error -> remove(videoId, emitter));
+        return emitter;
+    }
+
+    /**
+     * Announces a stored comment to the video's clients on every node.
+     * Returns immediately; the comment goes out to Redis on the publisher thread.
+     */
+    public void publish(Comment comment) {
+        try {
+            publisher.execute(() -> broadcast(comment));
+        } catch (RejectedExecutionException e) {
+            log.debug("Publish queue full, delivering comment {} locally", comment.getId());
+            deliver(comment);
+        }
+    }
+
+    void broadcast(Comment comment) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL_PREFIX + comment.getVideoId(), comment);
+        } catch (Exception e) {
+            log.debug("Could not publish comment {}, delivering locally: {}", comment.getId(), e.getMessage());
+            deliver(comment);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object payload;
+        try {
+            payload = redisTemplate.getValueSerializer().deserialize(message.getBody());
+        } catch (Exception e) {
+            log.warn("Ignoring malformed comment on {}: {}",
+                    new String(message.getChannel(), StandardCharsets.UTF_8), e.getMessage());
+            return;
+        }
+        if (payload instanceof Comment comment) {
+            deliver(comment);
+        }
+    }
+
+    /**
+     * Keeps idle connections open through proxies and detects clients that went away.
+     */
+    @Scheduled(fixedDelayString = "${comments.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Map.Entry<String, Set<SseEmitter>> entry : clients.entrySet()) {
+            send(entry.getKey(), entry.getValue(), SseEmitter.event().comment("keep-alive"));
+        }
+    }
+
+    public int getClientCount() {
+        return clientCount.get();
+    }
+
+    public int getSubscribedVideoCount() {
+        return clients.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        publisher.shutdownNow();
+        sender.shutdownNow();
+        for (Set<SseEmitter> emitters : clients.values()) {
+            emitters.forEach(SseEmitter::complete);
+        }
+    }
+
+    void deliver(Comment comment) {
+        Set<SseEmitter> emitters = clients.get(comment.getVideoId());
+        if (emitters == null) {
+            return;
+        }
+        // Serialized once, however many clients receive it
+        String json;
+        try {
+            json = jsonConverter.getObjectMapper().writeValueAsString(comment);
+        } catch (JsonProcessingException e) {
+            log.error("Could not serialize comment {}: {}", comment.getId(), e.getMessage());
+            return;
+        }
+        SseEmitter.SseEventBuilder event = SseEmitter.event()
+                .name("comment")
+                .id(comment.getId())
+                .data(json, MediaType.APPLICATION_JSON);
+        send(comment.getVideoId(), emitters, event);
+    }
+
+    void remove(String videoId, SseEmitter emitter) {
+        clients.computeIfPresent(videoId, (id, emitters) -> {
+            if (emitters.remove(emitter)) {
+                clientCount.decrementAndGet();
+            }
+            if (emitters.isEmpty()) {
+                redisSubscriptions.unsubscribe(this, new ChannelTopic(CHANNEL_PREFIX + id));
+                return null;
+            }
+            return emitters;
+        });
+    }
+
+    private void send(String videoId, Set<SseEmitter> emitters, SseEmitter.SseEventBuilder event) {
+        // Built once up front; the builder itself is not safe to share between sender threads
+        Set<ResponseBodyEmitter.DataWithMediaType> data = event.build();
+        for (SseEmitter emitter : emitters) {
+            try {
+                sender.execute(() -> {
+                    try {
+                        emitter.send(data);
+                    } catch (IOException | IllegalStateException e) {
+                        remove(videoId, emitter);
+                        emitter.completeWithError(e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                log.warn("Comment push queue full, dropping an event for video {}", videoId);
+            }
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.arsu.service;
+
+import com.example.arsu.model.Comment;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.WriteConcern;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind buffer for new comments. Comments wait in a bounded queue and a single writer thread
+ * inserts them as unordered bulk batches, flushing when a batch is full or the first comment of the
+ * batch has waited flush-interval-ms. A comment's future completes only after its batch is acknowledged
+ * by a majority with journaling, so an acknowledged comment is durable.
+ */
+@Component
+public class CommentWriteBuffer {
+    private static final Logger log = LoggerFactory.getLogger(CommentWriteBuffer.class);
+
+    private static final WriteConcern DURABLE = WriteConcern.MAJORITY.withJournal(true);
+
+    @Value("${comments.buffer.capacity:10000}")
+    private int capacity;
+
+    @Value("${comments.buffer.batch-size:500}")
+    private int batchSize;
+
+    @Value("${comments.buffer.flush-interval-ms:50}")
+    private long flushIntervalMs;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private record PendingComment(Comment comment, CompletableFuture<Comment> acknowledged) {
+    }
+
+    private BlockingQueue<PendingComment> queue;
+
+    private volatile boolean running;
+
+    private Thread writer;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(capacity);
+        running = true;
+        writer = new Thread(this::writeLoop, "comment-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        // The writer drains whatever is still queued before it exits
+        running = false;
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    /**
+     * Queues the comment for the next batch. The id is assigned up front; the returned future completes
+     * with the comment once it is durably stored, or exceptionally if its insert failed.
+     *
+     * @throws RejectedExecutionException if the buffer is full or shutting down
+     */
+    public CompletableFuture<Comment> submit(Comment comment) {
+        if (comment.getId() == null) {
+            comment.setId(new ObjectId().toHexString());
+        }
+        CompletableFuture<Comment> acknowledged = new CompletableFuture<>();
+        if (!running || !queue.offer(new PendingComment(comment, acknowledged))) {
+            throw new RejectedExecutionException("Comment buffer is full");
+        }
+        return acknowledged;
+    }
+
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    private void writeLoop() {
+        List<PendingComment> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                fillBatch(batch);
+            } catch (InterruptedException e) {
+                // Stopping; the loop drains the rest without waiting
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void fillBatch(List<PendingComment> batch) throws InterruptedException {
+        if (!running) {
+            queue.drainTo(batch, batchSize);
+            return;
+        }
+        PendingComment first = queue.poll(1, TimeUnit.SECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                return;
+            }
+            PendingComment next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void write(List<PendingComment> batch) {
+        List<Document> documents = new ArrayList<>(batch.size());
+        for (PendingComment pending : batch) {
+            Document document = new Document();
+            mongoTemplate.getConverter().write(pending.comment(), document);
+            documents.add(document);
+        }
+
+        batches.increment();
+        try {
+            collection().insertMany(documents, new InsertManyOptions().ordered(false));
+            // Counted before acknowledging, so a caller that saw its comment stored also sees it counted
+            written.add(batch.size());
+            batch.forEach(pending -> pending.acknowledged().complete(pending.comment()));
+        } catch (MongoBulkWriteException e) {
+            // Unordered: only the comments with a write error failed, unless durability itself was not confirmed
+            Map<Integer, String> errors = new HashMap<>();
+            for (BulkWriteError error : e.getWriteErrors()) {
+                errors.put(error.getIndex(), error.getMessage());
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                PendingComment pending = batch.get(i);
+                if (errors.containsKey(i) || e.getWriteConcernError() != null) {
+                    failed.increment();
+                    pending.acknowledged().completeExceptionally(e);
+                } else {
+                    written.increment();
+                    pending.acknowledged().complete(pending.comment());
+                }
+            }
+            log.error("Comment batch of {} had {} failed inserts: {}", batch.size(), errors.size(), e.getMessage());
+        } catch (Exception e) {
+            log.error("Comment batch of {} failed: {}", batch.size(), e.getMessage(), e);
+            failed.add(batch.size());
+            batch.forEach(pending -> pending.acknowledged().completeExceptionally(e));
+        }
+    }
+
+    private MongoCollection<Document> collection() {
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(Comment.class)).withWriteConcern(DURABLE);
+    }
+}
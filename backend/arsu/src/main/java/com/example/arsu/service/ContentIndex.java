@@ -0,0 +1,149 @@
+package com.example.arsu.service;
+
+import com.example.arsu.model.StoredContent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+/**
+ * Reference-counted index of uploaded content by SHA-256 digest.
+ * A digest's entry lives exactly as long as some video references it; an entry that dropped to zero
+ * is never revived, so its storage can be freed safely and the next upload of those bytes starts afresh.
+ * New entries stay pending until their owner {@link #publish publishes} them, and duplicates wait for that,
+ * so no video links to storage whose first upload may still fail and be deleted. Content whose transcode
+ * failed for good is {@link #retire retired}: it no longer takes duplicates, and the next upload of those
+ * bytes becomes the owner of a new entry.
+ */
+@Service
+public class ContentIndex {
+    private static final Logger log = LoggerFactory.getLogger(ContentIndex.class);
+
+    private static final long CLAIM_RETRY_MS = 100;
+
+    @Value("${video.dedup.claim-wait-ms:30000}")
+    private long claimWaitMs;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * Adds a reference to the content with this digest. If it is not stored yet, the candidate becomes its
+     * storage; compare the returned entry's storageId with the candidate's to tell a new upload from a duplicate.
+     * A new entry is pending until {@link #publish}; duplicates of pending content wait for it, or for its
+     * release if the first upload fails, in which case they become the new owner.
+     */
+    public StoredContent claim(String digest, String candidateStorageId, String candidateUrl, long size) {
+        long deadline = System.currentTimeMillis() + claimWaitMs;
+        while (true) {
+            StoredContent existing = mongoTemplate.findAndModify(
+                    Query.query(Criteria.where("_id").is(digest).and("refCount").gt(0).and("pending").ne(true)
+                            .and("failed").ne(true)),
+                    new Update().inc("refCount", 1),
+                    FindAndModifyOptions.options().returnNew(true),
+                    StoredContent.class);
+            if (existing != null) {
+                return existing;
+            }
+            try {
+                return mongoTemplate.insert(new StoredContent(digest, candidateStorageId, candidateUrl, size));
+            } catch (DuplicateKeyException e) {
+                // A concurrent upload is still storing it, or a released or retired entry is about to be removed
+                log.debug("Content {} is pending or changing, retrying", digest);
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                throw new IllegalStateException("Timed out waiting for pending content " + digest);
+            }
+            try {
+                Thread.sleep(CLAIM_RETRY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while claiming content " + digest, e);
+            }
+        }
+    }
+
+    /**
+     * Makes new content available to duplicates once its owner has stored and queued it.
+     */
+    public void publish(String digest, String storageId) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(digest).and("storageId").is(storageId)),
+                new Update().set("pending", false), StoredContent.class);
+    }
+
+    /**
+     * Drops one reference to the content stored under storageId, whether its entry is current or retired.
+     * Returns true if it was the last one; the caller then owns the storage and frees it.
+     */
+    public boolean release(String digest, String storageId) {
+        String id = digest;
+        StoredContent released = decrement(
+                Query.query(Criteria.where("_id").is(digest).and("storageId").is(storageId)), -1);
+        if (released == null) {
+            id = retiredId(digest, storageId);
+            released = decrement(Query.query(Criteria.where("_id").is(id)), -1);
+        }
+        if (released == null || released.getRefCount() > 0) {
+            return false;
+        }
+        return remove(id);
+    }
+
+    /**
+     * Takes content whose transcode failed for good out of deduplication: duplicates stop linking to it, and
+     * its entry moves to digest:storageId, where the videos already linked to it keep their references.
+     * Returns true if those were all released meanwhile; the caller then owns the storage and frees it.
+     */
+    public boolean retire(String digest, String storageId) {
+        Query current = Query.query(Criteria.where("_id").is(digest).and("storageId").is(storageId));
+        // Once failed, the entry only loses references, so its count can be moved without losing any
+        StoredContent failed = mongoTemplate.findAndModify(current, new Update().set("failed", true),
+                FindAndModifyOptions.options().returnNew(true), StoredContent.class);
+        if (failed == null) {
+            return false;
+        }
+        String id = retiredId(digest, storageId);
+        StoredContent retired = new StoredContent(id, storageId, failed.getUrl(), failed.getSize());
+        retired.setRefCount(failed.getRefCount());
+        retired.setPending(false);
+        retired.setFailed(true);
+        mongoTemplate.save(retired);
+
+        StoredContent removed = mongoTemplate.findAndRemove(current, StoredContent.class);
+        if (removed == null) {
+            // Its last reference was released in between, and that release freed the storage
+            mongoTemplate.remove(Query.query(Criteria.where("_id").is(id)), StoredContent.class);
+            return false;
+        }
+        // References released from the current entry after it was copied
+        long releasedMeanwhile = failed.getRefCount() - removed.getRefCount();
+        if (releasedMeanwhile == 0) {
+            return false;
+        }
+        StoredContent adjusted = decrement(Query.query(Criteria.where("_id").is(id)), -releasedMeanwhile);
+        return adjusted != null && adjusted.getRefCount() <= 0 && remove(id);
+    }
+
+    private StoredContent decrement(Query entry, long delta) {
+        return mongoTemplate.findAndModify(Query.of(entry).addCriteria(Criteria.where("refCount").gt(0)),
+                new Update().inc("refCount", delta),
+                FindAndModifyOptions.options().returnNew(true),
+                StoredContent.class);
+    }
+
+    private boolean remove(String id) {
+        return mongoTemplate.remove(Query.query(Criteria.where("_id").is(id).and("refCount").lte(0)),
+                StoredContent.class).getDeletedCount() > 0;
+    }
+
+    private static String retiredId(String digest, String storageId) {
+        return digest + ":" + storageId;
+    }
+}
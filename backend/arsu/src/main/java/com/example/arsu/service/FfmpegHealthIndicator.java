@@ -0,0 +1,61 @@
+package com.example.arsu.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks that the ffmpeg binary the transcoder runs is installed and starts. The result is cached,
+ * so frequent health probes do not spawn a process each.
+ */
+@Component
+public class FfmpegHealthIndicator implements HealthIndicator {
+
+    private static final long CACHE_MILLIS = 60_000;
+
+    @Value("${video.ffmpeg.path:ffmpeg}")
+    private String ffmpegPath;
+
+    private volatile Health cached;
+    private volatile long checkedAt;
+
+    @Override
+    public Health health() {
+        Health health = cached;
+        if (health == null || System.currentTimeMillis() - checkedAt > CACHE_MILLIS) {
+            health = check();
+            cached = health;
+            checkedAt = System.currentTimeMillis();
+        }
+        return health;
+    }
+
+    private Health check() {
+        try {
+            Process process = new ProcessBuilder(ffmpegPath, "-version").redirectErrorStream(true).start();
+            String version;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                version = reader.readLine();
+            }
+            if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                return Health.down().withDetail("error", "ffmpeg -version timed out").build();
+            }
+            if (process.exitValue() != 0) {
+                return Health.down().withDetail("exitCode", process.exitValue()).build();
+            }
+            return Health.up().withDetail("version", version).build();
+        } catch (IOException e) {
+            return Health.down(e).build();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Health.down(e).build();
+        }
+    }
+}
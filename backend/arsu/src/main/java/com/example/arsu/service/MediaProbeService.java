@@ -0,0 +1,122 @@
+package com.example.arsu.service;
+
+import com.example.arsu.model.MediaInfo;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Thin wrapper around ffprobe for the source metadata the transcoder needs.
+ */
+@Service
+public class MediaProbeService {
+    private static final Logger log = LoggerFactory.getLogger(MediaProbeService.class);
+
+    @Value("${video.ffprobe.path:ffprobe}")
+    private String ffprobePath;
+
+    // Plain mapper; the shared bean enables default typing for Redis
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Resolution, frame rate, duration, codecs and bitrate of the source.
+     */
+    public MediaInfo probe(File inputFile) throws IOException {
+        List<String> lines = run(List.of(
+                ffprobePath, "-v", "error",
+                "-show_entries", "format=duration,bit_rate:stream=codec_type,codec_name,width,height,avg_frame_rate,bit_rate",
+                "-of", "json",
+                inputFile.getAbsolutePath()));
+        JsonNode root = objectMapper.readTree(String.join("\n", lines));
+
+        MediaInfo info = new MediaInfo();
+        JsonNode format = root.path("format");
+        info.setDurationSeconds(format.path("duration").asDouble());
+        info.setBitrate(format.path("bit_rate").asLong());
+        for (JsonNode stream : root.path("streams")) {
+            String codecType = stream.path("codec_type").asText();
+            if ("video".equals(codecType) && info.getVideoCodec() == null) {
+                info.setVideoCodec(stream.path("codec_name").asText());
+                info.setWidth(stream.path("width").asInt());
+                info.setHeight(stream.path("height").asInt());
+                info.setFrameRate(parseFrameRate(stream.path("avg_frame_rate").asText()));
+            } else if ("audio".equals(codecType) && info.getAudioCodec() == null) {
+                info.setAudioCodec(stream.path("codec_name").asText());
+            }
+        }
+        if (info.getVideoCodec() == null || info.getWidth() <= 0 || info.getHeight() <= 0) {
+            throw new IOException("No video stream found in " + inputFile);
+        }
+        return info;
+    }
+
+    /**
+     * Presentation times (seconds) of the video keyframes, in order.
+     */
+    public List<Double> probeKeyframeTimes(File inputFile) throws IOException {
+        List<String> lines = run(List.of(
+                ffprobePath, "-v", "error",
+                "-select_streams", "v:0",
+                "-skip_frame", "nokey",
+                "-show_entries", "frame=pts_time",
+                "-of", "csv=p=0",
+                inputFile.getAbsolutePath()));
+
+        List<Double> keyframes = new ArrayList<>();
+        for (String line : lines) {
+            String value = line.trim();
+            if (value.endsWith(",")) {
+                value = value.substring(0, value.length() - 1);
+            }
+            if (!value.isEmpty() && !value.equals("N/A")) {
+                keyframes.add(Double.parseDouble(value));
+            }
+        }
+        return keyframes;
+    }
+
+    /**
+     * Parses ffprobe's rational frame rate, e.g. "30000/1001".
+     */
+    private double parseFrameRate(String rational) {
+        int slash = rational.indexOf('/');
+        if (slash < 0) {
+            return rational.isEmpty() ? 0 : Double.parseDouble(rational);
+        }
+        double denominator = Double.parseDouble(rational.substring(slash + 1));
+        return denominator == 0 ? 0 : Double.parseDouble(rational.substring(0, slash)) / denominator;
+    }
+
+    private List<String> run(List<String> command) throws IOException {
+        log.debug("Executing FFprobe command: {}", String.join(" ", command));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        try {
+            int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                throw new IOException("FFprobe command failed with exit code " + exitCode + ": " + String.join("\n", lines));
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw new IOException("FFprobe process interrupted", e);
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.arsu.service;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Opaque keyset cursor over (createdAt desc, _id desc), the order of every paginated listing.
+ * Documents without createdAt sort last.
+ */
+final class PageCursor {
+
+    static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "createdAt", "_id");
+
+    private PageCursor() {
+    }
+
+    static String encode(Date createdAt, String id) {
+        String millis = createdAt != null ? String.valueOf(createdAt.getTime()) : "";
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((millis + ":" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Condition selecting the documents after the cursor.
+     *
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    static Criteria after(String cursor) {
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        int separator = decoded.indexOf(':');
+        if (separator < 0 || !ObjectId.isValid(decoded.substring(separator + 1))) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        ObjectId id = new ObjectId(decoded.substring(separator + 1));
+        if (separator == 0) {
+            return Criteria.where("createdAt").is(null).and("_id").lt(id);
+        }
+
+        Date createdAt;
+        try {
+            createdAt = new Date(Long.parseLong(decoded.substring(0, separator)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return new Criteria().orOperator(
+                Criteria.where("createdAt").lt(createdAt),
+                Criteria.where("createdAt").is(createdAt).and("_id").lt(id),
+                Criteria.where("createdAt").is(null));
+    }
+}
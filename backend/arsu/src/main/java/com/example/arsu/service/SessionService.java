@@ -0,0 +1,101 @@
+package com.example.arsu.service;
+
+import com.example.arsu.model.Session;
+import com.example.arsu.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opaque token sessions kept in Redis with a sliding expiry.
+ * Validating a token is a single Redis read; the expiry is pushed back at most once per refresh interval,
+ * so an active session costs one extra write every few minutes rather than one per request.
+ * Only a hash of the token is used as the key, so the keyspace does not hold usable tokens.
+ */
+@Service
+public class SessionService {
+    private static final Logger log = LoggerFactory.getLogger(SessionService.class);
+
+    private static final String SESSION_KEY = "session:";
+    private static final int TOKEN_BYTES = 32;
+
+    @Value("${session.ttl-seconds:86400}")
+    private long ttlSeconds;
+
+    @Value("${session.refresh-interval-seconds:300}")
+    private long refreshIntervalSeconds;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Starts a session for the user and returns its token.
+     */
+    public String create(User user) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        redisTemplate.opsForValue().set(key(token), new Session(user.getId(), user.getUsername()),
+                ttlSeconds, TimeUnit.SECONDS);
+        return token;
+    }
+
+    /**
+     * The live session of the token, or null if it is unknown or expired. Slides the expiry forward.
+     */
+    public Session validate(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        String key = key(token);
+        Object value = redisTemplate.opsForValue().get(key);
+        if (!(value instanceof Session session)) {
+            return null;
+        }
+        Date now = new Date();
+        if (session.getRefreshedAt() == null
+                || now.getTime() - session.getRefreshedAt().getTime() >= TimeUnit.SECONDS.toMillis(refreshIntervalSeconds)) {
+            session.setRefreshedAt(now);
+            try {
+                redisTemplate.opsForValue().set(key, session, ttlSeconds, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                // The session stays valid until its current expiry; the next request retries
+                log.debug("Could not refresh session of {}: {}", session.getUsername(), e.getMessage());
+            }
+        }
+        return session;
+    }
+
+    public void invalidate(String token) {
+        if (token != null && !token.isEmpty()) {
+            redisTemplate.delete(key(token));
+        }
+    }
+
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    private String key(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return SESSION_KEY + HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
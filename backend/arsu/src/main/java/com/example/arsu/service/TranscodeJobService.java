@@ -0,0 +1,569 @@
+package com.example.arsu.service;
+
+import com.example.arsu.cache.VideoCache;
+import com.example.arsu.model.MediaInfo;
+import com.example.arsu.model.ProcessingState;
+import com.example.arsu.model.TranscodeJob;
+import com.example.arsu.model.TranscodePriority;
+import com.example.arsu.model.Video;
+import com.example.arsu.repository.TranscodeJobRepository;
+import com.example.arsu.storage.VideoStorage;
+import com.example.arsu.streaming.ManifestCache;
+import com.example.arsu.streaming.PreviewSprites;
+import com.example.arsu.streaming.Rendition;
+import com.example.arsu.streaming.SegmentCache;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Schedules transcoding jobs, and with them every ffmpeg process, against a budget of CPU slots.
+ * Jobs are persisted in the "transcode_jobs" collection, which acts as the queue, so jobs survive
+ * restarts and can be shared between nodes. A job reserves one slot per encoder thread it runs.
+ * The next job is taken from the highest priority class (short clips, then long videos, then
+ * re-transcodes) and, within a class, from the user with the fewest running jobs.
+ * A new job is classified by probing its source off the upload thread and only becomes eligible once
+ * classified, or once it has waited stale-after-ms unclassified; a job whose worker keeps dying is failed
+ * after max-attempts tries. A job that fails for good retires its content from deduplication, so the
+ * next upload of the same file is transcoded afresh instead of linking to the failed output.
+ * Uploads are refused while the queue is over its limits.
+ */
+@Service
+public class TranscodeJobService {
+    private static final Logger log = LoggerFactory.getLogger(TranscodeJobService.class);
+
+    private static final String TOPIC = "video-processing";
+
+    private static final long HEARTBEAT_MS = 30_000;
+
+    // Queued jobs considered per priority class when picking the next one
+    private static final int CANDIDATES = 50;
+
+    private static final int CLAIM_ATTEMPTS = 3;
+
+    @Value("${video.transcode.cpu-slots:0}")
+    private int configuredCpuSlots;
+
+    @Value("${video.transcode.stale-after-ms:600000}")
+    private long staleAfterMs;
+
+    @Value("${video.transcode.short-clip-seconds:300}")
+    private double shortClipSeconds;
+
+    @Value("${video.transcode.max-queued:100}")
+    private long maxQueued;
+
+    @Value("${video.transcode.max-queued-per-user:10}")
+    private long maxQueuedPerUser;
+
+    @Value("${video.transcode.retry-after-seconds:60}")
+    private long retryAfterSeconds;
+
+    @Value("${video.transcode.max-attempts:3}")
+    private int maxAttempts;
+
+    @Autowired
+    private TranscodeJobRepository transcodeJobRepository;
+
+    @Autowired
+    private TranscodeService transcodeService;
+
+    @Autowired
+    private MediaProbeService mediaProbeService;
+
+    @Autowired
+    private ManifestCache manifestCache;
+
+    @Autowired
+    private SegmentCache segmentCache;
+
+    @Autowired
+    private VideoCache videoCache;
+
+    @Autowired
+    private ContentIndex contentIndex;
+
+    @Autowired
+    private VideoStorage videoStorage;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    private int cpuSlots;
+
+    // Slots reserved by jobs running on this node; guarded by this
+    private int usedSlots;
+
+    // Cluster-wide count of QUEUED jobs as of the last poll, so reading it never waits for Mongo
+    private volatile long queuedJobs;
+
+    private ExecutorService workers;
+
+    private ExecutorService classifier;
+
+    @PostConstruct
+    public void start() {
+        cpuSlots = configuredCpuSlots > 0 ? configuredCpuSlots : Runtime.getRuntime().availableProcessors();
+        // Every job holds at least one slot, so there is never more work than threads
+        AtomicInteger threadIndex = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(cpuSlots, runnable -> {
+            Thread thread = new Thread(runnable, "transcode-worker-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Probing waits on ffprobe, so it gets its own thread rather than one of the slot-bound workers
+        classifier = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "transcode-classifier");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        classifier.shutdownNow();
+        workers.shutdownNow();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Refuses new work while the queue, or the user's share of it, is full.
+     * The limits are soft: concurrent uploads may overshoot them slightly.
+     */
+    public void checkAdmission(String userId) {
+        long queued = mongoTemplate.count(
+                Query.query(Criteria.where("state").is(ProcessingState.QUEUED)), TranscodeJob.class);
+        if (queued >= maxQueued) {
+            throw new TranscodeQueueFullException("Transcode queue is full (" + queued + " jobs waiting)",
+                    false, retryAfterSeconds);
+        }
+        long queuedForUser = mongoTemplate.count(
+                Query.query(Criteria.where("state").is(ProcessingState.QUEUED).and("userId").is(userId)),
+                TranscodeJob.class);
+        if (queuedForUser >= maxQueuedPerUser) {
+            throw new TranscodeQueueFullException("User " + userId + " already has " + queuedForUser
+                    + " videos waiting to be transcoded", true, retryAfterSeconds);
+        }
+    }
+
+    /**
+     * Queues the first transcode of a new upload (see {@link #submit(Video, File, boolean)}).
+     */
+    public TranscodeJob submit(Video video, File inputFile) {
+        return submit(video, inputFile, false);
+    }
+
+    /**
+     * Persists a QUEUED job for the video and links it to the video. The source is then probed in the
+     * background to pick the job's priority class and slot demand, after which it starts if slots are free.
+     * Re-transcodes of an existing video go to the lowest class whatever their length.
+     */
+    public TranscodeJob submit(Video video, File inputFile, boolean retranscode) {
+        TranscodeJob job = new TranscodeJob();
+        job.setVideoId(video.getId());
+        job.setUserId(video.getUserId());
+        job.setInputPath(inputFile.getAbsolutePath());
+        job.setState(ProcessingState.QUEUED);
+        job.setCreatedAt(new Date());
+        job.setUpdatedAt(new Date());
+        TranscodeJob savedJob = transcodeJobRepository.save(job);
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(video.getId())),
+                new Update().set("jobId", savedJob.getId()),
+                Video.class);
+
+        try {
+            classifier.execute(() -> classify(savedJob, inputFile, retranscode));
+        } catch (RejectedExecutionException e) {
+            // Shutting down; the job stays unclassified and later runs as a long one with a full ladder
+            log.warn("Could not classify job {}: {}", savedJob.getId(), e.getMessage());
+        }
+        return savedJob;
+    }
+
+    /**
+     * Latest job for the video, or null if it was never queued (e.g. uploaded before jobs existed).
+     */
+    public TranscodeJob getLatestJob(String videoId) {
+        return transcodeJobRepository.findFirstByVideoIdOrderByCreatedAtDesc(videoId);
+    }
+
+    /**
+     * Claims and starts jobs until the free slots are used up or nothing queued fits.
+     */
+    public synchronized void dispatch() {
+        while (cpuSlots - usedSlots > 0) {
+            TranscodeJob job = claimNextJob(cpuSlots - usedSlots);
+            if (job == null) {
+                return;
+            }
+            int slots = slotsFor(job);
+            usedSlots += slots;
+            try {
+                workers.execute(() -> runClaimedJob(job, slots));
+            } catch (RejectedExecutionException e) {
+                // Shutting down; the stale-job poll requeues it
+                usedSlots -= slots;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Picks up jobs queued by other nodes or left over from a restart, and requeues
+     * RUNNING jobs whose worker stopped reporting progress, failing those out of attempts.
+     */
+    @Scheduled(initialDelayString = "${video.transcode.poll-interval-ms:15000}",
+            fixedDelayString = "${video.transcode.poll-interval-ms:15000}")
+    public void poll() {
+        try {
+            requeueStaleJobs();
+            dispatch();
+            queuedJobs = mongoTemplate.count(
+                    Query.query(Criteria.where("state").is(ProcessingState.QUEUED)), TranscodeJob.class);
+        } catch (Exception e) {
+            log.warn("Transcode queue poll failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Jobs waiting for a slot across all nodes, as of the last poll.
+     */
+    public long getQueuedJobCount() {
+        return queuedJobs;
+    }
+
+    public synchronized int getUsedSlots() {
+        return usedSlots;
+    }
+
+    public int getCpuSlots() {
+        return cpuSlots;
+    }
+
+    private void requeueStaleJobs() {
+        Date staleBefore = new Date(System.currentTimeMillis() - staleAfterMs);
+        Criteria stale = Criteria.where("state").is(ProcessingState.RUNNING).and("updatedAt").lt(staleBefore);
+        for (TranscodeJob job : mongoTemplate.find(Query.query(stale), TranscodeJob.class)) {
+            Query query = Query.query(Criteria.where("_id").is(job.getId())
+                    .and("state").is(ProcessingState.RUNNING).and("updatedAt").lt(staleBefore));
+            if (job.getAttempts() >= maxAttempts) {
+                String error = "Worker stopped responding on all " + job.getAttempts() + " attempts";
+                Update update = new Update().set("state", ProcessingState.FAILED).set("error", error)
+                        .set("updatedAt", new Date());
+                if (mongoTemplate.updateFirst(query, update, TranscodeJob.class).getModifiedCount() > 0) {
+                    log.error("Giving up on job {} of video {}: {}", job.getId(), job.getVideoId(), error);
+                    updateVideoState(job, ProcessingState.FAILED);
+                    manifestCache.invalidate(job.getVideoId());
+                    segmentCache.invalidateVideo(job.getVideoId());
+                    retireContent(job);
+                }
+            } else {
+                mongoTemplate.updateFirst(query,
+                        new Update().set("state", ProcessingState.QUEUED).set("updatedAt", new Date()),
+                        TranscodeJob.class);
+            }
+        }
+    }
+
+    /**
+     * Sets the job's priority class and slot demand from a probe of its source, then makes it eligible.
+     */
+    private void classify(TranscodeJob job, File inputFile, boolean retranscode) {
+        List<Rendition> renditions = Arrays.asList(Rendition.values());
+        double duration = Double.MAX_VALUE;
+        try {
+            MediaInfo source = mediaProbeService.probe(inputFile);
+            renditions = Rendition.ladderFor(source.getWidth(), source.getHeight());
+            duration = source.getDurationSeconds();
+        } catch (IOException e) {
+            log.warn("Could not probe {} for scheduling: {}", inputFile, e.getMessage());
+        }
+        TranscodePriority priority;
+        if (retranscode) {
+            priority = TranscodePriority.RETRANSCODE;
+        } else {
+            priority = duration <= shortClipSeconds ? TranscodePriority.SHORT : TranscodePriority.LONG;
+        }
+        int slots = Math.min(cpuSlots, transcodeService.cpuSlotsFor(renditions));
+        try {
+            // Only while still queued: a poll may already have started it unclassified
+            mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("_id").is(job.getId()).and("state").is(ProcessingState.QUEUED)),
+                    new Update().set("priority", priority).set("cpuSlots", slots),
+                    TranscodeJob.class);
+            dispatch();
+        } catch (Exception e) {
+            log.warn("Could not classify job {}: {}", job.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Slots the job reserves; jobs queued before slot accounting existed get a full ladder's worth.
+     */
+    private int slotsFor(TranscodeJob job) {
+        int slots = job.getCpuSlots() > 0 ? job.getCpuSlots() : Rendition.values().length;
+        return Math.max(1, Math.min(cpuSlots, slots));
+    }
+
+    private void runClaimedJob(TranscodeJob job, int slots) {
+        try {
+            runJob(job, slots);
+        } catch (Exception e) {
+            log.error("Transcode worker failed on job {}: {}", job.getId(), e.getMessage(), e);
+        } finally {
+            synchronized (this) {
+                usedSlots -= slots;
+            }
+        }
+        try {
+            dispatch();
+        } catch (Exception e) {
+            log.warn("Could not dispatch next transcode job: {}", e.getMessage());
+        }
+    }
+
+    private TranscodeJob claimNextJob(int freeSlots) {
+        for (int attempt = 0; attempt < CLAIM_ATTEMPTS; attempt++) {
+            TranscodeJob candidate = pickNextJob(freeSlots);
+            if (candidate == null) {
+                return null;
+            }
+            Query query = Query.query(Criteria.where("_id").is(candidate.getId()).and("state").is(ProcessingState.QUEUED));
+            Update update = new Update()
+                    .set("state", ProcessingState.RUNNING)
+                    .set("progress", 0)
+                    .set("updatedAt", new Date())
+                    .inc("attempts", 1);
+            TranscodeJob claimed = mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().returnNew(true), TranscodeJob.class);
+            if (claimed != null) {
+                return claimed;
+            }
+            // Another node claimed it first
+        }
+        return null;
+    }
+
+    /**
+     * Oldest queued job of the highest non-empty priority class whose user has the fewest running jobs.
+     * If that class has nothing that fits the free slots, nothing is picked, so lower classes cannot
+     * keep starving a larger job of a higher class.
+     */
+    private TranscodeJob pickNextJob(int freeSlots) {
+        Map<String, Integer> runningByUser = null;
+        Date unclassifiedBefore = new Date(System.currentTimeMillis() - staleAfterMs);
+        for (TranscodePriority priority : TranscodePriority.values()) {
+            Criteria criteria = Criteria.where("state").is(ProcessingState.QUEUED);
+            if (priority == TranscodePriority.LONG) {
+                // Jobs queued before priorities existed have none, as do new ones whose probe never finished
+                criteria = criteria.orOperator(Criteria.where("priority").is(priority),
+                        Criteria.where("priority").is(null).and("createdAt").lt(unclassifiedBefore));
+            } else {
+                criteria = criteria.and("priority").is(priority);
+            }
+            List<TranscodeJob> candidates = mongoTemplate.find(
+                    Query.query(criteria).with(Sort.by(Sort.Direction.ASC, "createdAt")).limit(CANDIDATES),
+                    TranscodeJob.class);
+            if (candidates.isEmpty()) {
+                continue;
+            }
+
+            if (runningByUser == null) {
+                runningByUser = countRunningByUser();
+            }
+            TranscodeJob next = null;
+            int nextRunning = 0;
+            for (TranscodeJob candidate : candidates) {
+                if (slotsFor(candidate) > freeSlots) {
+                    continue;
+                }
+                int running = runningByUser.getOrDefault(candidate.getUserId(), 0);
+                if (next == null || running < nextRunning) {
+                    next = candidate;
+                    nextRunning = running;
+                }
+            }
+            return next;
+        }
+        return null;
+    }
+
+    private Map<String, Integer> countRunningByUser() {
+        Query query = Query.query(Criteria.where("state").is(ProcessingState.RUNNING));
+        query.fields().include("userId");
+        Map<String, Integer> runningByUser = new HashMap<>();
+        for (TranscodeJob job : mongoTemplate.find(query, TranscodeJob.class)) {
+            runningByUser.merge(job.getUserId(), 1, Integer::sum);
+        }
+        return runningByUser;
+    }
+
+    private void runJob(TranscodeJob job, int slots) {
+        log.info("Transcoding video {} (job {}, attempt {}, {} priority, {} CPU slots)", job.getVideoId(), job.getId(),
+                job.getAttempts(), job.getPriority(), slots);
+        updateVideoState(job, ProcessingState.RUNNING);
+        // A retry rewrites segments under the same names; drop what an earlier attempt left cached
+        manifestCache.invalidate(job.getVideoId());
+        segmentCache.invalidateVideo(job.getVideoId());
+        int[] lastReported = {0};
+        long[] lastReportedAt = {System.currentTimeMillis()};
+        try {
+            File inputFile = new File(job.getInputPath());
+            MediaInfo source = mediaProbeService.probe(inputFile);
+            List<Rendition> renditions = Rendition.ladderFor(source.getWidth(), source.getHeight());
+            log.info("Source {}x{} of video {} gets renditions {}", source.getWidth(), source.getHeight(),
+                    job.getVideoId(), renditions);
+            updateVideoSource(job, source, renditions);
+
+            PreviewSprites.Previews previews = transcodeService.convertVideoToHLS(job.getVideoId(), inputFile,
+                    source, renditions, slots, new TranscodeListener() {
+                        @Override
+                        public void onProgress(int progress) {
+                            // Persist every few percent or seconds; the write also serves as the worker heartbeat
+                            long now = System.currentTimeMillis();
+                            if (progress < 100 && (progress - lastReported[0] >= 5 || now - lastReportedAt[0] >= HEARTBEAT_MS)) {
+                                lastReported[0] = progress;
+                                lastReportedAt[0] = now;
+                                updateProgress(job.getId(), progress);
+                            }
+                        }
+
+                        @Override
+                        public void onPlayable() {
+                            log.info("Video {} is playable while transcoding continues", job.getVideoId());
+                            updateVideoPlayable(job, true);
+                        }
+                    });
+            if (previews != null) {
+                updateVideoPreviews(job, previews);
+            }
+            finishJob(job, ProcessingState.DONE, null);
+            kafkaTemplate.send(TOPIC, "Video processed successfully: " + job.getVideoId());
+        } catch (Exception e) {
+            log.error("Error processing video {}: {}", job.getVideoId(), e.getMessage(), e);
+            finishJob(job, ProcessingState.FAILED, e.getMessage());
+        }
+    }
+
+    private void updateProgress(String jobId, int progress) {
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(jobId)),
+                new Update().set("progress", progress).set("updatedAt", new Date()),
+                TranscodeJob.class);
+    }
+
+    private void finishJob(TranscodeJob job, ProcessingState state, String error) {
+        Update update = new Update()
+                .set("state", state)
+                .set("error", error)
+                .set("updatedAt", new Date());
+        if (state == ProcessingState.DONE) {
+            update.set("progress", 100);
+        }
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(job.getId())), update, TranscodeJob.class);
+        updateVideoState(job, state);
+        manifestCache.invalidate(job.getVideoId());
+        segmentCache.invalidateVideo(job.getVideoId());
+        if (state == ProcessingState.FAILED) {
+            retireContent(job);
+        }
+    }
+
+    /**
+     * Stops duplicates of a failed job's upload from linking to its storage. The storage stays with the
+     * videos already linked to it, unless they were all deleted meanwhile.
+     */
+    private void retireContent(TranscodeJob job) {
+        // The job's video may be gone, but any video still on its storage carries the digest
+        Query sharing = Query.query(Criteria.where("storageId").is(job.getVideoId()).and("contentHash").ne(null));
+        sharing.fields().include("contentHash");
+        Video video = mongoTemplate.findOne(sharing, Video.class);
+        if (video == null) {
+            return;
+        }
+        try {
+            if (contentIndex.retire(video.getContentHash(), job.getVideoId())) {
+                videoStorage.delete(job.getVideoId());
+            }
+        } catch (Exception e) {
+            log.error("Could not retire the content of failed video {}", job.getVideoId(), e);
+        }
+    }
+
+    private void updateVideoSource(TranscodeJob job, MediaInfo source, List<Rendition> renditions) {
+        List<String> qualities = new ArrayList<>();
+        for (Rendition rendition : renditions) {
+            qualities.add(rendition.getQuality());
+        }
+        updateVideos(job, new Update().set("sourceInfo", source).set("renditions", qualities));
+    }
+
+    private void updateVideoPreviews(TranscodeJob job, PreviewSprites.Previews previews) {
+        String base = "/api/videos/stream/" + job.getVideoId() + "/" + PreviewSprites.DIR + "/";
+        Update update = new Update().set("previewTrack", base + previews.track());
+        if (previews.poster() != null) {
+            update.set("thumbnail", base + previews.poster());
+        }
+        updateVideos(job, update);
+    }
+
+    private void updateVideoState(TranscodeJob job, ProcessingState state) {
+        // A (re)started job rewrites the output from scratch and a failed one leaves it partial
+        updateVideos(job, new Update().set("processingState", state)
+                .set("playable", state == ProcessingState.DONE)
+                .set("updatedAt", new Date()));
+    }
+
+    private void updateVideoPlayable(TranscodeJob job, boolean playable) {
+        updateVideos(job, new Update().set("playable", playable));
+    }
+
+    /**
+     * Applies the update to the job's video and to every duplicate upload sharing its storage.
+     */
+    private void updateVideos(TranscodeJob job, Update update) {
+        Query sharing = Query.query(new Criteria().orOperator(
+                Criteria.where("_id").is(job.getVideoId()),
+                Criteria.where("storageId").is(job.getVideoId())));
+        long matched = mongoTemplate.updateMulti(sharing, update, Video.class).getMatchedCount();
+        videoCache.evict(job.getVideoId(), job.getUserId());
+        if (matched > 1) {
+            sharing.fields().include("userId");
+            for (Video video : mongoTemplate.find(sharing, Video.class)) {
+                if (!video.getId().equals(job.getVideoId())) {
+                    videoCache.evict(video.getId(), video.getUserId());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.arsu.service;
+
+/**
+ * Callbacks from a running transcode.
+ */
+@FunctionalInterface
+public interface TranscodeListener {
+
+    /**
+     * Percent of the source duration encoded so far.
+     */
+    void onProgress(int percent);
+
+    /**
+     * Every rendition has its first segment and the master playlist is published, so viewers can start
+     * playing the growing EVENT playlists. Only called for progressive transcodes.
+     */
+    default void onPlayable() {
+    }
+}
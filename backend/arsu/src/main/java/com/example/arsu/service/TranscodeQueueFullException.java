@@ -0,0 +1,26 @@
+package com.example.arsu.service;
+
+/**
+ * Thrown when an upload is refused because the transcode queue cannot take more work.
+ */
+public class TranscodeQueueFullException extends RuntimeException {
+    private final boolean userLimit;
+    private final long retryAfterSeconds;
+
+    public TranscodeQueueFullException(String message, boolean userLimit, long retryAfterSeconds) {
+        super(message);
+        this.userLimit = userLimit;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * True if the uploader's own quota is exhausted, false if the whole queue is full.
+     */
+    public boolean isUserLimit() {
+        return userLimit;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
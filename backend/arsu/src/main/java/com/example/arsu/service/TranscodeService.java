@@ -0,0 +1,609 @@
+package com.example.arsu.service;
+
+import com.example.arsu.model.MediaInfo;
+import com.example.arsu.storage.VideoStorage;
+import com.example.arsu.streaming.MasterPlaylistGenerator;
+import com.example.arsu.streaming.MediaPlaylist;
+import com.example.arsu.streaming.PreviewSprites;
+import com.example.arsu.streaming.Rendition;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+@Service
+public class TranscodeService {
+    private static final Logger log = LoggerFactory.getLogger(TranscodeService.class);
+
+    private static final Pattern DURATION_PATTERN = Pattern.compile("Duration: (\\d+):(\\d{2}):(\\d{2}(?:\\.\\d+)?)");
+    private static final Pattern OUT_TIME_PATTERN = Pattern.compile("^out_time_(?:us|ms)=(\\d+)$");
+    private static final Pattern SPEED_PATTERN = Pattern.compile("^speed=\\s*(\\d+(?:\\.\\d+)?)x$");
+
+    private static final int SEGMENT_SECONDS = 10;
+    private static final String CHUNKS_DIR = ".chunks";
+
+    @Value("${video.ffmpeg.path:ffmpeg}")
+    private String ffmpegPath;
+
+    @Value("${video.transcode.parallel.enabled:false}")
+    private boolean parallelEnabled;
+
+    @Value("${video.transcode.parallel.workers:4}")
+    private int parallelWorkers;
+
+    @Value("${video.transcode.parallel.chunk-seconds:60}")
+    private int chunkSeconds;
+
+    @Value("${video.transcode.progressive.enabled:true}")
+    private boolean progressiveEnabled;
+
+    @Value("${video.previews.enabled:true}")
+    private boolean previewsEnabled;
+
+    @Value("${video.previews.interval-seconds:5}")
+    private double previewIntervalSeconds;
+
+    @Value("${video.previews.poster-seconds:3}")
+    private double posterSeconds;
+
+    @Value("${video.previews.poster-width:640}")
+    private int posterWidth;
+
+    @Autowired
+    private MasterPlaylistGenerator masterPlaylistGenerator;
+
+    @Autowired
+    private MediaProbeService mediaProbeService;
+
+    @Autowired
+    private VideoStorage videoStorage;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * CPU slots (encoder threads) a transcode of these renditions would like to use; the scheduler
+     * caps it at its budget.
+     */
+    public int cpuSlotsFor(List<Rendition> renditions) {
+        int encoders = Math.max(1, renditions.size());
+        return parallelEnabled && parallelWorkers > 1 ? encoders * parallelWorkers : encoders;
+    }
+
+    /**
+     * Where the previews of one transcode go, and which of them one ffmpeg process writes.
+     * posterAt is negative for processes that do not write the poster.
+     */
+    record PreviewOutputs(Path dir, String version, int chunk, double posterAt) {
+    }
+
+    /**
+     * Converts the video to HLS in the given renditions and writes the master playlist over them,
+     * using at most cpuSlots encoder threads. Progress is reported to the listener as a percentage
+     * of the source duration. The poster and seek-preview sprites come out of the same decode;
+     * returns their names, or null if previews are disabled. The output is committed to the video storage.
+     */
+    public PreviewSprites.Previews convertVideoToHLS(String videoId, File inputFile, MediaInfo source, List<Rendition> renditions,
+                                  int cpuSlots, TranscodeListener listener) throws IOException {
+        validateVideoId(videoId);
+        Path outputDir = videoStorage.create(videoId);
+
+        // Every concurrent chunk process runs one encoder per rendition
+        int workers = Math.min(parallelWorkers, cpuSlots / Math.max(1, renditions.size()));
+        PreviewSprites.Previews previews;
+        if (parallelEnabled && workers > 1) {
+            previews = convertVideoToHLSParallel(outputDir, inputFile, source, renditions, workers, cpuSlots, listener);
+        } else {
+            previews = convertVideoToHLSSingle(outputDir, inputFile, source, renditions, cpuSlots, listener);
+        }
+        // Final master first, so a fully VOD set of playlists never sits next to a provisional master
+        masterPlaylistGenerator.writeMasterPlaylist(outputDir, source);
+        if (progressiveEnabled) {
+            finalizeEventPlaylists(outputDir, renditions);
+        }
+        videoStorage.commit(videoId);
+        listener.onProgress(100);
+        return previews;
+    }
+
+    /**
+     * One ffmpeg process decodes the source once and encodes every rendition from a split filter graph.
+     * In progressive mode the playlists are EVENT playlists that grow with every segment; the master
+     * playlist is published as soon as each rendition has its first segment.
+     */
+    public PreviewSprites.Previews convertVideoToHLSSingle(Path outputDir, File inputFile, MediaInfo source,
+                                                           List<Rendition> renditions, int cpuSlots,
+                                                           TranscodeListener listener) throws IOException {
+        String previewVersion = previewsEnabled ? preparePreviews(outputDir) : null;
+        double sourceSeconds = source.getDurationSeconds();
+        List<String> command = new ArrayList<>();
+        command.add(ffmpegPath);
+        command.add("-y");
+        command.add("-nostats");
+        command.add("-progress");
+        command.add("pipe:1");
+        command.add("-i");
+        command.add(inputFile.getAbsolutePath());
+        addRenditionOutputs(command, outputDir, renditions, progressiveEnabled ? "event" : "vod", Arrays.asList(
+                "-threads", String.valueOf(Math.max(1, cpuSlots / Math.max(1, renditions.size())))),
+                previewOutputs(outputDir, previewVersion, 0, sourceSeconds));
+
+        long[] durationMicros = {0};
+        boolean[] playable = {!progressiveEnabled};
+        runFfmpeg(command, outputDir.getFileName().toString(), renditions, "single",
+                duration -> durationMicros[0] = duration, outTime -> {
+            if (durationMicros[0] > 0) {
+                listener.onProgress((int) Math.min(99, outTime * 100 / durationMicros[0]));
+            }
+            if (!playable[0] && firstSegmentsReady(outputDir, renditions)) {
+                playable[0] = publishProvisionalMaster(outputDir, source);
+                if (playable[0]) {
+                    listener.onPlayable();
+                }
+            }
+        });
+        return writePreviewTrack(outputDir, previewVersion, List.<double[]>of(new double[]{0, sourceSeconds}));
+    }
+
+    /**
+     * Splits the source at keyframes into time chunks, encodes the chunks concurrently and stitches the
+     * resulting segments into one contiguous playlist per rendition. Each chunk keeps its source timestamps
+     * (-output_ts_offset), so the stitched segments need no discontinuity markers.
+     * The cpuSlots encoder threads are shared evenly between the encoders of the concurrent chunk processes,
+     * one per rendition and worker.
+     * Each chunk also writes the preview sprites of its time range; the first one writes the poster.
+     */
+    public PreviewSprites.Previews convertVideoToHLSParallel(Path outputDir, File inputFile, MediaInfo source,
+                                                             List<Rendition> renditions, int workers, int cpuSlots,
+                                                             TranscodeListener listener) throws IOException {
+        double duration = source.getDurationSeconds();
+        List<double[]> chunks = planChunks(mediaProbeService.probeKeyframeTimes(inputFile), duration, chunkSeconds);
+        if (chunks.size() < 2) {
+            return convertVideoToHLSSingle(outputDir, inputFile, source, renditions, cpuSlots, listener);
+        }
+        String previewVersion = previewsEnabled ? preparePreviews(outputDir) : null;
+        log.info("Transcoding {} in {} chunks on {} workers", inputFile, chunks.size(), workers);
+
+        Path chunksDir = outputDir.resolve(CHUNKS_DIR);
+        long[] chunkProgressMicros = new long[chunks.size()];
+        long totalMicros = Math.max(1, (long) (duration * 1_000_000));
+        int threadsPerEncoder = threadsPerEncoder(cpuSlots, workers, renditions.size());
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(workers, chunks.size()));
+        try {
+            encodeChunks(executor, inputFile, outputDir, chunksDir, chunks, renditions, threadsPerEncoder,
+                    previewVersion, chunkProgressMicros, totalMicros, listener);
+            stitchChunks(outputDir, chunksDir, chunks.size(), renditions);
+        } finally {
+            deleteChunks(executor, chunksDir);
+        }
+        return writePreviewTrack(outputDir, previewVersion, chunks);
+    }
+
+    private void encodeChunks(ExecutorService executor, File inputFile, Path outputDir, Path chunksDir,
+                              List<double[]> chunks, List<Rendition> renditions, int threadsPerEncoder,
+                              String previewVersion, long[] chunkProgressMicros, long totalMicros,
+                              TranscodeListener listener) throws IOException {
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < chunks.size(); i++) {
+                int index = i;
+                double start = chunks.get(i)[0];
+                double end = chunks.get(i)[1];
+                futures.add(executor.submit(() -> {
+                    encodeChunk(inputFile, chunksDir.resolve(String.valueOf(index)), start, end, renditions,
+                            threadsPerEncoder, previewOutputs(outputDir, previewVersion, index, index == 0 ? end - start : -1),
+                            outTime -> {
+                                synchronized (chunkProgressMicros) {
+                                    chunkProgressMicros[index] = outTime;
+                                    long done = 0;
+                                    for (long micros : chunkProgressMicros) {
+                                        done += micros;
+                                    }
+                                    listener.onProgress((int) Math.min(99, done * 100 / totalMicros));
+                                }
+                            });
+                    return null;
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException("Chunk encode failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Chunked transcode interrupted", e);
+        }
+    }
+
+    /**
+     * Stops the chunk encodes still running (their ffmpeg processes are killed on interrupt) and removes
+     * the chunk files, whether the transcode succeeded, failed or was interrupted.
+     */
+    private void deleteChunks(ExecutorService executor, Path chunksDir) {
+        executor.shutdownNow();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Chunk encodes of {} still running, deleting their files anyway", chunksDir);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            deleteRecursively(chunksDir);
+        } catch (IOException e) {
+            log.warn("Could not delete chunk files in {}: {}", chunksDir, e.getMessage());
+        }
+    }
+
+    /**
+     * Chooses chunk boundaries on keyframes, roughly every chunkSeconds, so every chunk starts on a
+     * keyframe and input seeking is frame accurate. Returns {start, end} pairs in seconds.
+     */
+    static List<double[]> planChunks(List<Double> keyframes, double duration, int chunkSeconds) {
+        List<double[]> chunks = new ArrayList<>();
+        double chunkStart = 0;
+        for (double keyframe : keyframes) {
+            if (keyframe - chunkStart >= chunkSeconds && duration - keyframe >= chunkSeconds / 2.0) {
+                chunks.add(new double[]{chunkStart, keyframe});
+                chunkStart = keyframe;
+            }
+        }
+        chunks.add(new double[]{chunkStart, duration});
+        return chunks;
+    }
+
+    /**
+     * Encoder threads of each rendition output when workers chunk processes each encode every rendition.
+     */
+    static int threadsPerEncoder(int cpuSlots, int workers, int renditions) {
+        return Math.max(1, cpuSlots / (Math.max(1, workers) * Math.max(1, renditions)));
+    }
+
+    private void encodeChunk(File inputFile, Path chunkDir, double start, double end, List<Rendition> renditions,
+                             int threads, PreviewOutputs previews, LongConsumer outTimeListener) throws IOException {
+        Files.createDirectories(chunkDir);
+        List<String> command = chunkCommand(inputFile, chunkDir, start, end, renditions, threads, previews);
+        runFfmpeg(command, chunkDir.toString(), renditions, "chunk", duration -> { }, outTimeListener);
+    }
+
+    /**
+     * The ffmpeg command encoding one chunk. Package-private for tests.
+     */
+    List<String> chunkCommand(File inputFile, Path chunkDir, double start, double end, List<Rendition> renditions,
+                              int threads, PreviewOutputs previews) {
+        List<String> command = new ArrayList<>();
+        command.add(ffmpegPath);
+        command.add("-y");
+        command.add("-nostats");
+        command.add("-progress");
+        command.add("pipe:1");
+        command.add("-ss");
+        command.add(formatSeconds(start));
+        command.add("-t");
+        command.add(formatSeconds(end - start));
+        command.add("-i");
+        command.add(inputFile.getAbsolutePath());
+        addRenditionOutputs(command, chunkDir, renditions, "vod", Arrays.asList(
+                "-threads", String.valueOf(threads),
+                "-output_ts_offset", formatSeconds(start)), previews);
+        return command;
+    }
+
+    /**
+     * Moves every chunk's segments into the output directory with continuous numbering and writes
+     * one VOD playlist per rendition, starting at media sequence 0.
+     */
+    private void stitchChunks(Path outputDir, Path chunksDir, int chunkCount, List<Rendition> renditions)
+            throws IOException {
+        for (Rendition rendition : renditions) {
+            StringBuilder segments = new StringBuilder();
+            double maxDuration = 0;
+            int segmentIndex = 0;
+            for (int chunk = 0; chunk < chunkCount; chunk++) {
+                Path chunkDir = chunksDir.resolve(String.valueOf(chunk));
+                MediaPlaylist playlist = MediaPlaylist.parse(Files.readString(chunkDir.resolve(rendition.getPlaylistName())));
+                for (MediaPlaylist.Segment segment : playlist.getSegments()) {
+                    String segmentName = String.format("%s_%03d.ts", rendition.getQuality(), segmentIndex++);
+                    Files.move(chunkDir.resolve(segment.uri()), outputDir.resolve(segmentName),
+                            StandardCopyOption.REPLACE_EXISTING);
+                    segments.append(String.format(Locale.ROOT, "#EXTINF:%.6f,\n", segment.duration()))
+                            .append(segmentName).append('\n');
+                    maxDuration = Math.max(maxDuration, segment.duration());
+                }
+            }
+
+            String playlist = "#EXTM3U\n" +
+                    "#EXT-X-VERSION:3\n" +
+                    "#EXT-X-TARGETDURATION:" + (int) Math.ceil(maxDuration) + "\n" +
+                    "#EXT-X-MEDIA-SEQUENCE:0\n" +
+                    "#EXT-X-PLAYLIST-TYPE:VOD\n" +
+                    segments +
+                    "#EXT-X-ENDLIST\n";
+            Files.writeString(outputDir.resolve(rendition.getPlaylistName()), playlist);
+        }
+    }
+
+    /**
+     * Adds the split/scale filter graph and one HLS output per rendition, plus the preview sprite sheets
+     * and poster as extra branches of the same split when previews is not null.
+     */
+    private void addRenditionOutputs(List<String> command, Path outputDir, List<Rendition> renditions,
+                                     String playlistType, List<String> extraOutputOptions, PreviewOutputs previews) {
+        boolean sprites = previews != null;
+        boolean poster = sprites && previews.posterAt() >= 0;
+        int branches = renditions.size() + (sprites ? 1 : 0) + (poster ? 1 : 0);
+        StringBuilder filter = new StringBuilder("[0:v]split=").append(branches);
+        for (int i = 0; i < renditions.size(); i++) {
+            filter.append("[v").append(i).append(']');
+        }
+        if (sprites) {
+            filter.append("[sprites]");
+        }
+        if (poster) {
+            filter.append("[poster]");
+        }
+        for (int i = 0; i < renditions.size(); i++) {
+            filter.append(";[v").append(i).append("]scale=w=").append(renditions.get(i).getWidth())
+                    .append(":h=").append(renditions.get(i).getHeight())
+                    .append(":force_original_aspect_ratio=decrease:force_divisible_by=2[v").append(i).append("out]");
+        }
+        if (sprites) {
+            filter.append(";[sprites]").append(PreviewSprites.spriteFilter(previewIntervalSeconds)).append("[spritesout]");
+        }
+        if (poster) {
+            filter.append(";[poster]").append(PreviewSprites.posterFilter(previews.posterAt(), posterWidth))
+                    .append("[posterout]");
+        }
+        command.add("-filter_complex");
+        command.add(filter.toString());
+
+        for (int i = 0; i < renditions.size(); i++) {
+            command.addAll(extraOutputOptions);
+            addQualityOutput(command, outputDir, renditions.get(i).getQuality(), "[v" + i + "out]",
+                    renditions.get(i).getBitrateKbps() + "k", playlistType);
+        }
+        if (sprites) {
+            command.addAll(Arrays.asList(
+                    "-map", "[spritesout]", "-c:v", "mjpeg", "-q:v", "5", "-start_number", "0", "-f", "image2",
+                    previews.dir().resolve(PreviewSprites.spritePattern(previews.version(), previews.chunk())).toString()));
+        }
+        if (poster) {
+            command.addAll(Arrays.asList(
+                    "-map", "[posterout]", "-frames:v", "1", "-c:v", "mjpeg", "-q:v", "3", "-f", "image2",
+                    "-update", "1", previews.dir().resolve(PreviewSprites.posterName(previews.version())).toString()));
+        }
+    }
+
+    /**
+     * Empties the previews directory and returns a fresh version for this transcode's preview files.
+     */
+    private String preparePreviews(Path outputDir) throws IOException {
+        Path previewsDir = outputDir.resolve(PreviewSprites.DIR);
+        deleteRecursively(previewsDir);
+        Files.createDirectories(previewsDir);
+        return Long.toString(System.currentTimeMillis(), 36);
+    }
+
+    /**
+     * Preview outputs of one ffmpeg process, or null if previews are disabled. The poster is taken a few
+     * seconds in, or halfway through clips shorter than that; rangeSeconds is negative when this process
+     * does not write the poster.
+     */
+    private PreviewOutputs previewOutputs(Path outputDir, String version, int chunk, double rangeSeconds) {
+        if (version == null) {
+            return null;
+        }
+        double posterAt = rangeSeconds < 0 ? -1 : Math.min(posterSeconds, rangeSeconds / 2);
+        return new PreviewOutputs(outputDir.resolve(PreviewSprites.DIR), version, chunk, posterAt);
+    }
+
+    /**
+     * Writes the WebVTT index over the sprite sheets once every chunk is done.
+     */
+    private PreviewSprites.Previews writePreviewTrack(Path outputDir, String version, List<double[]> ranges)
+            throws IOException {
+        if (version == null) {
+            return null;
+        }
+        Path previewsDir = outputDir.resolve(PreviewSprites.DIR);
+        Files.writeString(previewsDir.resolve(PreviewSprites.trackName(version)),
+                PreviewSprites.webVtt(version, ranges, previewIntervalSeconds));
+        String poster = PreviewSprites.posterName(version);
+        return new PreviewSprites.Previews(Files.isRegularFile(previewsDir.resolve(poster)) ? poster : null,
+                PreviewSprites.trackName(version));
+    }
+
+    /**
+     * Appends the encoder and HLS muxer options of one rendition output. Package-private for the benchmarks.
+     */
+    void addQualityOutput(List<String> command, Path outputDir, String quality, String mapInput, String bitrate,
+                          String playlistType) {
+        command.addAll(Arrays.asList(
+                "-map", mapInput,
+                "-c:v", "libx264",
+                "-b:v", bitrate,
+                "-maxrate", bitrate,
+                "-bufsize", String.valueOf(Integer.parseInt(bitrate.replace("k", "")) * 2) + "k",
+                // Keyframes on segment boundaries keep renditions switchable and chunks stitchable
+                "-force_key_frames", "expr:gte(t,n_forced*" + SEGMENT_SECONDS + ")",
+                "-hls_time", String.valueOf(SEGMENT_SECONDS),
+                "-hls_playlist_type", playlistType,
+                // Segments and playlists appear under their final names only once complete
+                "-hls_flags", "temp_file",
+                "-hls_segment_filename", outputDir.resolve(quality + "_%03d.ts").toString(),
+                outputDir.resolve(quality + ".m3u8").toString()
+        ));
+    }
+
+    private boolean firstSegmentsReady(Path outputDir, List<Rendition> renditions) {
+        for (Rendition rendition : renditions) {
+            if (!Files.exists(outputDir.resolve(rendition.getPlaylistName()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean publishProvisionalMaster(Path outputDir, MediaInfo source) {
+        try {
+            masterPlaylistGenerator.writeMasterPlaylist(outputDir, source);
+            return true;
+        } catch (IOException e) {
+            log.debug("Master playlist not ready yet in {}: {}", outputDir, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Flips the finished EVENT playlists to VOD so that players and caches treat them as immutable.
+     */
+    private void finalizeEventPlaylists(Path outputDir, List<Rendition> renditions) throws IOException {
+        for (Rendition rendition : renditions) {
+            Path playlistFile = outputDir.resolve(rendition.getPlaylistName());
+            String playlist = Files.readString(playlistFile)
+                    .replace("#EXT-X-PLAYLIST-TYPE:EVENT", "#EXT-X-PLAYLIST-TYPE:VOD");
+            if (!playlist.contains("#EXT-X-ENDLIST")) {
+                playlist = playlist + (playlist.endsWith("\n") ? "" : "\n") + "#EXT-X-ENDLIST\n";
+            }
+            Path tempFile = outputDir.resolve(rendition.getPlaylistName() + ".tmp");
+            Files.writeString(tempFile, playlist);
+            Files.move(tempFile, playlistFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /**
+     * Runs ffmpeg to completion, reporting the input duration and -progress out_time (both microseconds).
+     * On success, records the encode time and the last realtime speed factor for each rendition it encoded.
+     */
+    private void runFfmpeg(List<String> command, String name, List<Rendition> renditions, String mode,
+                           LongConsumer durationListener, LongConsumer outTimeListener) throws IOException {
+        log.info("Executing FFmpeg command: {}", String.join(" ", command));
+        long startNanos = System.nanoTime();
+        double[] speed = {-1};
+
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+        processBuilder.redirectErrorStream(true);
+        Process process = processBuilder.start();
+
+        // Read process output in a separate thread
+        Thread outputReader = new Thread(() -> {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                boolean durationKnown = false;
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    log.debug("FFmpeg output: {}", line);
+                    if (!durationKnown) {
+                        long durationMicros = parseDurationMicros(line);
+                        if (durationMicros > 0) {
+                            durationKnown = true;
+                            durationListener.accept(durationMicros);
+                            continue;
+                        }
+                    }
+                    Matcher matcher = OUT_TIME_PATTERN.matcher(line);
+                    if (matcher.matches()) {
+                        outTimeListener.accept(Long.parseLong(matcher.group(1)));
+                        continue;
+                    }
+                    Matcher speedMatcher = SPEED_PATTERN.matcher(line);
+                    if (speedMatcher.matches()) {
+                        speed[0] = Double.parseDouble(speedMatcher.group(1));
+                    }
+                }
+            } catch (IOException e) {
+                log.error("Error reading FFmpeg output", e);
+            }
+        }, "ffmpeg-output-" + name);
+        outputReader.start();
+
+        try {
+            int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                throw new IOException("FFmpeg command failed with exit code: " + exitCode);
+            }
+            // The reader may still be on the last progress block
+            outputReader.join(1000);
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw new IOException("FFmpeg process interrupted", e);
+        }
+        recordEncode(renditions, mode, System.nanoTime() - startNanos, speed[0]);
+    }
+
+    private void recordEncode(List<Rendition> renditions, String mode, long nanos, double speed) {
+        for (Rendition rendition : renditions) {
+            Timer.builder("arsu.transcode.encode")
+                    .description("Wall time of ffmpeg runs, per rendition they encoded")
+                    .tags("rendition", rendition.getQuality(), "mode", mode)
+                    .register(meterRegistry)
+                    .record(nanos, TimeUnit.NANOSECONDS);
+            if (speed >= 0) {
+                DistributionSummary.builder("arsu.transcode.speed")
+                        .description("Realtime speed factor ffmpeg reported at the end of a run")
+                        .tags("rendition", rendition.getQuality(), "mode", mode)
+                        .register(meterRegistry)
+                        .record(speed);
+            }
+        }
+    }
+
+    /**
+     * Parses the "Duration: HH:MM:SS.xx" banner ffmpeg prints for its input.
+     */
+    private long parseDurationMicros(String line) {
+        Matcher matcher = DURATION_PATTERN.matcher(line);
+        if (!matcher.find()) {
+            return 0;
+        }
+        double seconds = Integer.parseInt(matcher.group(1)) * 3600
+                + Integer.parseInt(matcher.group(2)) * 60
+                + Double.parseDouble(matcher.group(3));
+        return (long) (seconds * 1_000_000);
+    }
+
+    private String formatSeconds(double seconds) {
+        return String.format(Locale.ROOT, "%.6f", seconds);
+    }
+
+    private void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(path)) {
+            for (Path p : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(p);
+            }
+        }
+    }
+
+    /**
+     * Validates if the video ID is non-null and non-empty.
+     */
+    private void validateVideoId(String videoId) {
+        if (videoId == null || videoId.isEmpty()) {
+            throw new IllegalArgumentException("Invalid video ID. It cannot be null or empty.");
+        }
+    }
+}
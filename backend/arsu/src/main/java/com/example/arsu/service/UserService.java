@@ -1,14 +1,14 @@
 package com.example.arsu.service;
 
+import com.example.arsu.model.LoginResponse;
 import com.example.arsu.model.User;
 import com.example.arsu.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 
 import java.util.Date;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class UserService {
@@ -16,12 +16,17 @@ public class UserService {
     private UserRepository userRepository;
 
     @Autowired
-    private BCryptPasswordEncoder passwordEncoder;
+    private PasswordHasher passwordHasher;
 
     @Autowired
-    private RedisTemplate<String, Object> redisTemplate;
+    private SessionService sessionService;
 
-    public User registerUser(User user) {
+    /**
+     * Hashes the password on the hashing pool and stores the user.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException if the hashing pool is saturated
+     */
+    public CompletableFuture<User> registerUser(User user) {
         if (userRepository.findByUsername(user.getUsername()) != null) {
             throw new RuntimeException("Username already exists");
         }
@@ -29,33 +34,36 @@ public class UserService {
             throw new RuntimeException("Email already exists");
         }
 
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
-        user.setCreatedAt(new Date());
-        user.setUpdatedAt(new Date());
-        User savedUser = userRepository.save(user);
-        cacheUser(savedUser);
-        return savedUser;
-    }
-
-    public User loginUser(String username, String password) {
-        User user = getCachedUser(username);
-        if (user == null) {
-            user = userRepository.findByUsername(username);
-            if (user != null) {
-                cacheUser(user);
+        return passwordHasher.encode(user.getPassword()).thenApply(hash -> {
+            user.setPassword(hash);
+            user.setCreatedAt(new Date());
+            user.setUpdatedAt(new Date());
+            try {
+                return userRepository.save(user);
+            } catch (DuplicateKeyException e) {
+                // Lost a race with a concurrent registration; the unique indexes have the final say
+                throw new RuntimeException("Username or email already exists");
             }
-        }
-        if (user != null && passwordEncoder.matches(password, user.getPassword())) {
-            return user;
-        }
-        return null;
+        });
     }
 
-    private void cacheUser(User user) {
-        redisTemplate.opsForValue().set(user.getUsername(), user, 1, TimeUnit.HOURS);
+    /**
+     * Checks the credentials on the hashing pool and starts a session.
+     * Completes with null if the username or password is wrong.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException if the hashing pool is saturated
+     */
+    public CompletableFuture<LoginResponse> loginUser(String username, String password) {
+        User user = userRepository.findByUsername(username);
+        if (user == null || password == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return passwordHasher.matches(password, user.getPassword()).thenApply(matches -> matches
+                ? new LoginResponse(sessionService.create(user), sessionService.getTtlSeconds(), user)
+                : null);
     }
 
-    private User getCachedUser(String username) {
-        return (User) redisTemplate.opsForValue().get(username);
+    public User getUser(String userId) {
+        return userRepository.findById(userId).orElse(null);
     }
-}
\ No newline at end of file
+}
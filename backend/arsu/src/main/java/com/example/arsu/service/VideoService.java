@@ -1,13 +1,27 @@
 package com.example.arsu.service;
 
+import com.example.arsu.cache.VideoCache;
+import com.example.arsu.model.ProcessingState;
+import com.example.arsu.model.StoredContent;
+import com.example.arsu.model.TranscodeJob;
 import com.example.arsu.model.Video;
+import com.example.arsu.model.VideoPage;
 import com.example.arsu.repository.VideoRepository;
+import com.example.arsu.streaming.ManifestCache;
+import com.example.arsu.storage.VideoStorage;
+import com.example.arsu.streaming.SegmentCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.CachePut;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
@@ -15,69 +29,75 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class VideoService {
     private static final Logger log = LoggerFactory.getLogger(VideoService.class);
 
-    @Value("${video.storage.path:/home/aryan/ARSU/Storage}")
-    private String STORAGE_DIR;
-
     @Autowired
     private VideoRepository videoRepository;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
     @Autowired
     private KafkaTemplate<String, String> kafkaTemplate;
 
     @Autowired
-    private RedisTemplate<String, Object> redisTemplate;
+    private VideoCache videoCache;
 
-    private static final String TOPIC = "video-processing";
+    @Autowired
+    private TranscodeJobService transcodeJobService;
 
-    /**
-     * Upload video with MultipartFile support.
-     */
-    public Video uploadVideo(Video video, MultipartFile multipartFile) throws IOException {
-        validateVideoFile(multipartFile);
+    @Autowired
+    private ManifestCache manifestCache;
 
-        // Save metadata to MongoDB
-        video.setCreatedAt(new Date());
-        video.setUpdatedAt(new Date());
-        Video savedVideo = videoRepository.save(video);
+    @Autowired
+    private SegmentCache segmentCache;
 
-        // Create unique file name and paths
-        String uniqueFileName = UUID.randomUUID().toString() + "_" + multipartFile.getOriginalFilename();
-        Path videoDir = Paths.get(STORAGE_DIR, savedVideo.getId());
-        Path originalFilePath = videoDir.resolve(uniqueFileName);
+    @Autowired
+    private ContentIndex contentIndex;
 
-        try {
-            // Ensure directory exists and save original file
-            Files.createDirectories(videoDir);
-            Files.copy(multipartFile.getInputStream(), originalFilePath);
+    @Autowired
+    private VideoStorage videoStorage;
 
-            // Convert video to HLS
-            convertVideoToHLS(savedVideo.getId(), originalFilePath.toFile());
+    @Autowired
+    private MeterRegistry meterRegistry;
 
-            // Set the URL to the local storage path
-            video.setUrl(savedVideo.getId() + "/" + uniqueFileName);
-            savedVideo = videoRepository.save(video);
+    private final Cache<String, String> storageIds = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .build();
 
-            // Send Kafka notification
-            kafkaTemplate.send(TOPIC, "Video processed successfully: " + video.getTitle());
+    private static final String TOPIC = "video-processing";
 
-            // Update cache
-            updateRedisCache(savedVideo);
+    public static final int DEFAULT_PAGE_SIZE = 20;
 
-            return savedVideo;
+    private static final int MAX_PAGE_SIZE = 100;
 
-        } catch (Exception e) {
-            log.error("Error processing video: {}", e.getMessage(), e);
-            // Cleanup on failure
-            deleteDirectory(videoDir);
-            videoRepository.deleteById(savedVideo.getId());
-            throw new IOException("Failed to process video: " + e.getMessage(), e);
+    // Listing projection; the description and source info are the heavy fields
+    private static final String[] LISTING_FIELDS = {
+            "title", "url", "thumbnail", "userId", "processingState", "playable", "renditions", "viewCount", "createdAt"
+    };
+
+    /**
+     * Upload video with MultipartFile support.
+     * Stores the original and queues it for transcoding; the returned video is still QUEUED.
+     * Bytes that were uploaded before are not stored or transcoded again (see {@link #storeContent}).
+     */
+    public Video uploadVideo(Video video, MultipartFile multipartFile) throws IOException {
+        validateVideoFile(multipartFile);
+        try (InputStream in = multipartFile.getInputStream()) {
+            return storeOriginal(video, in, multipartFile.getOriginalFilename());
         }
     }
 
@@ -85,103 +105,199 @@ public class VideoService {
      * Upload video with File support.
      */
     public Video uploadVideo(Video video, File file) throws IOException {
-        // Step 1: Save metadata to MongoDB
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            return storeOriginal(video, in, file.getName());
+        }
+    }
+
+    /**
+     * Times every upload, tagged with how it ended: new content, a duplicate, refused admission or failed.
+     */
+    private Video storeOriginal(Video video, InputStream in, String originalName) throws IOException {
+        long startNanos = System.nanoTime();
+        String result = "failed";
+        try {
+            Video stored = storeContent(video, in, originalName);
+            result = stored.getId().equals(stored.getStorageId()) ? "new" : "duplicate";
+            return stored;
+        } catch (TranscodeQueueFullException e) {
+            result = "refused";
+            throw e;
+        } finally {
+            Timer.builder("arsu.upload.duration")
+                    .description("Time to receive, hash and store an upload")
+                    .tag("result", result)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Stores the original under the video's own directory and queues it for transcoding, unless the same
+     * bytes are already stored: the SHA-256 is computed while the upload is copied to a temporary file, and
+     * a duplicate then shares the existing directory, its HLS output and its transcode job.
+     * Admission is only checked for new content, since a duplicate costs no transcoding.
+     */
+    private Video storeContent(Video video, InputStream in, String originalName) throws IOException {
+        Path incoming = Files.createTempFile(videoStorage.incomingDirectory(), "upload", ".tmp");
+        String digest;
+        long size;
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            try (DigestInputStream digestIn = new DigestInputStream(in, sha256)) {
+                size = Files.copy(digestIn, incoming, StandardCopyOption.REPLACE_EXISTING);
+            }
+            digest = HexFormat.of().formatHex(sha256.digest());
+            DistributionSummary.builder("arsu.upload.bytes")
+                    .baseUnit("bytes")
+                    .register(meterRegistry)
+                    .record(size);
+        } catch (NoSuchAlgorithmException | IOException e) {
+            Files.deleteIfExists(incoming);
+            throw new IOException("Failed to receive video: " + e.getMessage(), e);
+        }
+
+        // Save metadata to MongoDB
+        video.setProcessingState(ProcessingState.QUEUED);
+        video.setContentHash(digest);
         video.setCreatedAt(new Date());
         video.setUpdatedAt(new Date());
         Video savedVideo = videoRepository.save(video);
 
-        // Step 2: Store file in storage
-        String uniqueFileName = UUID.randomUUID().toString() + "_" + file.getName();
-        Path storagePath = Paths.get(STORAGE_DIR, uniqueFileName);
+        String uniqueFileName = UUID.randomUUID().toString() + "_" + originalName;
+        String url = savedVideo.getId() + "/" + uniqueFileName;
+        StoredContent content;
+        try {
+            content = contentIndex.claim(digest, savedVideo.getId(), url, size);
+        } catch (Exception e) {
+            Files.deleteIfExists(incoming);
+            videoRepository.deleteById(savedVideo.getId());
+            throw new IOException("Failed to index video: " + e.getMessage(), e);
+        }
 
-        ensureStorageDirectoryExists();
-        if (!Files.exists(storagePath)) {
-            Files.copy(file.toPath(), storagePath);
+        if (!content.getStorageId().equals(savedVideo.getId())) {
+            Files.deleteIfExists(incoming);
+            log.info("Video {} duplicates the content stored under {}", savedVideo.getId(), content.getStorageId());
+            return linkDuplicate(savedVideo, content);
         }
 
-        // Step 3: Convert video to HLS with multiple qualities
-        convertVideoToHLS(savedVideo.getId(), file);
+        try {
+            // Refuse before queueing anything we could not transcode in reasonable time
+            transcodeJobService.checkAdmission(savedVideo.getUserId());
+            Path videoDir = videoStorage.create(savedVideo.getId());
+            Path originalFilePath = Files.move(incoming, videoDir.resolve(uniqueFileName));
 
-        // Step 4: Set the URL to the unique file name
-        video.setUrl(uniqueFileName);
-        videoRepository.save(video);
+            savedVideo.setStorageId(savedVideo.getId());
+            savedVideo.setUrl(url);
+            Video queued = queueTranscode(savedVideo, originalFilePath.toFile());
+            contentIndex.publish(digest, savedVideo.getId());
+            return queued;
 
-        // Step 5: Publish event to Kafka
-        kafkaTemplate.send(TOPIC, "Video uploaded: " + video.getTitle());
+        } catch (Exception e) {
+            // Cleanup on failure; the entry is still pending, so no duplicate can have linked to the storage
+            Files.deleteIfExists(incoming);
+            if (contentIndex.release(digest, savedVideo.getId())) {
+                deleteStorage(savedVideo.getId());
+            }
+            videoRepository.deleteById(savedVideo.getId());
+            videoCache.evict(savedVideo.getId(), savedVideo.getUserId());
+            if (e instanceof TranscodeQueueFullException queueFull) {
+                throw queueFull;
+            }
+            log.error("Error storing video: {}", e.getMessage(), e);
+            throw new IOException("Failed to store video: " + e.getMessage(), e);
+        }
+    }
 
-        // Step 6: Update Redis cache
-        updateRedisCache(savedVideo);
+    /**
+     * Points a duplicate upload at the stored content and takes over the processing state of a video
+     * already sharing it; the transcode job keeps every video of that storage updated from then on.
+     */
+    private Video linkDuplicate(Video video, StoredContent content) {
+        video.setStorageId(content.getStorageId());
+        video.setUrl(content.getUrl());
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(video.getId())),
+                new Update().set("storageId", content.getStorageId()).set("url", content.getUrl()),
+                Video.class);
+
+        Video source = mongoTemplate.findOne(Query.query(Criteria.where("storageId").is(content.getStorageId())
+                .and("_id").ne(video.getId())), Video.class);
+        if (source != null) {
+            video.setProcessingState(source.getProcessingState());
+            video.setPlayable(source.isPlayable());
+            video.setJobId(source.getJobId());
+            video.setSourceInfo(source.getSourceInfo());
+            video.setRenditions(source.getRenditions());
+            video.setThumbnail(source.getThumbnail());
+            video.setPreviewTrack(source.getPreviewTrack());
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(video.getId())),
+                    new Update().set("processingState", video.getProcessingState())
+                            .set("playable", video.isPlayable())
+                            .set("jobId", video.getJobId())
+                            .set("sourceInfo", video.getSourceInfo())
+                            .set("renditions", video.getRenditions())
+                            .set("thumbnail", video.getThumbnail())
+                            .set("previewTrack", video.getPreviewTrack()),
+                    Video.class);
+        }
+        videoCache.evict(video.getId(), video.getUserId());
+        return video;
+    }
 
-        return savedVideo;
+    /**
+     * Deletes a video. Its storage is deleted with it only when no other video shares the same content.
+     * Returns false if the video does not exist.
+     */
+    public boolean deleteVideo(String videoId) {
+        Video video = videoRepository.findById(videoId).orElse(null);
+        if (video == null) {
+            return false;
+        }
+        videoRepository.deleteById(videoId);
+        videoCache.evict(videoId, video.getUserId());
+        storageIds.invalidate(videoId);
+
+        // Videos uploaded before deduplication own their directory outright
+        String storageId = video.getStorageId() != null ? video.getStorageId() : videoId;
+        boolean lastReference = video.getContentHash() == null
+                || contentIndex.release(video.getContentHash(), storageId);
+        if (lastReference) {
+            deleteStorage(storageId);
+        }
+        log.info("Deleted video {} (storage {})", videoId, lastReference ? "freed" : "still shared");
+        return true;
     }
 
     /**
-     * Converts the video to HLS with multiple qualities.
+     * Version of a user's video listing, changed by every upload, update or deletion of one of their videos
+     * and by every flush of their view counts, or null if it is unavailable.
      */
-    private void convertVideoToHLS(String videoId, File inputFile) throws IOException {
-        validateVideoId(videoId);
-        Path outputDir = Paths.get(STORAGE_DIR, videoId);
-
-        List<String> command = new ArrayList<>();
-        command.add("ffmpeg");
-        command.add("-i");
-        command.add(inputFile.getAbsolutePath());
-        command.add("-filter_complex");
-        command.add("[0:v]split=4[v1][v2][v3][v4];" +
-                "[v1]scale=w=1280:h=720:force_original_aspect_ratio=decrease[v1out];" +
-                "[v2]scale=w=1920:h=1080:force_original_aspect_ratio=decrease[v2out];" +
-                "[v3]scale=w=854:h=480:force_original_aspect_ratio=decrease[v3out];" +
-                "[v4]scale=w=426:h=240:force_original_aspect_ratio=decrease[v4out]");
-
-        // Add outputs for all qualities
-        addQualityOutput(command, outputDir, "720p", "[v1out]", "3000k");
-        addQualityOutput(command, outputDir, "1080p", "[v2out]", "5000k");
-        addQualityOutput(command, outputDir, "480p", "[v3out]", "1500k");
-        addQualityOutput(command, outputDir, "240p", "[v4out]", "800k");
-
-        log.info("Executing FFmpeg command: {}", String.join(" ", command));
-
-        ProcessBuilder processBuilder = new ProcessBuilder(command);
-        processBuilder.redirectErrorStream(true);
-        Process process = processBuilder.start();
-
-        // Read process output in a separate thread
-        Thread outputReader = new Thread(() -> {
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    log.debug("FFmpeg output: {}", line);
-                }
-            } catch (IOException e) {
-                log.error("Error reading FFmpeg output", e);
-            }
-        });
-        outputReader.start();
+    public Long getUserListingVersion(String userId) {
+        return videoCache.getUserVersion(userId);
+    }
 
-        try {
-            int exitCode = process.waitFor();
-            if (exitCode != 0) {
-                throw new IOException("FFmpeg command failed with exit code: " + exitCode);
-            }
-        } catch (InterruptedException e) {
-            process.destroyForcibly();
-            Thread.currentThread().interrupt();
-            throw new IOException("FFmpeg process interrupted", e);
-        }
+    /**
+     * Directory the video's files are stored under: its own id, unless it shares another upload's content.
+     * Cached, since a video's storage never changes; unknown videos resolve to their own id.
+     */
+    public String resolveStorageId(String videoId) {
+        return storageIds.get(videoId, id -> {
+            Video video = getVideo(id);
+            return video != null && video.getStorageId() != null ? video.getStorageId() : id;
+        });
     }
 
-    private void addQualityOutput(List<String> command, Path outputDir, String quality, String mapInput, String bitrate) {
-        command.addAll(Arrays.asList(
-                "-map", mapInput,
-                "-c:v", "libx264",
-                "-b:v", bitrate,
-                "-maxrate", bitrate,
-                "-bufsize", String.valueOf(Integer.parseInt(bitrate.replace("k", "")) * 2) + "k",
-                "-hls_time", "10",
-                "-hls_playlist_type", "vod",
-                "-hls_segment_filename", outputDir.resolve(quality + "_%03d.ts").toString(),
-                outputDir.resolve(quality + ".m3u8").toString()
-        ));
+    /**
+     * Queues the stored original for HLS conversion and publishes the upload event.
+     */
+    private Video queueTranscode(Video video, File originalFile) {
+        Video savedVideo = videoRepository.save(video);
+        TranscodeJob job = transcodeJobService.submit(savedVideo, originalFile);
+        savedVideo.setJobId(job.getId());
+
+        kafkaTemplate.send(TOPIC, "Video uploaded: " + video.getTitle());
+        videoCache.evict(savedVideo.getId(), savedVideo.getUserId());
+        return savedVideo;
     }
 
     /**
@@ -204,66 +320,85 @@ public class VideoService {
     }
 
     /**
-     * Validates if the video ID is non-null and non-empty.
+     * Deletes the video's files and drops its cached manifests and segments.
      */
-    private void validateVideoId(String videoId) {
-        if (videoId == null || videoId.isEmpty()) {
-            throw new IllegalArgumentException("Invalid video ID. It cannot be null or empty.");
+    private void deleteStorage(String storageId) {
+        manifestCache.invalidate(storageId);
+        segmentCache.invalidateVideo(storageId);
+        try {
+            videoStorage.delete(storageId);
+        } catch (IOException e) {
+            log.error("Error deleting storage of {}", storageId, e);
         }
     }
 
     /**
-     * Ensures the storage directory exists.
+     * Video by id through the two-tier cache, or null if it does not exist.
      */
-    private void ensureStorageDirectoryExists() {
-        File storageDir = new File(STORAGE_DIR);
-        if (!storageDir.exists()) {
-            if (!storageDir.mkdirs()) {
-                throw new IllegalStateException("Failed to create storage directory: " + STORAGE_DIR);
-            }
-        }
+    public Video getVideo(String videoId) {
+        return videoCache.getVideo(videoId, () -> videoRepository.findById(videoId).orElse(null));
     }
 
     /**
-     * Deletes the video directory.
+     * Streams one page of videos, newest first, from a Mongo cursor to the consumer and returns the
+     * cursor of the next page, or null on the last page. Pass a null userId to list every user's videos.
+     * The description is projected out unless requested; the source info is always left out.
+     * A user's first page at the default size is served from the video cache.
+     *
+     * @throws IllegalArgumentException if the cursor is malformed, before anything is streamed
      */
-    private void deleteDirectory(Path path) {
-        try {
-            if (Files.exists(path)) {
-                Files.walk(path)
-                        .sorted(Comparator.reverseOrder())
-                        .forEach(p -> {
-                            try {
-                                Files.delete(p);
-                            } catch (IOException e) {
-                                log.error("Error deleting path: {}", p, e);
-                            }
-                        });
-            }
-        } catch (IOException e) {
-            log.error("Error deleting directory: {}", path, e);
+    public String streamVideoPage(String userId, String cursor, int limit, boolean includeDescription,
+                                  Consumer<Video> consumer) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        boolean firstPage = cursor == null || cursor.isEmpty();
+        List<Criteria> criteria = new ArrayList<>();
+        if (userId != null) {
+            criteria.add(Criteria.where("userId").is(userId));
+        }
+        if (!firstPage) {
+            criteria.add(PageCursor.after(cursor));
         }
-    }
 
-    /**
-     * Updates Redis cache for a user's videos.
-     */
-    @CachePut(value = "videos", key = "#video.userId")
-    public List<Video> updateRedisCache(Video video) {
-        return videoRepository.findByUserId(video.getUserId());
-    }
+        Query query = new Query();
+        if (!criteria.isEmpty()) {
+            query.addCriteria(new Criteria().andOperator(criteria));
+        }
+        query.with(PageCursor.NEWEST_FIRST)
+                .limit(pageSize + 1)
+                .cursorBatchSize(pageSize + 1);
+        query.fields().include(LISTING_FIELDS);
+        if (includeDescription) {
+            query.fields().include("description");
+        }
 
-    /**
-     * Get all videos by a specific user.
-     */
-    public List<Video> getVideosByUserId(String userId) {
-        return videoRepository.findByUserId(userId);
+        if (userId != null && firstPage && pageSize == DEFAULT_PAGE_SIZE) {
+            VideoPage page = videoCache.getUserPage(userId, includeDescription, () -> {
+                List<Video> videos = new ArrayList<>();
+                String nextCursor = readVideoPage(query, pageSize, videos::add);
+                return new VideoPage(videos, nextCursor);
+            });
+            page.getVideos().forEach(consumer);
+            return page.getNextCursor();
+        }
+        return readVideoPage(query, pageSize, consumer);
     }
 
-    /**
-     * Get all videos.
-     */
-    public List<Video> getAllVideos() {
-        return videoRepository.findAll();
+    private String readVideoPage(Query query, int pageSize, Consumer<Video> consumer) {
+        // One extra document tells whether there is a next page without a count query
+        Video last = null;
+        int streamed = 0;
+        try (Stream<Video> videos = mongoTemplate.stream(query, Video.class)) {
+            Iterator<Video> iterator = videos.iterator();
+            while (iterator.hasNext()) {
+                Video video = iterator.next();
+                if (streamed == pageSize) {
+                    return PageCursor.encode(last.getCreatedAt(), last.getId());
+                }
+                consumer.accept(video);
+                last = video;
+                streamed++;
+            }
+        }
+        return null;
     }
 }
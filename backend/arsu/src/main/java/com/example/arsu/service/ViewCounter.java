@@ -0,0 +1,208 @@
+package com.example.arsu.service;
+
+import com.example.arsu.cache.VideoCache;
+import com.example.arsu.model.Video;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-video view and watch-time counters, aggregated in memory and flushed to Mongo as one unordered
+ * bulk of $inc updates per interval. Recording is a map lookup plus a striped add, with no allocation
+ * once a video has been seen, so it is safe on the segment serving path.
+ * A crash loses at most the counts recorded since the last successful flush; a failed flush puts its
+ * counts back to be retried with the next one.
+ * Flushed videos are evicted from the video cache, which also moves their owners' listing versions, so
+ * listing ETags change with the view counts they carry.
+ * Videos that saw no playback for a whole interval are dropped from the map, so it only holds what is
+ * being watched; sub-second watch time left on an idle video is discarded.
+ */
+@Component
+public class ViewCounter {
+    private static final Logger log = LoggerFactory.getLogger(ViewCounter.class);
+
+    static final class Counters {
+        final LongAdder views = new LongAdder();
+        final LongAdder watchMillis = new LongAdder();
+        // Watch time left after the previous drain; only read and written by the flushing thread
+        long lastMillis;
+        // Set once the entry is removed; a recorder that sees it moves what it added to the live entry
+        volatile boolean retired;
+    }
+
+    record Delta(String videoId, long views, long watchSeconds) {
+    }
+
+    @Value("${video.stats.default-segment-seconds:10}")
+    private long defaultSegmentSeconds;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private VideoCache videoCache;
+
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Counts one playback start, i.e. a master playlist request.
+     */
+    public void recordView(String videoId) {
+        Counters pending = counters.computeIfAbsent(videoId, id -> new Counters());
+        pending.views.increment();
+        if (pending.retired) {
+            rescue(videoId, pending);
+        }
+    }
+
+    /**
+     * Counts a served segment as watched time; a negative duration means unknown and counts the nominal length.
+     */
+    public void recordWatch(String videoId, long segmentMillis) {
+        long millis = segmentMillis >= 0 ? segmentMillis : defaultSegmentSeconds * 1000;
+        Counters pending = counters.computeIfAbsent(videoId, id -> new Counters());
+        pending.watchMillis.add(millis);
+        if (pending.retired) {
+            rescue(videoId, pending);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${video.stats.flush-interval-ms:10000}")
+    public void flush() {
+        List<Delta> deltas = drain();
+        if (deltas.isEmpty()) {
+            return;
+        }
+        try {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Video.class);
+            for (Delta delta : deltas) {
+                bulk.updateOne(Query.query(Criteria.where("_id").is(delta.videoId())),
+                        new Update().inc("viewCount", delta.views()).inc("watchTimeSeconds", delta.watchSeconds()));
+            }
+            bulk.execute();
+            log.debug("Flushed view counts of {} videos", deltas.size());
+            evict(deltas);
+        } catch (BulkOperationException e) {
+            // Unordered: every update without a write error was applied and must not be counted again
+            List<Delta> failed = new ArrayList<>();
+            for (BulkWriteError error : e.getErrors()) {
+                failed.add(deltas.get(error.getIndex()));
+            }
+            log.warn("Could not flush view counts of {} of {} videos, retrying next interval: {}",
+                    failed.size(), deltas.size(), e.getMessage());
+            restore(failed);
+            List<Delta> applied = new ArrayList<>(deltas);
+            applied.removeAll(failed);
+            evict(applied);
+        } catch (Exception e) {
+            log.warn("Could not flush view counts of {} videos, retrying next interval: {}", deltas.size(), e.getMessage());
+            restore(deltas);
+        }
+    }
+
+    private void evict(List<Delta> flushed) {
+        if (flushed.isEmpty()) {
+            return;
+        }
+        List<String> videoIds = flushed.stream().map(Delta::videoId).toList();
+        try {
+            Query query = Query.query(Criteria.where("_id").in(videoIds));
+            query.fields().include("userId");
+            for (Video video : mongoTemplate.find(query, Video.class)) {
+                videoCache.evict(video.getId(), video.getUserId());
+            }
+        } catch (Exception e) {
+            log.warn("Could not evict {} videos with new view counts: {}", videoIds.size(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * Takes the pending counts out of the counters. Subtracting what was read, rather than resetting,
+     * never drops an increment that races with the drain. Sub-second watch time stays for the next flush.
+     * Entries idle since the previous drain are removed; an increment that lands on one after its final
+     * drain is moved to a fresh entry by its recorder.
+     */
+    synchronized List<Delta> drain() {
+        List<Delta> deltas = new ArrayList<>();
+        for (Map.Entry<String, Counters> entry : counters.entrySet()) {
+            Counters pending = entry.getValue();
+            long lastMillis = pending.lastMillis;
+            if (!take(entry.getKey(), pending, deltas) && pending.lastMillis == lastMillis) {
+                pending.retired = true;
+                counters.remove(entry.getKey(), pending);
+                // Picks up what was added before the flag became visible
+                take(entry.getKey(), pending, deltas);
+            }
+        }
+        return deltas;
+    }
+
+    private boolean take(String videoId, Counters pending, List<Delta> deltas) {
+        long views = pending.views.sum();
+        long millis = pending.watchMillis.sum();
+        long watchSeconds = millis / 1000;
+        pending.lastMillis = millis - watchSeconds * 1000;
+        if (views == 0 && watchSeconds == 0) {
+            return false;
+        }
+        pending.views.add(-views);
+        pending.watchMillis.add(-watchSeconds * 1000);
+        deltas.add(new Delta(videoId, views, watchSeconds));
+        return true;
+    }
+
+    /**
+     * Moves everything left on a removed entry to the live one. Runs under the same lock as the drain,
+     * so the two never subtract the same counts.
+     */
+    private synchronized void rescue(String videoId, Counters removed) {
+        long views = removed.views.sum();
+        long millis = removed.watchMillis.sum();
+        removed.views.add(-views);
+        removed.watchMillis.add(-millis);
+        Counters pending = counters.computeIfAbsent(videoId, id -> new Counters());
+        pending.views.add(views);
+        pending.watchMillis.add(millis);
+    }
+
+    private void restore(List<Delta> deltas) {
+        for (Delta delta : deltas) {
+            Counters pending = counters.computeIfAbsent(delta.videoId(), id -> new Counters());
+            pending.views.add(delta.views());
+            pending.watchMillis.add(delta.watchSeconds() * 1000);
+            if (pending.retired) {
+                rescue(delta.videoId(), pending);
+            }
+        }
+    }
+
+    /**
+     * Pending (not yet flushed) views of a video.
+     */
+    public long getPendingViews(String videoId) {
+        Counters pending = counters.get(videoId);
+        return pending == null ? 0 : pending.views.sum();
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.arsu.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Stand-in for an S3-compatible bucket on a local directory, in the spirit of MinIO's filesystem mode:
+ * one file per object, parts of multipart uploads kept aside until completion, ETags as MD5 hex.
+ * Objects become visible atomically, like in S3. Meant for development and tests.
+ */
+public class FileSystemObjectStore implements ObjectStoreClient {
+
+    private static final String UPLOADS_DIR = ".uploads";
+
+    private final Path bucket;
+
+    public FileSystemObjectStore(Path bucket) {
+        this.bucket = bucket;
+    }
+
+    @Override
+    public void putObject(String key, Path source) throws IOException {
+        Path staged = stageFile();
+        try (InputStream in = Files.newInputStream(source)) {
+            Files.copy(in, staged, StandardCopyOption.REPLACE_EXISTING);
+        }
+        publish(staged, objectPath(key));
+    }
+
+    @Override
+    public String createMultipartUpload(String key) throws IOException {
+        objectPath(key);
+        String uploadId = UUID.randomUUID().toString().replace("-", "");
+        Files.createDirectories(bucket.resolve(UPLOADS_DIR).resolve(uploadId));
+        return uploadId;
+    }
+
+    @Override
+    public String uploadPart(String key, String uploadId, int partNumber, Path source, long offset, long length)
+            throws IOException {
+        Path part = uploadDir(uploadId).resolve(String.valueOf(partNumber));
+        MessageDigest md5 = md5();
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             OutputStream out = new DigestOutputStream(Files.newOutputStream(part), md5)) {
+            in.position(offset);
+            byte[] buffer = new byte[64 * 1024];
+            ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+            long remaining = length;
+            while (remaining > 0) {
+                wrapped.clear().limit((int) Math.min(buffer.length, remaining));
+                int read = in.read(wrapped);
+                if (read < 0) {
+                    throw new IOException("Part " + partNumber + " runs past the end of " + source);
+                }
+                out.write(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+        return HexFormat.of().formatHex(md5.digest());
+    }
+
+    @Override
+    public void completeMultipartUpload(String key, String uploadId, List<String> partETags) throws IOException {
+        Path uploadDir = uploadDir(uploadId);
+        Path staged = stageFile();
+        try (OutputStream out = Files.newOutputStream(staged)) {
+            for (int i = 0; i < partETags.size(); i++) {
+                Path part = uploadDir.resolve(String.valueOf(i + 1));
+                byte[] bytes = Files.readAllBytes(part);
+                String eTag = HexFormat.of().formatHex(md5().digest(bytes));
+                if (!eTag.equals(partETags.get(i))) {
+                    throw new IOException("ETag mismatch for part " + (i + 1) + " of " + key);
+                }
+                out.write(bytes);
+            }
+        }
+        publish(staged, objectPath(key));
+        deleteRecursively(uploadDir);
+    }
+
+    @Override
+    public void abortMultipartUpload(String key, String uploadId) throws IOException {
+        deleteRecursively(uploadDir(uploadId));
+    }
+
+    @Override
+    public boolean getObject(String key, Path target) throws IOException {
+        try (InputStream in = Files.newInputStream(objectPath(key))) {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public List<String> listObjects(String prefix) throws IOException {
+        List<String> keys = new ArrayList<>();
+        if (!Files.isDirectory(bucket)) {
+            return keys;
+        }
+        try (Stream<Path> paths = Files.walk(bucket)) {
+            paths.filter(Files::isRegularFile)
+                    .map(path -> bucket.relativize(path).toString().replace('\\', '/'))
+                    .filter(key -> key.startsWith(prefix) && !key.startsWith(UPLOADS_DIR + "/"))
+                    .sorted()
+                    .forEach(keys::add);
+        }
+        return keys;
+    }
+
+    @Override
+    public void deleteObjects(List<String> keys) throws IOException {
+        for (String key : keys) {
+            Files.deleteIfExists(objectPath(key));
+        }
+    }
+
+    private Path objectPath(String key) {
+        if (key.isEmpty() || key.startsWith(UPLOADS_DIR)) {
+            throw new IllegalArgumentException("Invalid object key: " + key);
+        }
+        return LocalDiskStorage.resolveInside(bucket, key);
+    }
+
+    private Path uploadDir(String uploadId) throws IOException {
+        Path dir = LocalDiskStorage.resolveInside(bucket.resolve(UPLOADS_DIR), uploadId);
+        if (!Files.isDirectory(dir)) {
+            throw new IOException("No such multipart upload: " + uploadId);
+        }
+        return dir;
+    }
+
+    private Path stageFile() throws IOException {
+        Path uploads = bucket.resolve(UPLOADS_DIR);
+        Files.createDirectories(uploads);
+        return Files.createTempFile(uploads, "object", ".tmp");
+    }
+
+    private void publish(Path staged, Path object) throws IOException {
+        Files.createDirectories(object.getParent());
+        Files.move(staged, object, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+}
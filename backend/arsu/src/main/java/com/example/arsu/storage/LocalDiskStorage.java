@@ -0,0 +1,145 @@
+package com.example.arsu.storage;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Videos on one or more local data disks, each under the sharded layout of {@link StorageLayout}.
+ * A new video goes to the disk with the most usable space; an existing one is found by probing the disks,
+ * and directories from before sharding (directly under a root) are still found where they are.
+ */
+public class LocalDiskStorage implements VideoStorage {
+    private static final Logger log = LoggerFactory.getLogger(LocalDiskStorage.class);
+
+    static final String INCOMING_DIR = ".incoming";
+
+    private final List<Path> roots;
+    private final long minFreeBytes;
+
+    // Where each recently used video was found; a video never moves between disks
+    private final Cache<String, Path> directories = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .build();
+
+    public LocalDiskStorage(List<Path> roots, long minFreeBytes) {
+        if (roots.isEmpty()) {
+            throw new IllegalArgumentException("At least one storage root is required");
+        }
+        this.roots = List.copyOf(roots);
+        this.minFreeBytes = minFreeBytes;
+    }
+
+    @Override
+    public Path incomingDirectory() throws IOException {
+        Path incoming = chooseRoot().resolve(INCOMING_DIR);
+        Files.createDirectories(incoming);
+        return incoming;
+    }
+
+    @Override
+    public Path create(String storageId) throws IOException {
+        Path existing = directory(storageId);
+        if (existing != null) {
+            return existing;
+        }
+        Path dir = chooseRoot().resolve(StorageLayout.shardedPath(storageId));
+        Files.createDirectories(dir);
+        directories.put(storageId, dir);
+        return dir;
+    }
+
+    @Override
+    public Path directory(String storageId) {
+        StorageLayout.validate(storageId);
+        Path cached = directories.getIfPresent(storageId);
+        if (cached != null && Files.isDirectory(cached)) {
+            return cached;
+        }
+        String sharded = StorageLayout.shardedPath(storageId);
+        for (Path root : roots) {
+            for (Path candidate : new Path[]{root.resolve(sharded), root.resolve(storageId)}) {
+                if (Files.isDirectory(candidate)) {
+                    directories.put(storageId, candidate);
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Path file(String storageId, String relativePath) {
+        Path dir = directory(storageId);
+        if (dir == null) {
+            return null;
+        }
+        Path file = resolveInside(dir, relativePath);
+        return Files.isRegularFile(file) ? file : null;
+    }
+
+    /**
+     * Local disks are already durable.
+     */
+    @Override
+    public void commit(String storageId) {
+    }
+
+    @Override
+    public void delete(String storageId) throws IOException {
+        Path dir = directory(storageId);
+        directories.invalidate(storageId);
+        if (dir == null) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+        log.debug("Deleted storage directory {}", dir);
+    }
+
+    /**
+     * Resolves a relative path inside a video directory, refusing anything that would leave it.
+     */
+    static Path resolveInside(Path dir, String relativePath) {
+        Path file = dir.resolve(relativePath).normalize();
+        if (!file.startsWith(dir) || file.equals(dir)) {
+            throw new IllegalArgumentException("Invalid file path: " + relativePath);
+        }
+        return file;
+    }
+
+    /**
+     * The data disk with the most usable space, provided it keeps at least minFreeBytes free.
+     */
+    private Path chooseRoot() throws IOException {
+        Path best = null;
+        long bestFree = -1;
+        for (Path root : roots) {
+            try {
+                Files.createDirectories(root);
+                long free = Files.getFileStore(root).getUsableSpace();
+                if (free > bestFree) {
+                    best = root;
+                    bestFree = free;
+                }
+            } catch (IOException e) {
+                log.warn("Storage root {} is unavailable: {}", root, e.getMessage());
+            }
+        }
+        if (best == null || bestFree < minFreeBytes) {
+            throw new IOException("No storage root has " + minFreeBytes + " bytes free");
+        }
+        return best;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.arsu.storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * The subset of the S3 API the object-store backend needs: single and multipart PUT, GET, list by prefix
+ * and delete. Parts of one multipart upload may be uploaded concurrently and in any order.
+ * {@link S3ObjectStore} talks to a real bucket; {@link FileSystemObjectStore} stands in for one locally.
+ */
+public interface ObjectStoreClient {
+
+    void putObject(String key, Path source) throws IOException;
+
+    /**
+     * Starts a multipart upload and returns its upload id.
+     */
+    String createMultipartUpload(String key) throws IOException;
+
+    /**
+     * Uploads length bytes of the source starting at offset as part partNumber (from 1) and returns its ETag.
+     */
+    String uploadPart(String key, String uploadId, int partNumber, Path source, long offset, long length)
+            throws IOException;
+
+    /**
+     * Assembles the object from the parts, whose ETags are given in part order.
+     */
+    void completeMultipartUpload(String key, String uploadId, List<String> partETags) throws IOException;
+
+    void abortMultipartUpload(String key, String uploadId) throws IOException;
+
+    /**
+     * Downloads the object to the target file. Returns false if the object does not exist.
+     */
+    boolean getObject(String key, Path target) throws IOException;
+
+    List<String> listObjects(String prefix) throws IOException;
+
+    void deleteObjects(List<String> keys) throws IOException;
+}
@@ -0,0 +1,249 @@
+package com.example.arsu.storage;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/**
+ * Videos in an S3-compatible object store, keyed by the same sharded layout as on disk.
+ * Uploads and transcodes are staged on local disk; {@link #commit} uploads the staged files, large ones
+ * (originals, long segments) as multipart uploads whose parts go up in parallel. Reads are served from
+ * the local copy and fetched from the bucket into it on a miss, so streaming still sends local files.
+ * Committed and fetched files stay on local disk as a cache of at most localCacheBytes that deletes the
+ * least used ones first; files not committed yet are never evicted. Local copies left by an earlier run
+ * are not tracked and stay until their video is deleted.
+ */
+public class ObjectStoreStorage implements VideoStorage {
+    private static final Logger log = LoggerFactory.getLogger(ObjectStoreStorage.class);
+
+    private final LocalDiskStorage staging;
+    private final ObjectStoreClient client;
+    private final long partSizeBytes;
+    private final ExecutorService uploadExecutor;
+
+    // Local copies of files that are safe in the bucket, by object key, weighed by their size
+    private final Cache<String, LocalCopy> localCopies;
+
+    /**
+     * A local file as it was when it was committed or fetched.
+     */
+    private record LocalCopy(Path path, long size, long lastModified) {
+    }
+
+    public ObjectStoreStorage(LocalDiskStorage staging, ObjectStoreClient client, long partSizeBytes,
+                              int uploadThreads, long localCacheBytes) {
+        this.staging = staging;
+        this.client = client;
+        this.partSizeBytes = partSizeBytes;
+        this.localCopies = Caffeine.newBuilder()
+                .maximumWeight(localCacheBytes)
+                .weigher((String key, LocalCopy copy) -> (int) Math.min(Integer.MAX_VALUE, copy.size()))
+                .removalListener((String key, LocalCopy copy, RemovalCause cause) -> {
+                    if (copy != null && cause != RemovalCause.REPLACED) {
+                        deleteLocalCopy(copy);
+                    }
+                })
+                // Deletes run on the thread that caused the eviction, not on the common pool
+                .executor(Runnable::run)
+                .build();
+        this.uploadExecutor = Executors.newFixedThreadPool(uploadThreads, runnable -> {
+            Thread thread = new Thread(runnable, "storage-upload");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Stops the upload threads; called by Spring when the context closes.
+     */
+    public void shutdown() {
+        uploadExecutor.shutdown();
+    }
+
+    @Override
+    public Path incomingDirectory() throws IOException {
+        return staging.incomingDirectory();
+    }
+
+    @Override
+    public Path create(String storageId) throws IOException {
+        return staging.create(storageId);
+    }
+
+    @Override
+    public Path directory(String storageId) {
+        return staging.directory(storageId);
+    }
+
+    @Override
+    public Path file(String storageId, String relativePath) throws IOException {
+        String key = key(storageId, relativePath);
+        Path local = staging.file(storageId, relativePath);
+        if (local != null) {
+            // Counts as a use, so files being streamed are evicted last
+            localCopies.getIfPresent(key);
+            return local;
+        }
+        // Fetched aside first, so a missing object never leaves an empty directory behind
+        Path temp = Files.createTempFile(staging.incomingDirectory(), "fetch", ".tmp");
+        try {
+            if (!client.getObject(key, temp)) {
+                return null;
+            }
+            Path target = LocalDiskStorage.resolveInside(staging.create(storageId), relativePath);
+            Files.createDirectories(target.getParent());
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            track(key, target);
+            return target;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public void commit(String storageId) throws IOException {
+        Path dir = staging.directory(storageId);
+        if (dir == null) {
+            throw new IOException("Nothing staged for " + storageId);
+        }
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(dir)) {
+            files = paths.filter(Files::isRegularFile)
+                    .filter(path -> !path.getFileName().toString().endsWith(".tmp"))
+                    .toList();
+        }
+
+        List<String> keys = new ArrayList<>(files.size());
+        List<CompletableFuture<Void>> uploads = new ArrayList<>(files.size());
+        long bytes = 0;
+        for (Path file : files) {
+            String key = key(storageId, dir.relativize(file).toString().replace('\\', '/'));
+            long size = Files.size(file);
+            bytes += size;
+            keys.add(key);
+            uploads.add(size > partSizeBytes
+                    ? uploadMultipart(key, file, size)
+                    : CompletableFuture.runAsync(() -> put(key, file), uploadExecutor));
+        }
+        try {
+            CompletableFuture.allOf(uploads.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            throw new IOException("Failed to upload " + storageId + " to the object store", e.getCause());
+        }
+        // Only now may the local copies go; they are fetched again if they are read after eviction
+        for (int i = 0; i < files.size(); i++) {
+            track(keys.get(i), files.get(i));
+        }
+        log.info("Committed {} files ({} bytes) of {} to the object store", files.size(), bytes, storageId);
+    }
+
+    @Override
+    public void delete(String storageId) throws IOException {
+        String prefix = StorageLayout.shardedPath(storageId) + "/";
+        List<String> keys = client.listObjects(prefix);
+        if (!keys.isEmpty()) {
+            client.deleteObjects(keys);
+        }
+        localCopies.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+        staging.delete(storageId);
+    }
+
+    private void track(String key, Path file) throws IOException {
+        localCopies.put(key, new LocalCopy(file, Files.size(file), Files.getLastModifiedTime(file).toMillis()));
+    }
+
+    /**
+     * Deletes an evicted local copy, unless the file was rewritten since (e.g. by a re-transcode that has
+     * not been committed yet).
+     */
+    private void deleteLocalCopy(LocalCopy copy) {
+        try {
+            if (Files.getLastModifiedTime(copy.path()).toMillis() == copy.lastModified()) {
+                Files.deleteIfExists(copy.path());
+            }
+        } catch (NoSuchFileException e) {
+            // Already gone, e.g. with its video
+        } catch (IOException e) {
+            log.warn("Could not delete local copy {}: {}", copy.path(), e.getMessage());
+        }
+    }
+
+    /**
+     * Uploads every part on the executor; the upload is completed, or aborted, by whichever part finishes last.
+     * Nothing here blocks an executor thread, so commits never starve each other of upload threads.
+     */
+    private CompletableFuture<Void> uploadMultipart(String key, Path file, long size) {
+        String uploadId;
+        try {
+            uploadId = client.createMultipartUpload(key);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        int partCount = (int) ((size + partSizeBytes - 1) / partSizeBytes);
+        List<CompletableFuture<String>> parts = new ArrayList<>(partCount);
+        for (int i = 0; i < partCount; i++) {
+            int partNumber = i + 1;
+            long offset = i * partSizeBytes;
+            long length = Math.min(partSizeBytes, size - offset);
+            parts.add(CompletableFuture.supplyAsync(() -> uploadPart(key, uploadId, partNumber, file, offset, length),
+                    uploadExecutor));
+        }
+        return CompletableFuture.allOf(parts.toArray(new CompletableFuture[0]))
+                .thenRun(() -> {
+                    List<String> eTags = parts.stream().map(CompletableFuture::join).toList();
+                    try {
+                        client.completeMultipartUpload(key, uploadId, eTags);
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                })
+                .whenComplete((ignored, failure) -> {
+                    if (failure != null) {
+                        abort(key, uploadId);
+                    }
+                });
+    }
+
+    private void put(String key, Path file) {
+        try {
+            client.putObject(key, file);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private String uploadPart(String key, String uploadId, int partNumber, Path file, long offset, long length) {
+        try {
+            return client.uploadPart(key, uploadId, partNumber, file, offset, length);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private void abort(String key, String uploadId) {
+        try {
+            client.abortMultipartUpload(key, uploadId);
+        } catch (IOException e) {
+            log.warn("Could not abort multipart upload {} of {}: {}", uploadId, key, e.getMessage());
+        }
+    }
+
+    private String key(String storageId, String relativePath) {
+        return StorageLayout.shardedPath(storageId) + "/" + relativePath;
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.arsu.storage;
+
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.Delete;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ObjectStoreClient on an S3 bucket through the AWS SDK, or on any S3-compatible store (MinIO, Ceph)
+ * when the client is built with an endpoint override. SDK failures surface as IOExceptions.
+ */
+public class S3ObjectStore implements ObjectStoreClient {
+
+    // Most keys a single DeleteObjects request accepts
+    private static final int DELETE_BATCH = 1000;
+
+    private final S3Client s3;
+    private final String bucket;
+
+    public S3ObjectStore(S3Client s3, String bucket) {
+        this.s3 = s3;
+        this.bucket = bucket;
+    }
+
+    @Override
+    public void putObject(String key, Path source) throws IOException {
+        try {
+            s3.putObject(request -> request.bucket(bucket).key(key), RequestBody.fromFile(source));
+        } catch (SdkException e) {
+            throw failure("put " + key, e);
+        }
+    }
+
+    @Override
+    public String createMultipartUpload(String key) throws IOException {
+        try {
+            return s3.createMultipartUpload(request -> request.bucket(bucket).key(key)).uploadId();
+        } catch (SdkException e) {
+            throw failure("start multipart upload of " + key, e);
+        }
+    }
+
+    @Override
+    public String uploadPart(String key, String uploadId, int partNumber, Path source, long offset, long length)
+            throws IOException {
+        // Reopened on every attempt, so the SDK can retry the part without buffering it
+        RequestBody body = RequestBody.fromContentProvider(() -> openSlice(source, offset, length), length,
+                "application/octet-stream");
+        try {
+            return s3.uploadPart(request -> request.bucket(bucket).key(key).uploadId(uploadId)
+                    .partNumber(partNumber).contentLength(length), body).eTag();
+        } catch (SdkException | UncheckedIOException e) {
+            throw failure("upload part " + partNumber + " of " + key, e);
+        }
+    }
+
+    @Override
+    public void completeMultipartUpload(String key, String uploadId, List<String> partETags) throws IOException {
+        List<CompletedPart> parts = new ArrayList<>(partETags.size());
+        for (int i = 0; i < partETags.size(); i++) {
+            parts.add(CompletedPart.builder().partNumber(i + 1).eTag(partETags.get(i)).build());
+        }
+        try {
+            s3.completeMultipartUpload(request -> request.bucket(bucket).key(key).uploadId(uploadId)
+                    .multipartUpload(upload -> upload.parts(parts)));
+        } catch (SdkException e) {
+            throw failure("complete multipart upload of " + key, e);
+        }
+    }
+
+    @Override
+    public void abortMultipartUpload(String key, String uploadId) throws IOException {
+        try {
+            s3.abortMultipartUpload(request -> request.bucket(bucket).key(key).uploadId(uploadId));
+        } catch (SdkException e) {
+            throw failure("abort multipart upload of " + key, e);
+        }
+    }
+
+    @Override
+    public boolean getObject(String key, Path target) throws IOException {
+        try (ResponseInputStream<GetObjectResponse> in = s3.getObject(request -> request.bucket(bucket).key(key))) {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } catch (NoSuchKeyException e) {
+            return false;
+        } catch (SdkException e) {
+            throw failure("get " + key, e);
+        }
+    }
+
+    @Override
+    public List<String> listObjects(String prefix) throws IOException {
+        List<String> keys = new ArrayList<>();
+        try {
+            for (S3Object object : s3.listObjectsV2Paginator(request -> request.bucket(bucket).prefix(prefix))
+                    .contents()) {
+                keys.add(object.key());
+            }
+        } catch (SdkException e) {
+            throw failure("list " + prefix, e);
+        }
+        return keys;
+    }
+
+    @Override
+    public void deleteObjects(List<String> keys) throws IOException {
+        for (int from = 0; from < keys.size(); from += DELETE_BATCH) {
+            List<ObjectIdentifier> batch = keys.subList(from, Math.min(keys.size(), from + DELETE_BATCH)).stream()
+                    .map(key -> ObjectIdentifier.builder().key(key).build())
+                    .toList();
+            DeleteObjectsResponse response;
+            try {
+                response = s3.deleteObjects(request -> request.bucket(bucket)
+                        .delete(Delete.builder().objects(batch).quiet(true).build()));
+            } catch (SdkException e) {
+                throw failure("delete " + batch.size() + " objects", e);
+            }
+            if (response.hasErrors() && !response.errors().isEmpty()) {
+                throw new IOException("Could not delete " + response.errors().size() + " objects from " + bucket
+                        + ", e.g. " + response.errors().get(0).key() + ": " + response.errors().get(0).message());
+            }
+        }
+    }
+
+    private IOException failure(String action, RuntimeException e) {
+        return new IOException("Could not " + action + " in bucket " + bucket + ": " + e.getMessage(), e);
+    }
+
+    private static InputStream openSlice(Path source, long offset, long length) {
+        try {
+            FileChannel channel = FileChannel.open(source, StandardOpenOption.READ);
+            channel.position(offset);
+            return new SliceInputStream(Channels.newInputStream(channel), length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads at most length bytes of the underlying stream.
+     */
+    private static final class SliceInputStream extends InputStream {
+        private final InputStream in;
+        private long remaining;
+
+        SliceInputStream(InputStream in, long length) {
+            this.in = in;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = in.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = in.read(buffer, off, (int) Math.min(len, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.arsu.storage;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reports the node down for uploads when the storage backend has no disk left to receive one on.
+ * The local backend only hands out an incoming directory on a root that keeps its minimum free space.
+ */
+@Component
+public class StorageHealthIndicator extends AbstractHealthIndicator {
+
+    @Autowired
+    private VideoStorage videoStorage;
+
+    public StorageHealthIndicator() {
+        super("Video storage health check failed");
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) throws Exception {
+        Path incoming = videoStorage.incomingDirectory();
+        FileStore store = Files.getFileStore(incoming);
+        builder.up()
+                .withDetail("path", incoming.toString())
+                .withDetail("free", store.getUsableSpace())
+                .withDetail("total", store.getTotalSpace());
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.arsu.storage;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Hash-sharded layout of video directories: {@code 3f/a2/<storageId>}. Mongo ids start with a timestamp,
+ * so the two levels of 256 shards are taken from a hash of the id to spread videos evenly; a few million
+ * videos leave some tens of entries per directory.
+ */
+public final class StorageLayout {
+
+    private static final Pattern STORAGE_ID_PATTERN = Pattern.compile("[A-Za-z0-9]+");
+
+    private StorageLayout() {
+    }
+
+    /**
+     * Path of the video's directory relative to a storage root, '/'-separated.
+     *
+     * @throws IllegalArgumentException if the id could escape its directory
+     */
+    public static String shardedPath(String storageId) {
+        validate(storageId);
+        String hash = sha256Hex(storageId);
+        return hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + storageId;
+    }
+
+    /**
+     * Checks that a storage id is a plain alphanumeric name.
+     */
+    public static void validate(String storageId) {
+        if (storageId == null || !STORAGE_ID_PATTERN.matcher(storageId).matches()) {
+            throw new IllegalArgumentException("Invalid storage id: " + storageId);
+        }
+    }
+
+    private static String sha256Hex(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
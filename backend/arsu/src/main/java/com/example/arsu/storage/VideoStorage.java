@@ -0,0 +1,43 @@
+package com.example.arsu.storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Where videos' files live, addressed by storage id (see Video#getStorageId) and a path relative to the
+ * video's directory. Uploading and transcoding work on a local directory; backends that keep the files
+ * elsewhere stage them locally and publish them with {@link #commit}.
+ */
+public interface VideoStorage {
+
+    /**
+     * Directory for uploads in progress; files in it are moved into a video directory once accepted.
+     */
+    Path incomingDirectory() throws IOException;
+
+    /**
+     * Creates the local directory of a new video on the data disk chosen for it, or returns the existing one.
+     */
+    Path create(String storageId) throws IOException;
+
+    /**
+     * Local directory of a video, or null if nothing of it is stored locally.
+     */
+    Path directory(String storageId);
+
+    /**
+     * Local path of one of a video's files, fetched first if it is only held remotely,
+     * or null if it does not exist.
+     */
+    Path file(String storageId, String relativePath) throws IOException;
+
+    /**
+     * Makes the video's current local files durable in the backend, e.g. once transcoding finished.
+     */
+    void commit(String storageId) throws IOException;
+
+    /**
+     * Deletes every file of the video.
+     */
+    void delete(String storageId) throws IOException;
+}
@@ -0,0 +1,226 @@
+package com.example.arsu.streaming;
+
+import com.example.arsu.storage.VideoStorage;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Bounded in-memory cache of every playlist of a video, keyed by video id, plus the durations of the
+ * segments they list and the validators HTTP caching uses for all of the video's files. A hit never
+ * touches Mongo or the filesystem. Only finished manifests are cached; playlists that are still being
+ * written (EVENT playlists during progressive playback) are re-read on every request.
+ */
+@Component
+public class ManifestCache {
+
+    @Value("${video.manifest-cache.max-bytes:16777216}")
+    private long maxBytes;
+
+    @Autowired
+    private MasterPlaylistGenerator masterPlaylistGenerator;
+
+    @Autowired
+    private VideoStorage videoStorage;
+
+    private Cache<String, CachedManifests> cache;
+
+    private record CachedManifests(Map<String, byte[]> playlists, Map<String, Long> segmentMillis,
+                                   Version version) {
+    }
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String videoId, CachedManifests manifests) -> weigh(manifests))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Validators of a finished video, shared by its playlists and segments. The tag is a hash of every
+     * playlist; a re-transcode rewrites the master playlist with bandwidths measured from the new segments,
+     * so it changes whenever the segments do. lastModified is the newest playlist's modification time.
+     */
+    public record Version(String eTag, long lastModified) {
+    }
+
+    /**
+     * Playlist bytes plus, once the video's manifests are final and safe for clients to cache, their version.
+     */
+    public record Manifest(byte[] content, Version version) {
+
+        public boolean finished() {
+            return version != null;
+        }
+    }
+
+    /**
+     * Returns the playlist, or null if the video or playlist does not exist.
+     */
+    public Manifest getPlaylist(String videoId, String fileName) throws IOException {
+        CachedManifests manifests = lookup(videoId);
+        byte[] content = manifests.playlists().get(fileName);
+        return content == null ? null : new Manifest(content, manifests.version());
+    }
+
+    /**
+     * Version of a finished video, or null if it does not exist or is still being transcoded.
+     * Reads the playlists on a miss, never the segments.
+     */
+    public Version getVersion(String videoId) throws IOException {
+        return lookup(videoId).version();
+    }
+
+    /**
+     * Version of a finished video whose manifests are cached, or null otherwise. Never reads the
+     * filesystem, so it is safe on the segment serving path; serving a playlist caches its video's version.
+     */
+    public Version getCachedVersion(String videoId) {
+        CachedManifests cached = cache.getIfPresent(videoId);
+        return cached == null ? null : cached.version();
+    }
+
+    /**
+     * Duration of a segment in milliseconds, or -1 if the video's manifests are not cached.
+     * Never reads the filesystem, so it is safe on the segment serving path.
+     */
+    public long getSegmentMillis(String videoId, String segmentName) {
+        CachedManifests cached = cache.getIfPresent(videoId);
+        if (cached == null) {
+            return -1;
+        }
+        Long millis = cached.segmentMillis().get(segmentName);
+        return millis == null ? -1 : millis;
+    }
+
+    /**
+     * Drops the cached manifests of a video, e.g. after it was re-transcoded or deleted.
+     */
+    public void invalidate(String videoId) {
+        cache.invalidate(videoId);
+    }
+
+    public long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    public long getSize() {
+        return cache.estimatedSize();
+    }
+
+    private CachedManifests lookup(String videoId) throws IOException {
+        CachedManifests cached = cache.getIfPresent(videoId);
+        if (cached != null) {
+            return cached;
+        }
+        long[] lastModified = {0};
+        Map<String, byte[]> manifests = load(videoId, lastModified);
+        Map<String, Long> segmentMillis = finishedSegmentDurations(manifests);
+        if (segmentMillis == null) {
+            return new CachedManifests(manifests, null, null);
+        }
+        CachedManifests finished = new CachedManifests(manifests, segmentMillis,
+                new Version(hash(manifests), lastModified[0]));
+        cache.put(videoId, finished);
+        return finished;
+    }
+
+    private Map<String, byte[]> load(String videoId, long[] lastModified) throws IOException {
+        // The playlist names are fixed, so they are looked up rather than listed; remote backends fetch them
+        Map<String, byte[]> manifests = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        names.add(MasterPlaylistGenerator.MASTER_PLAYLIST);
+        for (Rendition rendition : Rendition.values()) {
+            names.add(rendition.getPlaylistName());
+        }
+        for (String name : names) {
+            Path playlist = videoStorage.file(videoId, name);
+            if (playlist != null) {
+                manifests.put(name, Files.readAllBytes(playlist));
+                lastModified[0] = Math.max(lastModified[0], Files.getLastModifiedTime(playlist).toMillis());
+            }
+        }
+
+        // Videos transcoded before master playlists existed get one generated on the fly
+        Path videoDir = videoStorage.directory(videoId);
+        if (videoDir != null && !manifests.isEmpty()
+                && !manifests.containsKey(MasterPlaylistGenerator.MASTER_PLAYLIST)) {
+            String master = masterPlaylistGenerator.generate(videoDir, null);
+            if (master != null) {
+                manifests.put(MasterPlaylistGenerator.MASTER_PLAYLIST, master.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return manifests;
+    }
+
+    /**
+     * Segment durations of a finished video, or null if any playlist is still being written.
+     */
+    private Map<String, Long> finishedSegmentDurations(Map<String, byte[]> manifests) {
+        if (!manifests.containsKey(MasterPlaylistGenerator.MASTER_PLAYLIST)) {
+            return null;
+        }
+        Map<String, Long> segmentMillis = new HashMap<>();
+        for (Map.Entry<String, byte[]> entry : manifests.entrySet()) {
+            if (entry.getKey().equals(MasterPlaylistGenerator.MASTER_PLAYLIST)) {
+                continue;
+            }
+            String content = new String(entry.getValue(), StandardCharsets.UTF_8);
+            MediaPlaylist playlist = MediaPlaylist.parse(content);
+            if (!playlist.isEndList() || "EVENT".equals(playlist.getPlaylistType())) {
+                return null;
+            }
+            for (MediaPlaylist.Segment segment : playlist.getSegments()) {
+                segmentMillis.put(segment.uri(), Math.round(segment.duration() * 1000));
+            }
+        }
+        return segmentMillis;
+    }
+
+    private String hash(Map<String, byte[]> manifests) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String name : new TreeSet<>(manifests.keySet())) {
+                digest.update(name.getBytes(StandardCharsets.UTF_8));
+                digest.update(manifests.get(name));
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 12);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private int weigh(CachedManifests manifests) {
+        int bytes = 0;
+        for (Map.Entry<String, byte[]> entry : manifests.playlists().entrySet()) {
+            bytes += entry.getKey().length() + entry.getValue().length;
+        }
+        // Key plus a rough allowance for the boxed duration and map entry
+        for (String segment : manifests.segmentMillis().keySet()) {
+            bytes += segment.length() + 48;
+        }
+        return bytes;
+    }
+}
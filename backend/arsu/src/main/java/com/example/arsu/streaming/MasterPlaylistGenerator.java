@@ -0,0 +1,99 @@
+package com.example.arsu.streaming;
+
+import com.example.arsu.model.MediaInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Builds the adaptive-bitrate master playlist from the renditions that actually exist on disk.
+ * BANDWIDTH is the peak segment bitrate and AVERAGE-BANDWIDTH the mean over the whole rendition,
+ * both measured from the segment files, so hls.js switches on real numbers rather than targets.
+ */
+@Component
+public class MasterPlaylistGenerator {
+    private static final Logger log = LoggerFactory.getLogger(MasterPlaylistGenerator.class);
+
+    public static final String MASTER_PLAYLIST = "master.m3u8";
+
+    /**
+     * Generates the master playlist for a video directory, or null if no rendition is playable yet.
+     * RESOLUTION is the actual scaled size when the source is known, the rendition box otherwise.
+     */
+    public String generate(Path videoDir, MediaInfo source) throws IOException {
+        StringBuilder master = new StringBuilder()
+                .append("#EXTM3U\n")
+                .append("#EXT-X-VERSION:3\n")
+                .append("#EXT-X-INDEPENDENT-SEGMENTS\n");
+
+        int variants = 0;
+        for (Rendition rendition : Rendition.values()) {
+            Path playlistFile = videoDir.resolve(rendition.getPlaylistName());
+            if (!Files.isRegularFile(playlistFile)) {
+                continue;
+            }
+            MediaPlaylist playlist = MediaPlaylist.parse(Files.readString(playlistFile));
+            long[] bandwidth = measureBandwidth(videoDir, playlist);
+            if (bandwidth == null) {
+                log.debug("Skipping incomplete rendition {} in {}", rendition.getQuality(), videoDir);
+                continue;
+            }
+
+            int[] resolution = source != null
+                    ? rendition.outputSize(source.getWidth(), source.getHeight())
+                    : new int[]{rendition.getWidth(), rendition.getHeight()};
+            master.append("#EXT-X-STREAM-INF:BANDWIDTH=").append(bandwidth[0])
+                    .append(",AVERAGE-BANDWIDTH=").append(bandwidth[1])
+                    .append(",RESOLUTION=").append(resolution[0]).append('x').append(resolution[1])
+                    .append(",CODECS=\"").append(rendition.getCodecs()).append("\"\n")
+                    .append(rendition.getPlaylistName()).append('\n');
+            variants++;
+        }
+        return variants == 0 ? null : master.toString();
+    }
+
+    /**
+     * Writes master.m3u8 next to the media playlists, replacing any previous one atomically.
+     */
+    public void writeMasterPlaylist(Path videoDir, MediaInfo source) throws IOException {
+        String master = generate(videoDir, source);
+        if (master == null) {
+            throw new IOException("No playable renditions in " + videoDir);
+        }
+        Path tempFile = videoDir.resolve(MASTER_PLAYLIST + ".tmp");
+        Files.writeString(tempFile, master, StandardCharsets.UTF_8);
+        Files.move(tempFile, videoDir.resolve(MASTER_PLAYLIST),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Returns {peak, average} bits per second, or null if a referenced segment is missing.
+     */
+    private long[] measureBandwidth(Path videoDir, MediaPlaylist playlist) throws IOException {
+        if (playlist.getSegments().isEmpty()) {
+            return null;
+        }
+        double peak = 0;
+        long totalBytes = 0;
+        for (MediaPlaylist.Segment segment : playlist.getSegments()) {
+            Path segmentFile = videoDir.resolve(segment.uri());
+            if (!Files.isRegularFile(segmentFile)) {
+                return null;
+            }
+            long size = Files.size(segmentFile);
+            totalBytes += size;
+            if (segment.duration() > 0) {
+                peak = Math.max(peak, size * 8 / segment.duration());
+            }
+        }
+        double totalDuration = playlist.getTotalDuration();
+        long average = totalDuration > 0 ? (long) Math.ceil(totalBytes * 8 / totalDuration) : 0;
+        return new long[]{(long) Math.ceil(peak), average};
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.arsu.streaming;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Minimal parsed view of an HLS media playlist: its segments and whether it is finished.
+ */
+public class MediaPlaylist {
+
+    private final int targetDuration;
+    private final long mediaSequence;
+    private final String playlistType;
+    private final boolean endList;
+    private final List<Segment> segments;
+
+    private MediaPlaylist(int targetDuration, long mediaSequence, String playlistType, boolean endList,
+                          List<Segment> segments) {
+        this.targetDuration = targetDuration;
+        this.mediaSequence = mediaSequence;
+        this.playlistType = playlistType;
+        this.endList = endList;
+        this.segments = Collections.unmodifiableList(segments);
+    }
+
+    /**
+     * Parses the tags this application writes and reads; unknown tags are ignored.
+     */
+    public static MediaPlaylist parse(String content) {
+        int targetDuration = 0;
+        long mediaSequence = 0;
+        String playlistType = null;
+        boolean endList = false;
+        List<Segment> segments = new ArrayList<>();
+
+        double pendingDuration = -1;
+        for (String rawLine : content.split("\n")) {
+            String line = rawLine.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            if (line.startsWith("#EXTINF:")) {
+                int comma = line.indexOf(',');
+                pendingDuration = Double.parseDouble(line.substring(8, comma < 0 ? line.length() : comma));
+            } else if (line.startsWith("#EXT-X-TARGETDURATION:")) {
+                targetDuration = Integer.parseInt(line.substring(22));
+            } else if (line.startsWith("#EXT-X-MEDIA-SEQUENCE:")) {
+                mediaSequence = Long.parseLong(line.substring(22));
+            } else if (line.startsWith("#EXT-X-PLAYLIST-TYPE:")) {
+                playlistType = line.substring(21);
+            } else if (line.equals("#EXT-X-ENDLIST")) {
+                endList = true;
+            } else if (!line.startsWith("#") && pendingDuration >= 0) {
+                segments.add(new Segment(line, pendingDuration));
+                pendingDuration = -1;
+            }
+        }
+        return new MediaPlaylist(targetDuration, mediaSequence, playlistType, endList, segments);
+    }
+
+    public int getTargetDuration() {
+        return targetDuration;
+    }
+
+    public long getMediaSequence() {
+        return mediaSequence;
+    }
+
+    public String getPlaylistType() {
+        return playlistType;
+    }
+
+    public boolean isEndList() {
+        return endList;
+    }
+
+    public List<Segment> getSegments() {
+        return segments;
+    }
+
+    public double getTotalDuration() {
+        double total = 0;
+        for (Segment segment : segments) {
+            total += segment.duration();
+        }
+        return total;
+    }
+
+    public record Segment(String uri, double duration) {
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.arsu.streaming;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Layout of a video's poster and seek-preview sprite sheets, and the WebVTT track that indexes them.
+ * Thumbnails are taken every interval, letterboxed to a fixed tile size and packed row by row into
+ * sheets of COLUMNS x ROWS tiles. A transcode may produce the thumbnails in several time ranges (chunks),
+ * each with its own run of sheets. Every file name carries the version of the transcode that wrote it,
+ * so the files never change under a URL and can be cached as immutable.
+ */
+public final class PreviewSprites {
+
+    public static final String DIR = "previews";
+    public static final int TILE_WIDTH = 160;
+    public static final int TILE_HEIGHT = 90;
+    public static final int COLUMNS = 10;
+    public static final int ROWS = 10;
+
+    /**
+     * File names of a finished set of previews, relative to the previews directory.
+     */
+    public record Previews(String poster, String track) {
+    }
+
+    private PreviewSprites() {
+    }
+
+    /**
+     * Filter chain that turns one video stream into sprite sheets of one thumbnail per interval.
+     */
+    public static String spriteFilter(double intervalSeconds) {
+        return String.format(Locale.ROOT, "fps=1/%s,scale=w=%d:h=%d:force_original_aspect_ratio=decrease,"
+                        + "pad=%d:%d:(ow-iw)/2:(oh-ih)/2,tile=%dx%d",
+                trimNumber(intervalSeconds), TILE_WIDTH, TILE_HEIGHT, TILE_WIDTH, TILE_HEIGHT, COLUMNS, ROWS);
+    }
+
+    /**
+     * Filter chain that yields the poster frame at the given time; the output takes its first frame.
+     */
+    public static String posterFilter(double atSeconds, int width) {
+        return String.format(Locale.ROOT, "trim=start=%s,setpts=PTS-STARTPTS,scale=w=%d:h=-2",
+                trimNumber(atSeconds), width);
+    }
+
+    public static String posterName(String version) {
+        return "poster_" + version + ".jpg";
+    }
+
+    public static String trackName(String version) {
+        return "thumbnails_" + version + ".vtt";
+    }
+
+    /**
+     * ffmpeg image2 pattern of the sheets of one chunk, numbered from 0.
+     */
+    public static String spritePattern(String version, int chunk) {
+        return "sprite_" + version + "_" + chunk + "_%03d.jpg";
+    }
+
+    public static String spriteName(String version, int chunk, int sheet) {
+        return String.format(Locale.ROOT, "sprite_%s_%d_%03d.jpg", version, chunk, sheet);
+    }
+
+    /**
+     * WebVTT track with one cue per thumbnail, pointing at its tile through a media fragment (#xywh).
+     * ranges holds the {start, end} seconds of each chunk, in order.
+     */
+    public static String webVtt(String version, List<double[]> ranges, double intervalSeconds) {
+        StringBuilder vtt = new StringBuilder("WEBVTT\n");
+        int tilesPerSheet = COLUMNS * ROWS;
+        for (int chunk = 0; chunk < ranges.size(); chunk++) {
+            double start = ranges.get(chunk)[0];
+            double end = ranges.get(chunk)[1];
+            int thumbnails = (int) Math.ceil((end - start) / intervalSeconds - 1e-9);
+            for (int i = 0; i < thumbnails; i++) {
+                double cueStart = start + i * intervalSeconds;
+                double cueEnd = Math.min(end, cueStart + intervalSeconds);
+                int tile = i % tilesPerSheet;
+                vtt.append('\n')
+                        .append(timestamp(cueStart)).append(" --> ").append(timestamp(cueEnd)).append('\n')
+                        .append(spriteName(version, chunk, i / tilesPerSheet))
+                        .append("#xywh=").append((tile % COLUMNS) * TILE_WIDTH).append(',')
+                        .append((tile / COLUMNS) * TILE_HEIGHT).append(',')
+                        .append(TILE_WIDTH).append(',').append(TILE_HEIGHT).append('\n');
+            }
+        }
+        return vtt.toString();
+    }
+
+    private static String timestamp(double seconds) {
+        long millis = Math.round(seconds * 1000);
+        return String.format(Locale.ROOT, "%02d:%02d:%02d.%03d",
+                millis / 3_600_000, millis / 60_000 % 60, millis / 1000 % 60, millis % 1000);
+    }
+
+    private static String trimNumber(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.format(Locale.ROOT, "%.3f", value);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.arsu.streaming;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The HLS rendition ladder, lowest first. The transcoder encodes the subset that does not upscale the source.
+ */
+public enum Rendition {
+    P240("240p", 426, 240, 800, "avc1.64001e"),
+    P480("480p", 854, 480, 1500, "avc1.64001e"),
+    P720("720p", 1280, 720, 3000, "avc1.64001f"),
+    P1080("1080p", 1920, 1080, 5000, "avc1.640028");
+
+    private final String quality;
+    private final int width;
+    private final int height;
+    private final int bitrateKbps;
+    private final String codecs;
+
+    Rendition(String quality, int width, int height, int bitrateKbps, String codecs) {
+        this.quality = quality;
+        this.width = width;
+        this.height = height;
+        this.bitrateKbps = bitrateKbps;
+        this.codecs = codecs;
+    }
+
+    public String getQuality() {
+        return quality;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getBitrateKbps() {
+        return bitrateKbps;
+    }
+
+    public String getCodecs() {
+        return codecs;
+    }
+
+    public String getPlaylistName() {
+        return quality + ".m3u8";
+    }
+
+    /**
+     * Output size after scaling a source into this rendition's box without changing its aspect ratio,
+     * rounded down to even dimensions as libx264 requires.
+     */
+    public int[] outputSize(int sourceWidth, int sourceHeight) {
+        double factor = Math.min(1.0, Math.min((double) width / sourceWidth, (double) height / sourceHeight));
+        int outWidth = Math.max(2, (int) (sourceWidth * factor) / 2 * 2);
+        int outHeight = Math.max(2, (int) (sourceHeight * factor) / 2 * 2);
+        return new int[]{outWidth, outHeight};
+    }
+
+    /**
+     * Whether encoding the source into this rendition would upscale it.
+     */
+    public boolean upscales(int sourceWidth, int sourceHeight) {
+        return width > sourceWidth && height > sourceHeight;
+    }
+
+    /**
+     * Renditions at or below the source resolution, lowest first. The lowest rendition is always
+     * included so that even tiny sources get something playable.
+     */
+    public static List<Rendition> ladderFor(int sourceWidth, int sourceHeight) {
+        List<Rendition> ladder = new ArrayList<>();
+        for (Rendition rendition : values()) {
+            if (ladder.isEmpty() || !rendition.upscales(sourceWidth, sourceHeight)) {
+                ladder.add(rendition);
+            }
+        }
+        return ladder;
+    }
+
+    /**
+     * Looks up a rendition by its quality label (e.g. "720p"), or null if unknown.
+     */
+    public static Rendition fromQuality(String quality) {
+        for (Rendition rendition : values()) {
+            if (rendition.quality.equals(quality)) {
+                return rendition;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.arsu.streaming;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size-bounded LRU cache of HLS segments held in direct (off-heap) buffers.
+ * Segment bytes are read straight from the file channel into native memory, so hot segments
+ * are served from memory without the heap ever holding their contents.
+ */
+@Component
+public class SegmentCache {
+    private static final Logger log = LoggerFactory.getLogger(SegmentCache.class);
+
+    @Value("${video.segment-cache.max-bytes:268435456}")
+    private long maxBytes;
+
+    @Value("${video.segment-cache.max-entry-bytes:16777216}")
+    private long maxEntryBytes;
+
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, ByteBuffer> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long sizeBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Returns a read-only view of the cached segment, or null if it is not cached.
+     */
+    public ByteBuffer get(String videoId, String fileName) {
+        ByteBuffer buffer;
+        synchronized (entries) {
+            buffer = entries.get(key(videoId, fileName));
+        }
+        if (buffer == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * Whether the segment is cached, without counting a hit or miss or touching its recency.
+     */
+    public boolean contains(String videoId, String fileName) {
+        synchronized (entries) {
+            return entries.containsKey(key(videoId, fileName));
+        }
+    }
+
+    /**
+     * Reads the segment file into native memory and caches it, typically right after a miss.
+     * Returns a read-only view, or null if the segment is too large to cache.
+     */
+    public ByteBuffer load(String videoId, String fileName, Path file) throws IOException {
+        ByteBuffer loaded = readFile(file);
+        if (loaded == null) {
+            return null;
+        }
+        return put(videoId, fileName, loaded).asReadOnlyBuffer();
+    }
+
+    /**
+     * Drops every cached segment of a video, e.g. when its storage directory is deleted.
+     */
+    public void invalidateVideo(String videoId) {
+        String prefix = videoId + "/";
+        synchronized (entries) {
+            Iterator<Map.Entry<String, ByteBuffer>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, ByteBuffer> entry = iterator.next();
+                if (entry.getKey().startsWith(prefix)) {
+                    sizeBytes -= entry.getValue().capacity();
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getSizeBytes() {
+        synchronized (entries) {
+            return sizeBytes;
+        }
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    private ByteBuffer readFile(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > maxEntryBytes || size > maxBytes) {
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.allocateDirect((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("Unexpected end of file: " + file);
+                }
+            }
+            buffer.flip();
+            return buffer;
+        }
+    }
+
+    private ByteBuffer put(String videoId, String fileName, ByteBuffer buffer) {
+        String key = key(videoId, fileName);
+        synchronized (entries) {
+            // Another request may have loaded the same segment meanwhile; keep the first copy
+            ByteBuffer existing = entries.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            entries.put(key, buffer);
+            sizeBytes += buffer.capacity();
+
+            Iterator<Map.Entry<String, ByteBuffer>> eldest = entries.entrySet().iterator();
+            while (sizeBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<String, ByteBuffer> entry = eldest.next();
+                if (entry.getKey().equals(key)) {
+                    continue;
+                }
+                sizeBytes -= entry.getValue().capacity();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+        log.debug("Cached segment {} ({} bytes)", key, buffer.capacity());
+        return buffer;
+    }
+
+    private String key(String videoId, String fileName) {
+        return videoId + "/" + fileName;
+    }
+}
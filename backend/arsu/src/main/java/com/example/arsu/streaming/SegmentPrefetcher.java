@@ -0,0 +1,172 @@
+package com.example.arsu.streaming;
+
+import com.example.arsu.storage.VideoStorage;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Read-ahead for sequential HLS playback. When a rendition's segments are requested in order, the next
+ * few are loaded into the segment cache before the player asks for them; segments too large to cache are
+ * mapped and paged in, so at least the page cache is warm. Prefetches run on a small low-priority pool
+ * whose backlog is capped at {@code video.prefetch.queue-capacity} tasks; beyond that they are dropped, so
+ * they cannot crowd out the reads players are waiting on.
+ */
+@Component
+public class SegmentPrefetcher {
+    private static final Logger log = LoggerFactory.getLogger(SegmentPrefetcher.class);
+
+    // <quality>_<index>.ts, as written by the transcoder
+    private static final Pattern SEGMENT_PATTERN = Pattern.compile("([A-Za-z0-9]+)_(\\d+)\\.ts");
+
+    @Value("${video.prefetch.enabled:true}")
+    private boolean enabled;
+
+    @Value("${video.prefetch.depth:2}")
+    private int depth;
+
+    @Value("${video.prefetch.threads:2}")
+    private int threads;
+
+    @Value("${video.prefetch.queue-capacity:32}")
+    private int queueCapacity;
+
+    @Autowired
+    private VideoStorage videoStorage;
+
+    @Autowired
+    private SegmentCache segmentCache;
+
+    private ThreadPoolExecutor executor;
+
+    // Last segment index requested per video and rendition; stale entries are simply forgotten
+    private final Cache<String, Integer> lastRequested = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterAccess(Duration.ofMinutes(2))
+            .build();
+
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder prefetched = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "segment-prefetch");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Notes a demand request for a segment and, if it continues a sequential run (or starts playback),
+     * schedules the following segments of the same rendition.
+     */
+    public void onSegmentRequested(String storageId, String fileName) {
+        if (!enabled || depth <= 0) {
+            return;
+        }
+        Matcher matcher = SEGMENT_PATTERN.matcher(fileName);
+        if (!matcher.matches()) {
+            return;
+        }
+        String quality = matcher.group(1);
+        String digits = matcher.group(2);
+        int index = Integer.parseInt(digits);
+
+        Integer previous = lastRequested.asMap().put(storageId + "/" + quality, index);
+        boolean sequential = previous == null ? index == 0 : index == previous + 1;
+        if (!sequential) {
+            return;
+        }
+        // Most were scheduled by the previous request already; cached and in-flight ones are skipped
+        for (int next = index + 1; next <= index + depth; next++) {
+            String nextName = quality + "_" + String.format("%0" + digits.length() + "d", next) + ".ts";
+            schedule(storageId, nextName);
+        }
+    }
+
+    public long getPrefetchedCount() {
+        return prefetched.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    private void schedule(String storageId, String fileName) {
+        if (segmentCache.contains(storageId, fileName)) {
+            return;
+        }
+        String key = storageId + "/" + fileName;
+        if (!inFlight.add(key)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    prefetch(storageId, fileName);
+                } finally {
+                    inFlight.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key);
+            dropped.increment();
+        }
+    }
+
+    private void prefetch(String storageId, String fileName) {
+        try {
+            Path file = videoStorage.file(storageId, fileName);
+            if (file == null) {
+                // Past the last segment, or not transcoded yet
+                return;
+            }
+            if (segmentCache.load(storageId, fileName, file) == null) {
+                warmPageCache(file);
+            }
+            prefetched.increment();
+        } catch (IOException | RuntimeException e) {
+            log.debug("Could not prefetch {}/{}: {}", storageId, fileName, e.getMessage());
+        }
+    }
+
+    /**
+     * Maps the file and touches every page, the portable counterpart of madvise(MADV_WILLNEED).
+     */
+    private void warmPageCache(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).load();
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.example.arsu.streaming;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.connector.CoyoteOutputStream;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Writes files to the response without copying their contents through the heap.
+ * Single ranges (and whole files) are handed to Tomcat's sendfile support when the connector
+ * offers it, so the kernel copies them to the socket. Otherwise, and for multi-range responses, file
+ * regions are mapped and written, like cached segments held in direct buffers, from native memory into
+ * Tomcat's socket buffer. Only when the output stream is not Tomcat's own (e.g. a filter wrapped the
+ * response) are the bytes copied through a heap buffer. Bytes sent are counted per content type.
+ */
+@Component
+public class ZeroCopyFileSender {
+
+    private static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    // Largest file region mapped at once when writing outside of sendfile
+    private static final long MAP_CHUNK = 16L * 1024 * 1024;
+
+    private final Map<String, LongAdder> bytesSent = new ConcurrentHashMap<>();
+
+    /**
+     * Sends the file honoring the request's Range header (200, 206 or 416).
+     */
+    public void send(HttpServletRequest request, HttpServletResponse response, Path file, String contentType)
+            throws IOException {
+        send(request, response, Files.size(file), contentType, new FileBody(file));
+    }
+
+    /**
+     * Sends in-memory (typically direct) content honoring the request's Range header.
+     */
+    public void send(HttpServletRequest request, HttpServletResponse response, ByteBuffer content, String contentType)
+            throws IOException {
+        send(request, response, content.remaining(), contentType, new BufferBody(content));
+    }
+
+    private void send(HttpServletRequest request, HttpServletResponse response, long length, String contentType,
+                      Body body) throws IOException {
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        List<HttpRange> ranges;
+        try {
+            ranges = HttpRange.parseRanges(request.getHeader(HttpHeaders.RANGE));
+        } catch (IllegalArgumentException e) {
+            sendRangeNotSatisfiable(response, length);
+            return;
+        }
+
+        if (ranges.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(contentType);
+            response.setContentLengthLong(length);
+            body.send(request, response, 0, length);
+            countSent(contentType, length);
+            return;
+        }
+
+        long[][] regions = new long[ranges.size()][];
+        try {
+            for (int i = 0; i < ranges.size(); i++) {
+                HttpRange range = ranges.get(i);
+                long start = range.getRangeStart(length);
+                long end = range.getRangeEnd(length);
+                if (start >= length || start > end) {
+                    throw new IllegalArgumentException("Range " + range + " outside of " + length + " bytes");
+                }
+                regions[i] = new long[]{start, end};
+            }
+        } catch (IllegalArgumentException e) {
+            sendRangeNotSatisfiable(response, length);
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        if (regions.length == 1) {
+            long start = regions[0][0];
+            long end = regions[0][1];
+            response.setContentType(contentType);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            response.setContentLengthLong(end - start + 1);
+            body.send(request, response, start, end - start + 1);
+            countSent(contentType, end - start + 1);
+            return;
+        }
+
+        sendMultipartRanges(response, body, contentType, length, regions);
+    }
+
+    private void sendMultipartRanges(HttpServletResponse response, Body body, String contentType, long length,
+                                     long[][] regions) throws IOException {
+        String boundary = UUID.randomUUID().toString().replace("-", "");
+        byte[][] partHeaders = new byte[regions.length][];
+        byte[] closing = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+
+        long contentLength = closing.length;
+        for (int i = 0; i < regions.length; i++) {
+            partHeaders[i] = ("\r\n--" + boundary + "\r\n"
+                    + HttpHeaders.CONTENT_TYPE + ": " + contentType + "\r\n"
+                    + HttpHeaders.CONTENT_RANGE + ": bytes " + regions[i][0] + "-" + regions[i][1] + "/" + length
+                    + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+            contentLength += partHeaders[i].length + regions[i][1] - regions[i][0] + 1;
+        }
+
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(contentLength);
+
+        OutputStream out = response.getOutputStream();
+        for (int i = 0; i < regions.length; i++) {
+            out.write(partHeaders[i]);
+            body.write(out, regions[i][0], regions[i][1] - regions[i][0] + 1);
+        }
+        out.write(closing);
+        out.flush();
+        for (long[] region : regions) {
+            countSent(contentType, region[1] - region[0] + 1);
+        }
+    }
+
+    /**
+     * Body bytes sent (or handed to sendfile) so far for a content type.
+     */
+    public long getBytesSent(String contentType) {
+        LongAdder sent = bytesSent.get(contentType);
+        return sent == null ? 0 : sent.sum();
+    }
+
+    private void countSent(String contentType, long bytes) {
+        bytesSent.computeIfAbsent(contentType, type -> new LongAdder()).add(bytes);
+    }
+
+    private static void transferTo(FileChannel channel, long position, long count, WritableByteChannel target)
+            throws IOException {
+        while (count > 0) {
+            long transferred = channel.transferTo(position, count, target);
+            if (transferred <= 0) {
+                throw new IOException("Unexpected end of file at position " + position);
+            }
+            position += transferred;
+            count -= transferred;
+        }
+    }
+
+    private void sendRangeNotSatisfiable(HttpServletResponse response, long length) {
+        response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+    }
+
+    /**
+     * Source of the response bytes.
+     */
+    private interface Body {
+        /**
+         * Writes a region as the entire response body.
+         */
+        void send(HttpServletRequest request, HttpServletResponse response, long start, long count) throws IOException;
+
+        /**
+         * Writes a region into an already started body (one part of a multipart response).
+         */
+        void write(OutputStream out, long start, long count) throws IOException;
+    }
+
+    private static final class FileBody implements Body {
+        private final Path file;
+
+        private FileBody(Path file) {
+            this.file = file;
+        }
+
+        @Override
+        public void send(HttpServletRequest request, HttpServletResponse response, long start, long count)
+                throws IOException {
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR))) {
+                // Tomcat writes the region with transferTo straight to the socket after the servlet returns
+                request.setAttribute(SENDFILE_FILENAME_ATTR, file.toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START_ATTR, start);
+                request.setAttribute(SENDFILE_END_ATTR, start + count);
+                return;
+            }
+            OutputStream out = response.getOutputStream();
+            write(out, start, count);
+            out.flush();
+        }
+
+        @Override
+        public void write(OutputStream out, long start, long count) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                if (!(out instanceof CoyoteOutputStream coyoteOut)) {
+                    transferTo(channel, start, count, Channels.newChannel(out));
+                    return;
+                }
+                // Tomcat copies the mapped pages into its socket buffer without a heap detour
+                for (long position = start; position < start + count; position += MAP_CHUNK) {
+                    long size = Math.min(MAP_CHUNK, start + count - position);
+                    coyoteOut.write(channel.map(FileChannel.MapMode.READ_ONLY, position, size));
+                }
+            }
+        }
+    }
+
+    private static final class BufferBody implements Body {
+        private final ByteBuffer content;
+
+        private BufferBody(ByteBuffer content) {
+            this.content = content;
+        }
+
+        @Override
+        public void send(HttpServletRequest request, HttpServletResponse response, long start, long count)
+                throws IOException {
+            OutputStream out = response.getOutputStream();
+            write(out, start, count);
+            out.flush();
+        }
+
+        @Override
+        public void write(OutputStream out, long start, long count) throws IOException {
+            ByteBuffer region = content.duplicate();
+            region.position(content.position() + (int) start);
+            region.limit(region.position() + (int) count);
+            if (out instanceof CoyoteOutputStream coyoteOut) {
+                // Copies native memory into Tomcat's socket buffer without a heap detour
+                coyoteOut.write(region);
+            } else {
+                // Not Tomcat's stream: the channel adapter copies through a heap array
+                Channels.newChannel(out).write(region);
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.arsu.trending;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Count-Min sketch of request counts per key: {@code depth} rows of {@code width} counters.
+ * <p>
+ * Error bounds, with N the total of all counts added: an estimate is never below the true count, and with
+ * probability at least {@code 1 - delta} it exceeds the true count by at most {@code epsilon * N}, where
+ * {@code epsilon = e / width} and {@code delta = e^-depth}. The default 2048 x 4 sketch gives
+ * epsilon ~ 0.13% of N and delta ~ 1.8%, in 64 KiB. Sketches of the same dimensions merge by adding their
+ * counters, and the merged sketch has the same bounds with N the combined total.
+ * <p>
+ * Updates are lock-free. Hashing only uses {@link String#hashCode()}, so every node maps a key to the same
+ * counters and sketches built on different nodes can be merged.
+ */
+public final class CountMinSketch {
+
+    private final int width;
+    private final int depth;
+    private final AtomicLongArray counters;
+    private final LongAdder total = new LongAdder();
+
+    /**
+     * @param width counters per row; must be a power of two
+     * @param depth number of rows, i.e. independent hash functions
+     */
+    public CountMinSketch(int width, int depth) {
+        if (width <= 0 || Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("Sketch width must be a power of two: " + width);
+        }
+        if (depth <= 0) {
+            throw new IllegalArgumentException("Sketch depth must be positive: " + depth);
+        }
+        this.width = width;
+        this.depth = depth;
+        this.counters = new AtomicLongArray(width * depth);
+    }
+
+    /**
+     * Smallest sketch that guarantees the given overestimate fraction (of N) and failure probability.
+     */
+    public static CountMinSketch withErrorBounds(double epsilon, double delta) {
+        int width = Integer.highestOneBit((int) Math.ceil(Math.E / epsilon) - 1) << 1;
+        int depth = (int) Math.ceil(Math.log(1 / delta));
+        return new CountMinSketch(Math.max(width, 1), Math.max(depth, 1));
+    }
+
+    /**
+     * Adds one occurrence of the key and returns its new estimate.
+     */
+    public long add(String key) {
+        return add(key, 1);
+    }
+
+    public long add(String key, long count) {
+        int h1 = mix(key.hashCode());
+        int h2 = mix(h1 ^ 0x9E3779B9) | 1;
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int column = (h1 + row * h2) & (width - 1);
+            estimate = Math.min(estimate, counters.addAndGet(row * width + column, count));
+        }
+        total.add(count);
+        return estimate;
+    }
+
+    public long estimate(String key) {
+        int h1 = mix(key.hashCode());
+        int h2 = mix(h1 ^ 0x9E3779B9) | 1;
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int column = (h1 + row * h2) & (width - 1);
+            estimate = Math.min(estimate, counters.get(row * width + column));
+        }
+        return estimate;
+    }
+
+    /**
+     * Adds the other sketch's counts to this one.
+     *
+     * @throws IllegalArgumentException if the dimensions differ
+     */
+    public void merge(CountMinSketch other) {
+        if (other.width != width || other.depth != depth) {
+            throw new IllegalArgumentException("Cannot merge a " + other.width + "x" + other.depth
+                    + " sketch into a " + width + "x" + depth + " sketch");
+        }
+        for (int i = 0; i < counters.length(); i++) {
+            long value = other.counters.get(i);
+            if (value != 0) {
+                counters.addAndGet(i, value);
+            }
+        }
+        total.add(other.total());
+    }
+
+    /**
+     * N, the total of all counts added.
+     */
+    public long total() {
+        return total.sum();
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public double getEpsilon() {
+        return Math.E / width;
+    }
+
+    public double getDelta() {
+        return Math.exp(-depth);
+    }
+
+    /**
+     * Largest overestimate that holds with probability 1 - delta: epsilon * N.
+     */
+    public long getErrorBound() {
+        return (long) Math.ceil(getEpsilon() * total());
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(width);
+        out.writeInt(depth);
+        out.writeLong(total());
+        for (int i = 0; i < counters.length(); i++) {
+            out.writeLong(counters.get(i));
+        }
+    }
+
+    static CountMinSketch readFrom(DataInputStream in) throws IOException {
+        CountMinSketch sketch = new CountMinSketch(in.readInt(), in.readInt());
+        sketch.total.add(in.readLong());
+        for (int i = 0; i < sketch.counters.length(); i++) {
+            sketch.counters.set(i, in.readLong());
+        }
+        return sketch;
+    }
+
+    // Murmur3 finalizer: spreads String.hashCode() over all bits before masking
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
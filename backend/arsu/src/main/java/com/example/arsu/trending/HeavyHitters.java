@@ -0,0 +1,61 @@
+package com.example.arsu.trending;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded set of the keys with the highest sketch estimates seen so far, i.e. the top-K candidates of a bucket.
+ * Keys already held, and offers at or below the smallest held count once full, never take the lock.
+ * Any key whose estimate exceeds the smallest held count when it is offered is kept.
+ */
+final class HeavyHitters {
+
+    private final int capacity;
+    private final ConcurrentHashMap<String, Long> counts = new ConcurrentHashMap<>();
+
+    // Smallest held count once full, 0 before; only ever lags behind the real minimum
+    private volatile long floor;
+
+    HeavyHitters(int capacity) {
+        this.capacity = capacity;
+    }
+
+    void offer(String key, long count) {
+        if (count <= floor) {
+            return;
+        }
+        if (counts.computeIfPresent(key, (k, current) -> Math.max(current, count)) != null) {
+            return;
+        }
+        synchronized (this) {
+            if (counts.containsKey(key)) {
+                counts.merge(key, count, Math::max);
+                return;
+            }
+            if (counts.size() >= capacity) {
+                String smallest = null;
+                long min = Long.MAX_VALUE;
+                for (Map.Entry<String, Long> entry : counts.entrySet()) {
+                    if (entry.getValue() < min) {
+                        min = entry.getValue();
+                        smallest = entry.getKey();
+                    }
+                }
+                if (count <= min) {
+                    floor = min;
+                    return;
+                }
+                counts.remove(smallest);
+            }
+            counts.put(key, count);
+            if (counts.size() >= capacity) {
+                floor = counts.values().stream().mapToLong(Long::longValue).min().orElse(0);
+            }
+        }
+    }
+
+    Map<String, Long> snapshot() {
+        return new HashMap<>(counts);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.arsu.trending;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+/**
+ * Request counts of one time bucket on one node: a Count-Min sketch plus its heavy-hitter candidates.
+ * Serialized as a compact binary blob for exchange through Redis.
+ */
+final class TrendingBucket {
+    private static final int FORMAT_VERSION = 1;
+
+    private final long start;
+    private final CountMinSketch sketch;
+    private final HeavyHitters candidates;
+
+    TrendingBucket(long start, int width, int depth, int candidateCapacity) {
+        this(start, new CountMinSketch(width, depth), new HeavyHitters(candidateCapacity));
+    }
+
+    private TrendingBucket(long start, CountMinSketch sketch, HeavyHitters candidates) {
+        this.start = start;
+        this.sketch = sketch;
+        this.candidates = candidates;
+    }
+
+    void record(String videoId) {
+        candidates.offer(videoId, sketch.add(videoId));
+    }
+
+    long getStart() {
+        return start;
+    }
+
+    CountMinSketch getSketch() {
+        return sketch;
+    }
+
+    void offerCandidate(String videoId, long estimate) {
+        candidates.offer(videoId, estimate);
+    }
+
+    /**
+     * Candidate keys with their estimates at the time they were last offered.
+     */
+    Map<String, Long> getCandidates() {
+        return candidates.snapshot();
+    }
+
+    byte[] toBytes() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(sketch.getWidth() * sketch.getDepth() * 8 + 1024);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(start);
+            sketch.writeTo(out);
+            Map<String, Long> snapshot = candidates.snapshot();
+            out.writeInt(snapshot.size());
+            for (Map.Entry<String, Long> entry : snapshot.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue());
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @throws IOException if the blob is truncated or of an unknown format
+     */
+    static TrendingBucket fromBytes(byte[] blob) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(blob));
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unknown trending bucket format " + version);
+        }
+        long start = in.readLong();
+        CountMinSketch sketch = CountMinSketch.readFrom(in);
+        int size = in.readInt();
+        HeavyHitters candidates = new HeavyHitters(Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            candidates.offer(in.readUTF(), in.readLong());
+        }
+        return new TrendingBucket(start, sketch, candidates);
+    }
+}
@@ -0,0 +1,324 @@
+package com.example.arsu.trending;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Approximate trending ranking by request volume over the last hour and the last day.
+ * <p>
+ * Every streaming request is added to the node's current bucket of each window: a Count-Min sketch plus a
+ * bounded set of heavy-hitter candidates, so no per-video event log is kept. Nodes publish their buckets to
+ * Redis, and every node periodically merges all nodes' buckets of a window into one sketch and ranks the
+ * union of their candidates by the merged estimates, so every instance serves the same ranking.
+ * Buckets that can no longer change are merged once and kept. Without Redis the ranking covers this node only.
+ * <p>
+ * A ranked count never undercounts and, with probability 1 - delta, overcounts by at most epsilon times
+ * the window's total requests; see {@link CountMinSketch}. That bound is reported with every ranking.
+ */
+@Component
+public class TrendingService {
+    private static final Logger log = LoggerFactory.getLogger(TrendingService.class);
+
+    private static final String KEY_PREFIX = "trending:";
+    private static final TrendingWindow[] WINDOWS = TrendingWindow.values();
+
+    @Value("${trending.sketch.width:2048}")
+    private int sketchWidth;
+
+    @Value("${trending.sketch.depth:4}")
+    private int sketchDepth;
+
+    @Value("${trending.candidates:100}")
+    private int candidateCapacity;
+
+    @Value("${trending.publish-interval-ms:10000}")
+    private long publishIntervalMs;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Map<TrendingWindow, LocalBuckets> local = new EnumMap<>(TrendingWindow.class);
+    private final Map<TrendingWindow, Ranking> rankings = new ConcurrentHashMap<>();
+
+    // Cluster-wide merged buckets that are past their last publish, by window and bucket start
+    private final Map<TrendingWindow, Map<Long, TrendingBucket>> settled = new EnumMap<>(TrendingWindow.class);
+
+    /**
+     * Videos ranked by estimated requests, plus the overestimate bound that applies to every count.
+     */
+    public record Ranking(List<Entry> entries, long errorBound, long totalRequests) {
+    }
+
+    public record Entry(String videoId, long requests) {
+    }
+
+    @PostConstruct
+    public void init() {
+        for (TrendingWindow window : WINDOWS) {
+            local.put(window, new LocalBuckets(window));
+            settled.put(window, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Counts one streaming request for the video. Lock-free except when a bucket rolls over.
+     */
+    public void record(String videoId) {
+        long now = System.currentTimeMillis();
+        for (TrendingWindow window : WINDOWS) {
+            local.get(window).current(now).record(videoId);
+        }
+    }
+
+    /**
+     * The latest ranking of the window, at most limit entries.
+     */
+    public Ranking getTrending(TrendingWindow window, int limit) {
+        Ranking ranking = rankings.get(window);
+        if (ranking == null) {
+            ranking = rank(window, localBuckets(window, System.currentTimeMillis()));
+        }
+        List<Entry> entries = ranking.entries();
+        return new Ranking(entries.subList(0, Math.min(limit, entries.size())),
+                ranking.errorBound(), ranking.totalRequests());
+    }
+
+    /**
+     * Publishes this node's open buckets, and each closed bucket one last time.
+     */
+    @Scheduled(fixedDelayString = "${trending.publish-interval-ms:10000}")
+    public void publish() {
+        for (TrendingWindow window : WINDOWS) {
+            List<TrendingBucket> pending = local.get(window).takeUnpublished();
+            if (pending.isEmpty()) {
+                continue;
+            }
+            long ttlSeconds = (window.getWindowMillis() + 2 * window.getBucketMillis()) / 1000;
+            try {
+                redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    for (TrendingBucket bucket : pending) {
+                        byte[] nodesKey = bytes(nodesKey(window, bucket.getStart()));
+                        connection.stringCommands().setEx(bytes(bucketKey(window, bucket.getStart(), nodeId)),
+                                ttlSeconds, bucket.toBytes());
+                        connection.setCommands().sAdd(nodesKey, bytes(nodeId));
+                        connection.keyCommands().expire(nodesKey, ttlSeconds);
+                    }
+                    return null;
+                });
+            } catch (Exception e) {
+                log.debug("Could not publish {} trending buckets: {}", window.getLabel(), e.getMessage());
+                local.get(window).republish(pending);
+            }
+        }
+    }
+
+    /**
+     * Re-ranks every window from the buckets of all nodes.
+     */
+    @Scheduled(fixedDelayString = "${trending.refresh-interval-ms:30000}")
+    public void refresh() {
+        long now = System.currentTimeMillis();
+        for (TrendingWindow window : WINDOWS) {
+            List<TrendingBucket> buckets;
+            try {
+                buckets = clusterBuckets(window, now);
+            } catch (Exception e) {
+                log.debug("Ranking {} trending from local counts only: {}", window.getLabel(), e.getMessage());
+                buckets = localBuckets(window, now);
+            }
+            rankings.put(window, rank(window, buckets));
+        }
+    }
+
+    private List<TrendingBucket> clusterBuckets(TrendingWindow window, long now) {
+        Map<Long, TrendingBucket> settledBuckets = settled.get(window);
+        long oldest = window.bucketStart(now) - window.getWindowMillis();
+        settledBuckets.keySet().removeIf(start -> start < oldest);
+
+        List<TrendingBucket> buckets = new ArrayList<>();
+        for (long start = oldest; start <= now; start += window.getBucketMillis()) {
+            TrendingBucket bucket = settledBuckets.get(start);
+            if (bucket == null) {
+                bucket = readMerged(window, start);
+                // Nodes publish a closed bucket within one interval; after two it is final
+                if (bucket != null && start + window.getBucketMillis() + 2 * publishIntervalMs < now) {
+                    settledBuckets.put(start, bucket);
+                }
+            }
+            if (bucket != null) {
+                buckets.add(bucket);
+            }
+        }
+        return buckets;
+    }
+
+    private TrendingBucket readMerged(TrendingWindow window, long start) {
+        List<byte[]> blobs = redisTemplate.execute((RedisCallback<List<byte[]>>) connection -> readBlobs(connection, window, start));
+        if (blobs == null || blobs.isEmpty()) {
+            return null;
+        }
+        TrendingBucket merged = new TrendingBucket(start, sketchWidth, sketchDepth, Integer.MAX_VALUE);
+        for (byte[] blob : blobs) {
+            if (blob == null) {
+                continue;
+            }
+            try {
+                merge(merged, TrendingBucket.fromBytes(blob));
+            } catch (IOException | IllegalArgumentException e) {
+                log.warn("Skipping unreadable {} trending bucket: {}", window.getLabel(), e.getMessage());
+            }
+        }
+        return merged;
+    }
+
+    private List<byte[]> readBlobs(RedisConnection connection, TrendingWindow window, long start) {
+        Set<byte[]> nodes = connection.setCommands().sMembers(bytes(nodesKey(window, start)));
+        if (nodes == null || nodes.isEmpty()) {
+            return List.of();
+        }
+        byte[][] keys = new byte[nodes.size()][];
+        int i = 0;
+        for (byte[] node : nodes) {
+            keys[i++] = bytes(bucketKey(window, start, new String(node, StandardCharsets.UTF_8)));
+        }
+        return connection.stringCommands().mGet(keys);
+    }
+
+    private List<TrendingBucket> localBuckets(TrendingWindow window, long now) {
+        long oldest = window.bucketStart(now) - window.getWindowMillis();
+        List<TrendingBucket> buckets = new ArrayList<>();
+        for (TrendingBucket bucket : local.get(window).all()) {
+            if (bucket.getStart() >= oldest) {
+                buckets.add(bucket);
+            }
+        }
+        return buckets;
+    }
+
+    /**
+     * Merges the window's buckets into one sketch and ranks the union of their candidates by it.
+     * Ties are broken by video id so every node orders them the same way.
+     */
+    Ranking rank(TrendingWindow window, List<TrendingBucket> buckets) {
+        CountMinSketch merged = new CountMinSketch(sketchWidth, sketchDepth);
+        Set<String> candidates = new HashSet<>();
+        for (TrendingBucket bucket : buckets) {
+            merged.merge(bucket.getSketch());
+            candidates.addAll(bucket.getCandidates().keySet());
+        }
+        List<Entry> entries = new ArrayList<>(candidates.size());
+        for (String videoId : candidates) {
+            entries.add(new Entry(videoId, merged.estimate(videoId)));
+        }
+        entries.sort(Comparator.comparingLong(Entry::requests).reversed().thenComparing(Entry::videoId));
+        if (entries.size() > candidateCapacity) {
+            entries = new ArrayList<>(entries.subList(0, candidateCapacity));
+        }
+        return new Ranking(List.copyOf(entries), merged.getErrorBound(), merged.total());
+    }
+
+    private void merge(TrendingBucket into, TrendingBucket from) {
+        into.getSketch().merge(from.getSketch());
+        for (Map.Entry<String, Long> candidate : from.getCandidates().entrySet()) {
+            into.offerCandidate(candidate.getKey(), candidate.getValue());
+        }
+    }
+
+    private String bucketKey(TrendingWindow window, long start, String node) {
+        return KEY_PREFIX + window.getLabel() + ":" + start + ":" + node;
+    }
+
+    private String nodesKey(TrendingWindow window, long start) {
+        return KEY_PREFIX + window.getLabel() + ":" + start + ":nodes";
+    }
+
+    private static byte[] bytes(String key) {
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * This node's buckets of one window: the open one plus the closed ones still inside the window.
+     */
+    private final class LocalBuckets {
+        private final TrendingWindow window;
+        private final Deque<TrendingBucket> closed = new ArrayDeque<>();
+        private final Set<TrendingBucket> unpublished = new HashSet<>();
+        private volatile TrendingBucket current;
+
+        LocalBuckets(TrendingWindow window) {
+            this.window = window;
+            this.current = newBucket(window.bucketStart(System.currentTimeMillis()));
+        }
+
+        TrendingBucket current(long now) {
+            TrendingBucket bucket = current;
+            if (now < bucket.getStart() + window.getBucketMillis()) {
+                return bucket;
+            }
+            synchronized (this) {
+                if (now >= current.getStart() + window.getBucketMillis()) {
+                    closed.addLast(current);
+                    unpublished.add(current);
+                    while (closed.size() > window.getBuckets()) {
+                        unpublished.remove(closed.removeFirst());
+                    }
+                    current = newBucket(window.bucketStart(now));
+                }
+                return current;
+            }
+        }
+
+        /**
+         * Closed buckets not yet published, plus the open bucket.
+         */
+        synchronized List<TrendingBucket> takeUnpublished() {
+            List<TrendingBucket> pending = new ArrayList<>(unpublished);
+            unpublished.clear();
+            pending.add(current(System.currentTimeMillis()));
+            return pending;
+        }
+
+        synchronized void republish(List<TrendingBucket> buckets) {
+            for (TrendingBucket bucket : buckets) {
+                if (bucket != current && closed.contains(bucket)) {
+                    unpublished.add(bucket);
+                }
+            }
+        }
+
+        synchronized List<TrendingBucket> all() {
+            List<TrendingBucket> buckets = new ArrayList<>(closed);
+            buckets.add(current);
+            return buckets;
+        }
+
+        private TrendingBucket newBucket(long start) {
+            return new TrendingBucket(start, sketchWidth, sketchDepth, candidateCapacity);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.arsu.trending;
+
+import java.time.Duration;
+
+/**
+ * The ranking windows. Each is covered by a ring of fixed buckets, so a window slides one bucket at a time:
+ * a ranking spans the window plus the part of the current bucket that has elapsed.
+ */
+public enum TrendingWindow {
+    HOUR("1h", Duration.ofMinutes(5), 12),
+    DAY("1d", Duration.ofHours(1), 24);
+
+    private final String label;
+    private final long bucketMillis;
+    private final int buckets;
+
+    TrendingWindow(String label, Duration bucket, int buckets) {
+        this.label = label;
+        this.bucketMillis = bucket.toMillis();
+        this.buckets = buckets;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public long getBucketMillis() {
+        return bucketMillis;
+    }
+
+    public int getBuckets() {
+        return buckets;
+    }
+
+    public long getWindowMillis() {
+        return bucketMillis * buckets;
+    }
+
+    /**
+     * Start of the bucket containing the given time.
+     */
+    public long bucketStart(long timeMillis) {
+        return timeMillis - Math.floorMod(timeMillis, bucketMillis);
+    }
+
+    /**
+     * Window by its label ("1h", "1d"), or null.
+     */
+    public static TrendingWindow fromLabel(String label) {
+        for (TrendingWindow window : values()) {
+            if (window.label.equals(label)) {
+                return window;
+            }
+        }
+        return null;
+    }
+}
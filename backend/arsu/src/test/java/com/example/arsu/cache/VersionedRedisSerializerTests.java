@@ -0,0 +1,101 @@
+package com.example.arsu.cache;
+
+import com.example.arsu.config.RedisConfig;
+import com.example.arsu.model.MediaInfo;
+import com.example.arsu.model.ProcessingState;
+import com.example.arsu.model.Session;
+import com.example.arsu.model.Video;
+import com.example.arsu.model.VideoPage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class VersionedRedisSerializerTests {
+
+	private final GenericJackson2JsonRedisSerializer legacy =
+			new GenericJackson2JsonRedisSerializer(new RedisConfig().objectMapper());
+
+	private VersionedRedisSerializer serializer(CacheCodec writeCodec, int compressionThresholdBytes) {
+		return new VersionedRedisSerializer(writeCodec, List.of(JacksonCacheCodec.smile(), JacksonCacheCodec.json()),
+				legacy, compressionThresholdBytes, new SimpleMeterRegistry());
+	}
+
+	@Test
+	void roundTripsRegisteredTypesWithoutClassNames() {
+		VersionedRedisSerializer serializer = serializer(JacksonCacheCodec.smile(), 0);
+		Video video = video("v1");
+		Session session = new Session("u1", "alice");
+
+		byte[] bytes = serializer.serialize(video);
+
+		assertThat(bytes[0]).isEqualTo(VersionedRedisSerializer.MAGIC);
+		assertThat(new String(bytes)).doesNotContain("com.example");
+		assertThat(bytes.length).isLessThan(legacy.serialize(video).length);
+		Video decoded = (Video) serializer.deserialize(bytes);
+		assertThat(decoded.getId()).isEqualTo("v1");
+		assertThat(decoded.getSourceInfo().getWidth()).isEqualTo(1920);
+		assertThat(decoded.getRenditions()).containsExactly("240p", "720p");
+		assertThat(((Session) serializer.deserialize(serializer.serialize(session))).getUsername()).isEqualTo("alice");
+		assertThat(serializer.deserialize(serializer.serialize("a,b"))).isEqualTo("a,b");
+	}
+
+	@Test
+	void compressesLargeValuesAndReadsLegacyJson() {
+		VersionedRedisSerializer serializer = serializer(JacksonCacheCodec.smile(), 256);
+		List<Video> videos = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			videos.add(video("v" + i));
+		}
+		VideoPage page = new VideoPage(videos, "v19");
+
+		byte[] compressed = serializer.serialize(page);
+		byte[] uncompressed = serializer(JacksonCacheCodec.smile(), 0).serialize(page);
+
+		assertThat(compressed.length).isLessThan(uncompressed.length);
+		assertThat(((VideoPage) serializer.deserialize(compressed)).getVideos()).hasSize(20);
+		assertThat(((VideoPage) serializer.deserialize(uncompressed)).getNextCursor()).isEqualTo("v19");
+
+		byte[] legacyBytes = legacy.serialize(page);
+		assertThat(VersionedRedisSerializer.isLegacy(legacyBytes)).isTrue();
+		assertThat(((VideoPage) serializer.deserialize(legacyBytes)).getVideos()).hasSize(20);
+	}
+
+	@Test
+	void legacyFormatKeepsWritingJsonAndNewerVersionsAreRejected() {
+		VersionedRedisSerializer legacyWriter = serializer(null, 0);
+		Video video = video("v1");
+
+		byte[] bytes = legacyWriter.serialize(video);
+
+		assertThat(VersionedRedisSerializer.isLegacy(bytes)).isTrue();
+		assertThat(((Video) legacyWriter.deserialize(bytes)).getId()).isEqualTo("v1");
+
+		byte[] future = serializer(JacksonCacheCodec.json(), 0).serialize(video);
+		future[1] = (byte) (VersionedRedisSerializer.VERSION + 1);
+		assertThatThrownBy(() -> legacyWriter.deserialize(future)).isInstanceOf(SerializationException.class);
+	}
+
+	private static Video video(String id) {
+		Video video = new Video("Title " + id, "A description of " + id, "u1");
+		video.setId(id);
+		video.setStorageId(id);
+		video.setProcessingState(ProcessingState.DONE);
+		video.setPlayable(true);
+		video.setRenditions(List.of("240p", "720p"));
+		video.setCreatedAt(new Date());
+		MediaInfo source = new MediaInfo();
+		source.setWidth(1920);
+		source.setHeight(1080);
+		video.setSourceInfo(source);
+		return video;
+	}
+
+}
@@ -0,0 +1,164 @@
+package com.example.arsu.cache;
+
+import com.example.arsu.model.Video;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class VideoCacheTests {
+
+	private RedisTemplate<String, Object> redisTemplate;
+	private ValueOperations<String, Object> valueOperations;
+	private VideoCache cache;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		redisTemplate = mock(RedisTemplate.class);
+		valueOperations = mock(ValueOperations.class);
+		when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+
+		cache = new VideoCache();
+		ReflectionTestUtils.setField(cache, "nearMaxEntries", 100L);
+		ReflectionTestUtils.setField(cache, "nearTtlSeconds", 60L);
+		ReflectionTestUtils.setField(cache, "redisTtlSeconds", 600L);
+		ReflectionTestUtils.setField(cache, "redisTemplate", redisTemplate);
+		cache.init();
+	}
+
+	private Video video(String id) {
+		Video video = new Video("title", "description", "u1");
+		video.setId(id);
+		return video;
+	}
+
+	@Test
+	void loadsOnceThenServesFromNearTier() {
+		AtomicInteger loads = new AtomicInteger();
+
+		Video first = cache.getVideo("v1", () -> {
+			loads.incrementAndGet();
+			return video("v1");
+		});
+		Video second = cache.getVideo("v1", () -> {
+			loads.incrementAndGet();
+			return video("v1");
+		});
+
+		assertThat(second).isSameAs(first);
+		assertThat(loads).hasValue(1);
+		assertThat(cache.getNearHitRatio()).isEqualTo(0.5);
+		verify(valueOperations).set(eq("video:v1"), any(), eq(600L), eq(TimeUnit.SECONDS));
+	}
+
+	@Test
+	void fallsBackToRedisTierBeforeLoading() {
+		Video cached = video("v1");
+		when(valueOperations.get("video:v1")).thenReturn(cached);
+
+		Video video = cache.getVideo("v1", () -> {
+			throw new AssertionError("loader must not run on a Redis hit");
+		});
+
+		assertThat(video).isSameAs(cached);
+		assertThat(cache.getRedisHitCount()).isEqualTo(1);
+		assertThat(cache.getRedisHitRatio()).isEqualTo(1.0);
+	}
+
+	@Test
+	void evictionClearsBothTiersAndIsBroadcast() {
+		cache.getVideo("v1", () -> video("v1"));
+
+		cache.evict("v1", "u1");
+
+		AtomicInteger loads = new AtomicInteger();
+		cache.getVideo("v1", () -> {
+			loads.incrementAndGet();
+			return video("v1");
+		});
+		assertThat(loads).hasValue(1);
+		verify(redisTemplate).delete(List.of("video:v1", "videos:user:u1:summary", "videos:user:u1:full"));
+		verify(redisTemplate).convertAndSend(VideoCache.INVALIDATION_CHANNEL,
+				"video:v1,videos:user:u1:summary,videos:user:u1:full");
+	}
+
+	@Test
+	void readThroughRacingAnEvictionDeletesWhatItWrote() {
+		when(valueOperations.increment("cache:generation:video:v1", 0)).thenReturn(4L, 5L);
+
+		cache.getVideo("v1", () -> video("v1"));
+
+		verify(valueOperations).set(eq("video:v1"), any(), eq(600L), eq(TimeUnit.SECONDS));
+		verify(redisTemplate).delete("video:v1");
+		verify(redisTemplate).convertAndSend(VideoCache.INVALIDATION_CHANNEL, "video:v1");
+		assertThat(cache.getNearSize()).isZero();
+		assertThat(cache.getStaleWritesUndone()).isEqualTo(1);
+	}
+
+	@Test
+	void evictionBumpsTheGenerationsBeforeDeleting() {
+		cache.evict("v1", null);
+
+		InOrder order = inOrder(valueOperations, redisTemplate);
+		order.verify(valueOperations).increment("cache:generation:video:v1");
+		order.verify(redisTemplate).delete(List.of("video:v1"));
+	}
+
+	@Test
+	void invalidationMessagesFromOtherNodesDropNearEntries() {
+		StringRedisSerializer serializer = new StringRedisSerializer();
+		doReturn(serializer).when(redisTemplate).getValueSerializer();
+		cache.getVideo("v1", () -> video("v1"));
+
+		cache.onMessage(new DefaultMessage(
+				VideoCache.INVALIDATION_CHANNEL.getBytes(), serializer.serialize("video:v1")), null);
+
+		assertThat(cache.getNearSize()).isZero();
+	}
+
+	@Test
+	void keepsWorkingWhenRedisIsDown() {
+		when(valueOperations.get(anyString())).thenThrow(new IllegalStateException("Redis down"));
+		doThrow(new IllegalStateException("Redis down")).when(valueOperations)
+				.set(anyString(), any(), anyLong(), any(TimeUnit.class));
+
+		Video video = cache.getVideo("v1", () -> video("v1"));
+
+		assertThat(video.getId()).isEqualTo("v1");
+		assertThat(cache.getVideo("v1", () -> null)).isSameAs(video);
+		assertThat(cache.getRedisErrorCount()).isEqualTo(2);
+	}
+
+	@Test
+	void userVersionStartsAtTheClockAndMovesOnEviction() {
+		when(valueOperations.increment(eq("videos:version:user:u1"), anyLong())).thenReturn(1_700_000_000_000L);
+		when(valueOperations.increment("videos:version:user:u1", 0)).thenReturn(0L, 42L);
+
+		assertThat(cache.getUserVersion("u1")).isEqualTo(1_700_000_000_000L);
+		assertThat(cache.getUserVersion("u1")).isEqualTo(42L);
+
+		cache.evict("v1", "u1");
+		verify(valueOperations).increment("videos:version:user:u1");
+	}
+}
@@ -0,0 +1,54 @@
+package com.example.arsu.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+class MongoIndexManagerTests {
+
+	private QueryPlanVerifier queryPlanVerifier;
+	private MongoIndexManager indexManager;
+
+	@BeforeEach
+	void setUp() {
+		queryPlanVerifier = mock(QueryPlanVerifier.class);
+		indexManager = spy(new MongoIndexManager());
+		ReflectionTestUtils.setField(indexManager, "queryPlanVerifier", queryPlanVerifier);
+		doNothing().when(indexManager).ensureIndexes();
+	}
+
+	@Test
+	void collectionScanFailsStartupInStrictMode() {
+		ReflectionTestUtils.setField(indexManager, "failOnCollectionScan", true);
+		when(queryPlanVerifier.findCollectionScans()).thenReturn(List.of("VideoRepository.findByUserId {}"));
+
+		assertThatThrownBy(() -> indexManager.run(null))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("VideoRepository.findByUserId");
+	}
+
+	@Test
+	void collectionScanIsOnlyLoggedOtherwise() {
+		when(queryPlanVerifier.findCollectionScans()).thenReturn(List.of("VideoRepository.findByUserId {}"));
+
+		assertThatCode(() -> indexManager.run(null)).doesNotThrowAnyException();
+		assertThatCode(indexManager::ensureIndexesAndVerify).doesNotThrowAnyException();
+	}
+
+	@Test
+	void serverWithoutExplainDoesNotFailStrictMode() {
+		ReflectionTestUtils.setField(indexManager, "failOnCollectionScan", true);
+		when(queryPlanVerifier.findCollectionScans()).thenThrow(new UnsupportedOperationException("no explain"));
+
+		assertThatCode(() -> indexManager.run(null)).doesNotThrowAnyException();
+	}
+}
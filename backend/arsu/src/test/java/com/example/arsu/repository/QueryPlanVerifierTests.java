@@ -0,0 +1,124 @@
+package com.example.arsu.repository;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoCommandException;
+import com.mongodb.ServerAddress;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class QueryPlanVerifierTests {
+
+	private static Document explain(Document winningPlan) {
+		return new Document("queryPlanner", new Document("winningPlan", winningPlan));
+	}
+
+	@Test
+	void detectsCollectionScansAtAnyDepth() {
+		Document sortOverScan = new Document("stage", "SORT")
+				.append("inputStage", new Document("stage", "COLLSCAN"));
+		Document orOfScans = new Document("stage", "SUBPLAN")
+				.append("inputStage", new Document("stage", "OR").append("inputStages", List.of(
+						new Document("stage", "IXSCAN"), new Document("stage", "COLLSCAN"))));
+		Document slotBased = new Document("queryPlan", new Document("stage", "COLLSCAN"));
+
+		assertThat(QueryPlanVerifier.usesCollectionScan(explain(sortOverScan))).isTrue();
+		assertThat(QueryPlanVerifier.usesCollectionScan(explain(orOfScans))).isTrue();
+		assertThat(QueryPlanVerifier.usesCollectionScan(explain(slotBased))).isTrue();
+	}
+
+	@Test
+	void listsEveryDerivedRepositoryQuery() {
+		List<String> listed = QueryPlanVerifier.HOT_QUERIES.stream().map(QueryPlanVerifier.HotQuery::name).toList();
+
+		for (Class<?> repository : List.of(VideoRepository.class, CommentRepository.class, UserRepository.class,
+				TranscodeJobRepository.class)) {
+			for (Method method : repository.getDeclaredMethods()) {
+				assertThat(listed).contains(repository.getSimpleName() + "." + method.getName());
+			}
+		}
+	}
+
+	@Test
+	void acceptsIndexScans() {
+		Document fetch = new Document("stage", "FETCH")
+				.append("inputStage", new Document("stage", "IXSCAN").append("indexName", "userId_createdAt"));
+
+		assertThat(QueryPlanVerifier.usesCollectionScan(explain(fetch))).isFalse();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void serverWithoutExplainIsReportedAsUnsupported() {
+		FindIterable<Document> find = mock(FindIterable.class);
+		when(find.sort(any())).thenReturn(find);
+		when(find.explain()).thenThrow(new MongoCommandException(
+				new BsonDocument("code", new BsonInt32(59)).append("errmsg", new BsonString("no such command: 'explain'")),
+				new ServerAddress()));
+		MongoCollection<Document> collection = mock(MongoCollection.class);
+		when(collection.find(any(Document.class))).thenReturn(find);
+		MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+		when(mongoTemplate.getCollectionName(any())).thenReturn("videos");
+		when(mongoTemplate.getCollection("videos")).thenReturn(collection);
+		QueryPlanVerifier verifier = new QueryPlanVerifier();
+		ReflectionTestUtils.setField(verifier, "mongoTemplate", mongoTemplate);
+
+		assertThatThrownBy(verifier::findCollectionScans).isInstanceOf(UnsupportedOperationException.class);
+	}
+
+	/**
+	 * Runs the real explain against a local MongoDB. Skipped when none is reachable, unless CI requires one
+	 * with -Dmongo.required=true: the in-memory server of the load test cannot explain (see QueryPlanVerifier).
+	 */
+	@Test
+	void hotQueriesUseDeclaredIndexes() {
+		MongoClientSettings settings = MongoClientSettings.builder()
+				.applyConnectionString(new ConnectionString(
+						System.getProperty("mongo.uri", "mongodb://localhost:27017")))
+				.applyToClusterSettings(cluster -> cluster.serverSelectionTimeout(1, TimeUnit.SECONDS))
+				.build();
+		try (MongoClient client = MongoClients.create(settings)) {
+			MongoTemplate mongoTemplate = new MongoTemplate(client, "arsu_query_plans");
+			try {
+				mongoTemplate.executeCommand(new Document("ping", 1));
+			} catch (Exception e) {
+				if (Boolean.getBoolean("mongo.required")) {
+					throw new AssertionError("MongoDB required but not reachable", e);
+				}
+				assumeTrue(false, "MongoDB not reachable: " + e.getMessage());
+			}
+
+			try {
+				MongoIndexManager indexManager = new MongoIndexManager();
+				ReflectionTestUtils.setField(indexManager, "mongoTemplate", mongoTemplate);
+				indexManager.ensureIndexes();
+
+				QueryPlanVerifier verifier = new QueryPlanVerifier();
+				ReflectionTestUtils.setField(verifier, "mongoTemplate", mongoTemplate);
+				assertThat(verifier.findCollectionScans()).isEmpty();
+			} finally {
+				mongoTemplate.getDb().drop();
+			}
+		}
+	}
+}
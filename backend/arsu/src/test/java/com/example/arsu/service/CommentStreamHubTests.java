@@ -0,0 +1,107 @@
+package com.example.arsu.service;
+
+import com.example.arsu.config.RedisSubscriptions;
+import com.example.arsu.model.Comment;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class CommentStreamHubTests {
+
+	private RedisSubscriptions redisSubscriptions;
+	private RedisTemplate<String, Object> redisTemplate;
+	private CommentStreamHub hub;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		redisSubscriptions = mock(RedisSubscriptions.class);
+		redisTemplate = mock(RedisTemplate.class);
+
+		hub = new CommentStreamHub();
+		ReflectionTestUtils.setField(hub, "timeoutMs", 60000L);
+		ReflectionTestUtils.setField(hub, "maxClients", 3);
+		ReflectionTestUtils.setField(hub, "sendThreads", 1);
+		ReflectionTestUtils.setField(hub, "publishQueue", 10);
+		ReflectionTestUtils.setField(hub, "redisSubscriptions", redisSubscriptions);
+		ReflectionTestUtils.setField(hub, "redisTemplate", redisTemplate);
+		ReflectionTestUtils.setField(hub, "jsonConverter", new MappingJackson2HttpMessageConverter());
+		hub.init();
+	}
+
+	@AfterEach
+	void tearDown() {
+		hub.shutdown();
+	}
+
+	@Test
+	void subscribesUpstreamOncePerVideo() {
+		ChannelTopic topic = new ChannelTopic("comments:v1");
+
+		SseEmitter first = hub.subscribe("v1");
+		SseEmitter second = hub.subscribe("v1");
+		verify(redisSubscriptions, times(1)).subscribe(hub, topic);
+		assertThat(hub.getClientCount()).isEqualTo(2);
+		assertThat(hub.getSubscribedVideoCount()).isEqualTo(1);
+
+		hub.remove("v1", first);
+		verify(redisSubscriptions, never()).unsubscribe(any(), any());
+
+		hub.remove("v1", second);
+		verify(redisSubscriptions).unsubscribe(hub, topic);
+		assertThat(hub.getClientCount()).isZero();
+		assertThat(hub.getSubscribedVideoCount()).isZero();
+	}
+
+	@Test
+	void removingTwiceCountsOnce() {
+		SseEmitter emitter = hub.subscribe("v1");
+		hub.subscribe("v2");
+
+		hub.remove("v1", emitter);
+		hub.remove("v1", emitter);
+
+		assertThat(hub.getClientCount()).isEqualTo(1);
+	}
+
+	@Test
+	void refusesClientsBeyondTheLimit() {
+		hub.subscribe("v1");
+		hub.subscribe("v2");
+		hub.subscribe("v3");
+
+		assertThatThrownBy(() -> hub.subscribe("v4")).isInstanceOf(RejectedExecutionException.class);
+		assertThat(hub.getClientCount()).isEqualTo(3);
+	}
+
+	@Test
+	void fallsBackToLocalDeliveryWhenPublishFails() {
+		doThrow(new RuntimeException("Redis down")).when(redisTemplate).convertAndSend(anyString(), any());
+		CommentStreamHub spy = spy(hub);
+		Comment comment = new Comment();
+		comment.setVideoId("v1");
+
+		spy.publish(comment);
+
+		verify(spy, timeout(1000)).deliver(comment);
+	}
+}
@@ -0,0 +1,146 @@
+package com.example.arsu.service;
+
+import com.example.arsu.model.Comment;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CommentWriteBufferTests {
+
+	private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+	private MongoCollection<Document> collection;
+	private CommentWriteBuffer buffer;
+
+	@SuppressWarnings("unchecked")
+	private CommentWriteBuffer buffer(int capacity, int batchSize, long flushIntervalMs) {
+		MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+		collection = mock(MongoCollection.class);
+		when(mongoTemplate.getConverter()).thenReturn(mock(MongoConverter.class));
+		when(mongoTemplate.getCollectionName(Comment.class)).thenReturn("comments");
+		when(mongoTemplate.getCollection("comments")).thenReturn(collection);
+		when(collection.withWriteConcern(any())).thenReturn(collection);
+		doAnswer(invocation -> {
+			batchSizes.add(invocation.<List<Document>>getArgument(0).size());
+			return null;
+		}).when(collection).insertMany(anyList(), any(InsertManyOptions.class));
+
+		buffer = new CommentWriteBuffer();
+		ReflectionTestUtils.setField(buffer, "capacity", capacity);
+		ReflectionTestUtils.setField(buffer, "batchSize", batchSize);
+		ReflectionTestUtils.setField(buffer, "flushIntervalMs", flushIntervalMs);
+		ReflectionTestUtils.setField(buffer, "mongoTemplate", mongoTemplate);
+		return buffer;
+	}
+
+	private Comment comment(String text) {
+		Comment comment = new Comment();
+		comment.setVideoId("v1");
+		comment.setComment(text);
+		return comment;
+	}
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		if (buffer != null) {
+			buffer.stop();
+		}
+	}
+
+	@Test
+	void groupsCommentsIntoBatchesAndAcknowledgesEach() throws Exception {
+		buffer(100, 4, 200);
+		buffer.start();
+
+		List<CompletableFuture<Comment>> acknowledged = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			acknowledged.add(buffer.submit(comment("c" + i)));
+		}
+		for (CompletableFuture<Comment> future : acknowledged) {
+			assertThat(future.get(5, TimeUnit.SECONDS).getId()).isNotNull();
+		}
+
+		assertThat(batchSizes.stream().mapToInt(Integer::intValue).sum()).isEqualTo(10);
+		assertThat(batchSizes).allMatch(size -> size <= 4);
+		assertThat(buffer.getBatchCount()).isLessThan(10);
+		assertThat(buffer.getWrittenCount()).isEqualTo(10);
+	}
+
+	@Test
+	void flushesAPartialBatchAfterTheInterval() throws Exception {
+		buffer(100, 500, 20);
+		buffer.start();
+
+		Comment saved = buffer.submit(comment("lonely")).get(5, TimeUnit.SECONDS);
+
+		assertThat(saved.getComment()).isEqualTo("lonely");
+		assertThat(batchSizes).containsExactly(1);
+	}
+
+	@Test
+	void rejectsWhenTheQueueIsFull() throws Exception {
+		buffer(2, 500, 10);
+		CountDownLatch release = new CountDownLatch(1);
+		doAnswer(invocation -> {
+			release.await(5, TimeUnit.SECONDS);
+			return null;
+		}).when(collection).insertMany(anyList(), any(InsertManyOptions.class));
+		buffer.start();
+
+		// The first comment occupies the writer, the next two fill the queue
+		CompletableFuture<Comment> first = buffer.submit(comment("a"));
+		Thread.sleep(100);
+		buffer.submit(comment("b"));
+		buffer.submit(comment("c"));
+
+		assertThatThrownBy(() -> buffer.submit(comment("d"))).isInstanceOf(RejectedExecutionException.class);
+		release.countDown();
+		assertThat(first.get(5, TimeUnit.SECONDS)).isNotNull();
+	}
+
+	@Test
+	void failsOnlyTheCommentsWithWriteErrors() throws Exception {
+		buffer(100, 3, 200);
+		BulkWriteError duplicate = new BulkWriteError(11000, "duplicate key", new BsonDocument(), 1);
+		doAnswer(invocation -> {
+			throw new MongoBulkWriteException(BulkWriteResult.unacknowledged(), List.of(duplicate), null,
+					new ServerAddress(), Collections.emptySet());
+		}).when(collection).insertMany(anyList(), any(InsertManyOptions.class));
+		buffer.start();
+
+		CompletableFuture<Comment> ok1 = buffer.submit(comment("a"));
+		CompletableFuture<Comment> bad = buffer.submit(comment("b"));
+		CompletableFuture<Comment> ok2 = buffer.submit(comment("c"));
+
+		assertThat(ok1.get(5, TimeUnit.SECONDS)).isNotNull();
+		assertThat(ok2.get(5, TimeUnit.SECONDS)).isNotNull();
+		assertThatThrownBy(() -> bad.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+		assertThat(buffer.getFailedCount()).isEqualTo(1);
+	}
+}
@@ -0,0 +1,131 @@
+package com.example.arsu.service;
+
+import com.example.arsu.model.StoredContent;
+import com.mongodb.client.result.DeleteResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ContentIndexTests {
+
+	private MongoTemplate mongoTemplate;
+	private ContentIndex contentIndex;
+
+	@BeforeEach
+	void setUp() {
+		mongoTemplate = mock(MongoTemplate.class);
+		contentIndex = new ContentIndex();
+		ReflectionTestUtils.setField(contentIndex, "mongoTemplate", mongoTemplate);
+		ReflectionTestUtils.setField(contentIndex, "claimWaitMs", 1000L);
+	}
+
+	@Test
+	void newContentIsStoredUnderTheCandidate() {
+		when(mongoTemplate.insert(any(StoredContent.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+		StoredContent content = contentIndex.claim("abc", "v1", "v1/a.mp4", 10);
+
+		assertThat(content.getStorageId()).isEqualTo("v1");
+		assertThat(content.getRefCount()).isEqualTo(1);
+		assertThat(content.isPending()).isTrue();
+	}
+
+	@Test
+	void duplicateOfContentThatStaysPendingGivesUp() {
+		ReflectionTestUtils.setField(contentIndex, "claimWaitMs", 0L);
+		when(mongoTemplate.insert(any(StoredContent.class))).thenThrow(new DuplicateKeyException("abc"));
+
+		assertThatThrownBy(() -> contentIndex.claim("abc", "v2", "v2/b.mp4", 10))
+				.isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	void concurrentFirstUploadTurnsIntoAReference() {
+		StoredContent existing = new StoredContent("abc", "v1", "v1/a.mp4", 10);
+		existing.setRefCount(2);
+		when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+				eq(StoredContent.class))).thenReturn(null, existing);
+		when(mongoTemplate.insert(any(StoredContent.class))).thenThrow(new DuplicateKeyException("abc"));
+
+		StoredContent content = contentIndex.claim("abc", "v2", "v2/b.mp4", 10);
+
+		assertThat(content.getStorageId()).isEqualTo("v1");
+	}
+
+	@Test
+	void onlyTheLastReleaseFreesTheStorage() {
+		StoredContent shared = new StoredContent("abc", "v1", "v1/a.mp4", 10);
+		StoredContent unreferenced = new StoredContent("abc", "v1", "v1/a.mp4", 10);
+		unreferenced.setRefCount(0);
+		when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+				eq(StoredContent.class))).thenReturn(shared, unreferenced);
+		when(mongoTemplate.remove(any(Query.class), eq(StoredContent.class))).thenReturn(DeleteResult.acknowledged(1));
+
+		assertThat(contentIndex.release("abc", "v1")).isFalse();
+		verify(mongoTemplate, never()).remove(any(Query.class), eq(StoredContent.class));
+		assertThat(contentIndex.release("abc", "v1")).isTrue();
+	}
+
+	@Test
+	void retiredContentKeepsItsReferencesAside() {
+		StoredContent failed = new StoredContent("abc", "v1", "v1/a.mp4", 10);
+		failed.setRefCount(2);
+		failed.setFailed(true);
+		when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+				eq(StoredContent.class))).thenReturn(failed);
+		when(mongoTemplate.findAndRemove(any(Query.class), eq(StoredContent.class))).thenReturn(failed);
+
+		assertThat(contentIndex.retire("abc", "v1")).isFalse();
+
+		ArgumentCaptor<StoredContent> retired = ArgumentCaptor.forClass(StoredContent.class);
+		verify(mongoTemplate).save(retired.capture());
+		assertThat(retired.getValue().getId()).isEqualTo("abc:v1");
+		assertThat(retired.getValue().getRefCount()).isEqualTo(2);
+		assertThat(retired.getValue().isFailed()).isTrue();
+	}
+
+	@Test
+	void retireFreesStorageWhoseReferencesWereReleasedMeanwhile() {
+		StoredContent failed = new StoredContent("abc", "v1", "v1/a.mp4", 10);
+		StoredContent drained = new StoredContent("abc", "v1", "v1/a.mp4", 10);
+		drained.setRefCount(0);
+		StoredContent adjusted = new StoredContent("abc:v1", "v1", "v1/a.mp4", 10);
+		adjusted.setRefCount(0);
+		when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+				eq(StoredContent.class))).thenReturn(failed, adjusted);
+		when(mongoTemplate.findAndRemove(any(Query.class), eq(StoredContent.class))).thenReturn(drained);
+		when(mongoTemplate.remove(any(Query.class), eq(StoredContent.class))).thenReturn(DeleteResult.acknowledged(1));
+
+		assertThat(contentIndex.retire("abc", "v1")).isTrue();
+	}
+
+	@Test
+	void releaseFallsBackToTheRetiredEntry() {
+		StoredContent unreferenced = new StoredContent("abc:v1", "v1", "v1/a.mp4", 10);
+		unreferenced.setRefCount(0);
+		when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+				eq(StoredContent.class))).thenReturn(null, unreferenced);
+		when(mongoTemplate.remove(any(Query.class), eq(StoredContent.class))).thenReturn(DeleteResult.acknowledged(1));
+
+		assertThat(contentIndex.release("abc", "v1")).isTrue();
+
+		ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+		verify(mongoTemplate).remove(removed.capture(), eq(StoredContent.class));
+		assertThat(removed.getValue().getQueryObject().get("_id")).isEqualTo("abc:v1");
+	}
+}
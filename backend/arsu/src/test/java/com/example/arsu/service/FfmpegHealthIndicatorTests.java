@@ -0,0 +1,23 @@
+package com.example.arsu.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FfmpegHealthIndicatorTests {
+
+	@Test
+	void missingBinaryIsDownAndCached() {
+		FfmpegHealthIndicator indicator = new FfmpegHealthIndicator();
+		ReflectionTestUtils.setField(indicator, "ffmpegPath", "/nonexistent/ffmpeg");
+
+		Health health = indicator.health();
+
+		assertThat(health.getStatus()).isEqualTo(Status.DOWN);
+		assertThat(indicator.health()).isSameAs(health);
+	}
+
+}
@@ -0,0 +1,82 @@
+package com.example.arsu.service;
+
+import com.example.arsu.model.MediaInfo;
+import com.example.arsu.streaming.MasterPlaylistGenerator;
+import com.example.arsu.streaming.Rendition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Wall time of a full ladder transcode versus chunk worker count.
+ * Not picked up by the default surefire includes; run it explicitly:
+ * <pre>
+ * mvn test -Dtest=ParallelTranscodeBenchmark -Dbenchmark.workers=1,2,4,8 -Dbenchmark.chunkSeconds=2
+ * </pre>
+ * Prints one CSV line per worker count: workers,wall_ms,speedup.
+ */
+class ParallelTranscodeBenchmark {
+
+	@TempDir
+	Path storage;
+
+	@Test
+	void wallTimeVersusWorkers() throws Exception {
+		File input = new File(System.getProperty("benchmark.input", "input.mp4"));
+		assumeTrue(input.isFile(), "benchmark input not found: " + input);
+		assumeTrue(onPath("ffmpeg") && onPath("ffprobe"), "ffmpeg/ffprobe not installed");
+
+		TranscodeService transcodeService = new TranscodeService();
+		ReflectionTestUtils.setField(transcodeService, "ffmpegPath", "ffmpeg");
+		ReflectionTestUtils.setField(transcodeService, "chunkSeconds",
+				Integer.getInteger("benchmark.chunkSeconds", 2));
+		ReflectionTestUtils.setField(transcodeService, "masterPlaylistGenerator", new MasterPlaylistGenerator());
+		ReflectionTestUtils.setField(transcodeService, "meterRegistry", new SimpleMeterRegistry());
+		MediaProbeService probeService = new MediaProbeService();
+		ReflectionTestUtils.setField(probeService, "ffprobePath", "ffprobe");
+		ReflectionTestUtils.setField(transcodeService, "mediaProbeService", probeService);
+
+		MediaInfo source = probeService.probe(input);
+		List<Rendition> renditions = Rendition.ladderFor(source.getWidth(), source.getHeight());
+
+		int cpuSlots = Runtime.getRuntime().availableProcessors();
+
+		System.out.println("workers,wall_ms,speedup");
+		long baseline = 0;
+		for (String value : System.getProperty("benchmark.workers", "1,2,4").split(",")) {
+			int workers = Integer.parseInt(value.trim());
+			Path outputDir = Files.createDirectories(storage.resolve("w" + workers));
+
+			long start = System.nanoTime();
+			if (workers == 1) {
+				transcodeService.convertVideoToHLSSingle(outputDir, input, source, renditions, cpuSlots, progress -> { });
+			} else {
+				transcodeService.convertVideoToHLSParallel(outputDir, input, source, renditions,
+						workers, cpuSlots, progress -> { });
+			}
+			long wallMs = (System.nanoTime() - start) / 1_000_000;
+
+			if (baseline == 0) {
+				baseline = wallMs;
+			}
+			System.out.printf("%d,%d,%.2f%n", workers, wallMs, (double) baseline / Math.max(1, wallMs));
+		}
+	}
+
+	private static boolean onPath(String binary) {
+		try {
+			return new ProcessBuilder(binary, "-version").redirectErrorStream(true).start().waitFor() == 0;
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
+}
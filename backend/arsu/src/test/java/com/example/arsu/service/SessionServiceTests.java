@@ -0,0 +1,82 @@
+package com.example.arsu.service;
+
+import com.example.arsu.model.Session;
+import com.example.arsu.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SessionServiceTests {
+
+	private ValueOperations<String, Object> valueOperations;
+	private SessionService sessionService;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+		valueOperations = mock(ValueOperations.class);
+		when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+
+		sessionService = new SessionService();
+		ReflectionTestUtils.setField(sessionService, "ttlSeconds", 3600L);
+		ReflectionTestUtils.setField(sessionService, "refreshIntervalSeconds", 300L);
+		ReflectionTestUtils.setField(sessionService, "redisTemplate", redisTemplate);
+	}
+
+	private String login() {
+		User user = new User();
+		user.setId("u1");
+		user.setUsername("alice");
+		return sessionService.create(user);
+	}
+
+	@Test
+	void storesSessionUnderHashedToken() {
+		String token = login();
+
+		ArgumentCaptor<String> key = ArgumentCaptor.forClass(String.class);
+		ArgumentCaptor<Object> value = ArgumentCaptor.forClass(Object.class);
+		verify(valueOperations).set(key.capture(), value.capture(), eq(3600L), eq(TimeUnit.SECONDS));
+		assertThat(key.getValue()).startsWith("session:").doesNotContain(token);
+		assertThat(((Session) value.getValue()).getUserId()).isEqualTo("u1");
+	}
+
+	@Test
+	void slidesExpiryOnlyAfterRefreshInterval() {
+		String token = login();
+		Session fresh = new Session("u1", "alice");
+		when(valueOperations.get(anyString())).thenReturn(fresh);
+
+		assertThat(sessionService.validate(token)).isSameAs(fresh);
+		verify(valueOperations, times(1)).set(anyString(), any(), anyLong(), any(TimeUnit.class));
+
+		fresh.setRefreshedAt(new Date(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(10)));
+		assertThat(sessionService.validate(token)).isSameAs(fresh);
+		verify(valueOperations, times(2)).set(anyString(), any(), anyLong(), any(TimeUnit.class));
+	}
+
+	@Test
+	void rejectsUnknownTokens() {
+		assertThat(sessionService.validate("nope")).isNull();
+		assertThat(sessionService.validate(null)).isNull();
+		verify(valueOperations, never()).set(anyString(), any(), anyLong(), any(TimeUnit.class));
+	}
+}
@@ -0,0 +1,154 @@
+package com.example.arsu.service;
+
+import com.example.arsu.cache.VideoCache;
+import com.example.arsu.model.MediaInfo;
+import com.example.arsu.model.ProcessingState;
+import com.example.arsu.model.TranscodeJob;
+import com.example.arsu.model.TranscodePriority;
+import com.example.arsu.model.Video;
+import com.example.arsu.repository.TranscodeJobRepository;
+import com.example.arsu.storage.VideoStorage;
+import com.example.arsu.streaming.ManifestCache;
+import com.example.arsu.streaming.SegmentCache;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TranscodeJobServiceTests {
+
+	private MongoTemplate mongoTemplate;
+	private TranscodeJobRepository transcodeJobRepository;
+	private MediaProbeService mediaProbeService;
+	private SegmentCache segmentCache;
+	private ContentIndex contentIndex;
+	private TranscodeJobService service;
+
+	@BeforeEach
+	void setUp() {
+		mongoTemplate = mock(MongoTemplate.class);
+		transcodeJobRepository = mock(TranscodeJobRepository.class);
+		mediaProbeService = mock(MediaProbeService.class);
+		segmentCache = mock(SegmentCache.class);
+		contentIndex = mock(ContentIndex.class);
+		TranscodeService transcodeService = mock(TranscodeService.class);
+		when(transcodeService.cpuSlotsFor(anyList())).thenReturn(2);
+		when(transcodeJobRepository.save(any(TranscodeJob.class))).thenAnswer(invocation -> {
+			TranscodeJob job = invocation.getArgument(0);
+			job.setId("j1");
+			return job;
+		});
+		when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(TranscodeJob.class)))
+				.thenReturn(UpdateResult.acknowledged(1, 1L, null));
+		when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(Video.class)))
+				.thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+		service = new TranscodeJobService();
+		ReflectionTestUtils.setField(service, "configuredCpuSlots", 4);
+		ReflectionTestUtils.setField(service, "staleAfterMs", 600000L);
+		ReflectionTestUtils.setField(service, "shortClipSeconds", 300.0);
+		ReflectionTestUtils.setField(service, "maxAttempts", 3);
+		ReflectionTestUtils.setField(service, "transcodeJobRepository", transcodeJobRepository);
+		ReflectionTestUtils.setField(service, "transcodeService", transcodeService);
+		ReflectionTestUtils.setField(service, "mediaProbeService", mediaProbeService);
+		ReflectionTestUtils.setField(service, "manifestCache", mock(ManifestCache.class));
+		ReflectionTestUtils.setField(service, "segmentCache", segmentCache);
+		ReflectionTestUtils.setField(service, "videoCache", mock(VideoCache.class));
+		ReflectionTestUtils.setField(service, "contentIndex", contentIndex);
+		ReflectionTestUtils.setField(service, "videoStorage", mock(VideoStorage.class));
+		ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+		service.start();
+	}
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		service.stop();
+	}
+
+	@Test
+	void retranscodeIntentComesFromTheCaller() throws Exception {
+		MediaInfo source = new MediaInfo();
+		source.setWidth(1280);
+		source.setHeight(720);
+		source.setDurationSeconds(30);
+		when(mediaProbeService.probe(any(File.class))).thenReturn(source);
+		Video video = new Video();
+		video.setId("v1");
+		video.setUserId("u1");
+
+		TranscodeJob job = service.submit(video, new File("v1.mp4"), true);
+
+		assertThat(job.getPriority()).isNull();
+		ArgumentCaptor<Update> classified = ArgumentCaptor.forClass(Update.class);
+		verify(mongoTemplate, timeout(1000).times(1)).updateFirst(any(Query.class), classified.capture(),
+				eq(TranscodeJob.class));
+		assertThat(classified.getValue().getUpdateObject().get("$set", Document.class).get("priority"))
+				.isEqualTo(TranscodePriority.RETRANSCODE);
+	}
+
+	@Test
+	void staleJobOutOfAttemptsFails() {
+		TranscodeJob exhausted = new TranscodeJob();
+		exhausted.setId("j1");
+		exhausted.setVideoId("v1");
+		exhausted.setState(ProcessingState.RUNNING);
+		exhausted.setAttempts(3);
+		TranscodeJob retried = new TranscodeJob();
+		retried.setId("j2");
+		retried.setVideoId("v2");
+		retried.setState(ProcessingState.RUNNING);
+		retried.setAttempts(1);
+		when(mongoTemplate.find(any(Query.class), eq(TranscodeJob.class)))
+				.thenReturn(List.of(exhausted, retried))
+				.thenReturn(Collections.emptyList());
+
+		service.poll();
+
+		ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+		verify(mongoTemplate, times(2)).updateFirst(any(Query.class), updates.capture(), eq(TranscodeJob.class));
+		assertThat(updates.getAllValues().get(0).getUpdateObject().get("$set", Document.class).get("state"))
+				.isEqualTo(ProcessingState.FAILED);
+		assertThat(updates.getAllValues().get(1).getUpdateObject().get("$set", Document.class).get("state"))
+				.isEqualTo(ProcessingState.QUEUED);
+		verify(segmentCache).invalidateVideo("v1");
+	}
+
+	@Test
+	void failedJobRetiresItsContent() {
+		TranscodeJob exhausted = new TranscodeJob();
+		exhausted.setId("j1");
+		exhausted.setVideoId("v1");
+		exhausted.setState(ProcessingState.RUNNING);
+		exhausted.setAttempts(3);
+		when(mongoTemplate.find(any(Query.class), eq(TranscodeJob.class)))
+				.thenReturn(List.of(exhausted))
+				.thenReturn(Collections.emptyList());
+		Video duplicate = new Video();
+		duplicate.setContentHash("abc");
+		when(mongoTemplate.findOne(any(Query.class), eq(Video.class))).thenReturn(duplicate);
+
+		service.poll();
+
+		verify(contentIndex).retire("abc", "v1");
+	}
+}
@@ -0,0 +1,77 @@
+package com.example.arsu.service;
+
+import com.example.arsu.model.MediaInfo;
+import com.example.arsu.streaming.Rendition;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TranscodeServiceTests {
+
+	private static List<Integer> threadArguments(List<String> command) {
+		List<Integer> threads = new ArrayList<>();
+		for (int i = 0; i < command.size() - 1; i++) {
+			if (command.get(i).equals("-threads")) {
+				threads.add(Integer.parseInt(command.get(i + 1)));
+			}
+		}
+		return threads;
+	}
+
+	@Test
+	void parallelChunksStayWithinTheReservedSlots() {
+		TranscodeService transcodeService = new TranscodeService();
+		ReflectionTestUtils.setField(transcodeService, "ffmpegPath", "ffmpeg");
+		ReflectionTestUtils.setField(transcodeService, "parallelEnabled", true);
+		ReflectionTestUtils.setField(transcodeService, "parallelWorkers", 4);
+		List<Rendition> renditions = Arrays.asList(Rendition.values());
+		int cpuSlots = transcodeService.cpuSlotsFor(renditions) * 2;
+		int workers = 4;
+
+		int threads = TranscodeService.threadsPerEncoder(cpuSlots, workers, renditions.size());
+		List<String> command = transcodeService.chunkCommand(new File("in.mp4"), Path.of("chunks", "0"), 0, 60,
+				renditions, threads, null);
+
+		List<Integer> perOutput = threadArguments(command);
+		assertThat(perOutput).hasSize(renditions.size()).containsOnly(2);
+		assertThat(workers * perOutput.stream().mapToInt(Integer::intValue).sum()).isLessThanOrEqualTo(cpuSlots);
+	}
+
+	@Test
+	void failedParallelTranscodeRemovesItsChunks(@TempDir Path outputDir) throws Exception {
+		MediaProbeService mediaProbeService = mock(MediaProbeService.class);
+		when(mediaProbeService.probeKeyframeTimes(any(File.class))).thenReturn(List.of(0.0, 60.0, 120.0));
+		TranscodeService transcodeService = new TranscodeService();
+		ReflectionTestUtils.setField(transcodeService, "ffmpegPath", "/nonexistent/ffmpeg");
+		ReflectionTestUtils.setField(transcodeService, "chunkSeconds", 60);
+		ReflectionTestUtils.setField(transcodeService, "mediaProbeService", mediaProbeService);
+		ReflectionTestUtils.setField(transcodeService, "meterRegistry", new SimpleMeterRegistry());
+		MediaInfo source = new MediaInfo();
+		source.setDurationSeconds(180);
+
+		assertThatThrownBy(() -> transcodeService.convertVideoToHLSParallel(outputDir, new File("in.mp4"), source,
+				List.of(Rendition.P720), 2, 2, mock(TranscodeListener.class))).isInstanceOf(IOException.class);
+
+		assertThat(outputDir.resolve(".chunks")).doesNotExist();
+	}
+
+	@Test
+	void everyEncoderGetsAtLeastOneThread() {
+		assertThat(TranscodeService.threadsPerEncoder(4, 4, 4)).isEqualTo(1);
+		assertThat(TranscodeService.threadsPerEncoder(16, 2, 4)).isEqualTo(2);
+	}
+}
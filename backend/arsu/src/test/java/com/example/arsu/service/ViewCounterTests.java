@@ -0,0 +1,165 @@
+package com.example.arsu.service;
+
+import com.example.arsu.cache.VideoCache;
+import com.example.arsu.model.Video;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ViewCounterTests {
+
+	private MongoTemplate mongoTemplate;
+	private BulkOperations bulk;
+	private VideoCache videoCache;
+	private ViewCounter viewCounter;
+
+	@BeforeEach
+	void setUp() {
+		mongoTemplate = mock(MongoTemplate.class);
+		bulk = mock(BulkOperations.class);
+		when(mongoTemplate.bulkOps(eq(BulkOperations.BulkMode.UNORDERED), eq(Video.class))).thenReturn(bulk);
+
+		videoCache = mock(VideoCache.class);
+
+		viewCounter = new ViewCounter();
+		ReflectionTestUtils.setField(viewCounter, "defaultSegmentSeconds", 10L);
+		ReflectionTestUtils.setField(viewCounter, "mongoTemplate", mongoTemplate);
+		ReflectionTestUtils.setField(viewCounter, "videoCache", videoCache);
+	}
+
+	@Test
+	void flushesOneBulkUpdatePerVideo() {
+		viewCounter.recordView("v1");
+		viewCounter.recordView("v1");
+		viewCounter.recordWatch("v1", 4000);
+		viewCounter.recordWatch("v2", -1);
+
+		viewCounter.flush();
+
+		verify(bulk, times(2)).updateOne(any(Query.class), any(Update.class));
+		verify(bulk).execute();
+		assertThat(viewCounter.getPendingViews("v1")).isZero();
+
+		viewCounter.flush();
+		verify(bulk).execute();
+	}
+
+	@Test
+	void flushMovesTheOwnersListingVersion() {
+		Video video = new Video();
+		video.setId("v1");
+		video.setUserId("u1");
+		when(mongoTemplate.find(any(Query.class), eq(Video.class))).thenReturn(List.of(video));
+		viewCounter.recordView("v1");
+
+		viewCounter.flush();
+
+		verify(videoCache).evict("v1", "u1");
+	}
+
+	@Test
+	void keepsSubSecondWatchTimeForTheNextFlush() {
+		viewCounter.recordWatch("v1", 1500);
+		viewCounter.flush();
+		verify(bulk, times(1)).updateOne(any(Query.class), any(Update.class));
+
+		viewCounter.recordWatch("v1", 200);
+		viewCounter.flush();
+		verify(bulk, times(1)).updateOne(any(Query.class), any(Update.class));
+
+		viewCounter.recordWatch("v1", 300);
+		viewCounter.flush();
+		verify(bulk, times(2)).updateOne(any(Query.class), any(Update.class));
+	}
+
+	@Test
+	void failedFlushKeepsCountsForRetry() {
+		when(bulk.execute()).thenThrow(new RuntimeException("Mongo down"));
+		viewCounter.recordView("v1");
+
+		viewCounter.flush();
+
+		assertThat(viewCounter.getPendingViews("v1")).isEqualTo(1);
+		verify(videoCache, never()).evict(any(), any());
+	}
+
+	@Test
+	void partiallyFailedFlushRetriesOnlyTheFailedUpdates() {
+		BulkWriteError error = new BulkWriteError(121, "validation failed", new BsonDocument(), 1);
+		when(bulk.execute()).thenThrow(new BulkOperationException("partial", new MongoBulkWriteException(
+				BulkWriteResult.unacknowledged(), List.of(error), null, new ServerAddress(), Collections.emptySet())));
+		viewCounter.recordView("v1");
+		viewCounter.recordView("v2");
+		List<String> order = viewCounter.drain().stream().map(delta -> delta.videoId()).toList();
+		viewCounter.recordView(order.get(0));
+		viewCounter.recordView(order.get(1));
+
+		viewCounter.flush();
+
+		assertThat(viewCounter.getPendingViews(order.get(0))).isZero();
+		assertThat(viewCounter.getPendingViews(order.get(1))).isEqualTo(1);
+		verify(mongoTemplate).find(any(Query.class), eq(Video.class));
+	}
+
+	@Test
+	void dropsVideosThatWentIdle() {
+		viewCounter.recordView("v1");
+		viewCounter.flush();
+		viewCounter.flush();
+
+		Map<?, ?> counters = (Map<?, ?>) ReflectionTestUtils.getField(viewCounter, "counters");
+		assertThat(counters).isEmpty();
+
+		viewCounter.recordView("v1");
+		viewCounter.flush();
+		verify(bulk, times(2)).execute();
+	}
+
+	@Test
+	void concurrentRecordingLosesNothing() throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		for (int i = 0; i < 4; i++) {
+			pool.execute(() -> {
+				for (int n = 0; n < 10000; n++) {
+					viewCounter.recordView("v1");
+				}
+			});
+		}
+		pool.shutdown();
+		long drained = 0;
+		while (!pool.isTerminated()) {
+			drained += viewCounter.drain().stream().mapToLong(delta -> delta.views()).sum();
+			pool.awaitTermination(1, TimeUnit.MILLISECONDS);
+		}
+		drained += viewCounter.drain().stream().mapToLong(delta -> delta.views()).sum();
+
+		assertThat(drained).isEqualTo(40000);
+		verify(bulk, never()).execute();
+	}
+}
@@ -0,0 +1,48 @@
+package com.example.arsu.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocalDiskStorageTests {
+
+	@TempDir
+	Path disk;
+
+	@Test
+	void createsVideoDirectoriesUnderTwoShardLevels() throws Exception {
+		LocalDiskStorage storage = new LocalDiskStorage(List.of(disk), 0);
+
+		Path dir = storage.create("abc123");
+
+		assertThat(dir).isEqualTo(disk.resolve(StorageLayout.shardedPath("abc123")));
+		assertThat(disk.relativize(dir).getNameCount()).isEqualTo(3);
+		assertThat(storage.directory("abc123")).isEqualTo(dir);
+	}
+
+	@Test
+	void findsDirectoriesFromBeforeSharding() throws Exception {
+		Path legacy = Files.createDirectories(disk.resolve("old1"));
+		Files.writeString(legacy.resolve("720p.m3u8"), "#EXTM3U\n");
+		LocalDiskStorage storage = new LocalDiskStorage(List.of(disk), 0);
+
+		assertThat(storage.file("old1", "720p.m3u8")).isEqualTo(legacy.resolve("720p.m3u8"));
+		assertThat(storage.file("old1", "missing.ts")).isNull();
+		assertThat(storage.file("nothing", "720p.m3u8")).isNull();
+	}
+
+	@Test
+	void refusesPathsOutsideTheVideoDirectory() throws Exception {
+		LocalDiskStorage storage = new LocalDiskStorage(List.of(disk), 0);
+		storage.create("abc123");
+
+		assertThatThrownBy(() -> storage.file("abc123", "../../x")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> storage.create("../x")).isInstanceOf(IllegalArgumentException.class);
+	}
+}
@@ -0,0 +1,100 @@
+package com.example.arsu.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ObjectStoreStorageTests {
+
+	@TempDir
+	Path staging;
+
+	@TempDir
+	Path bucket;
+
+	private FileSystemObjectStore objectStore;
+	private ObjectStoreStorage storage;
+
+	@BeforeEach
+	void setUp() {
+		objectStore = new FileSystemObjectStore(bucket);
+		storage = new ObjectStoreStorage(new LocalDiskStorage(List.of(staging), 0), objectStore, 1000, 4, 6000);
+	}
+
+	@AfterEach
+	void tearDown() {
+		storage.shutdown();
+	}
+
+	@Test
+	void commitUploadsLargeFilesInParts() throws Exception {
+		byte[] original = new byte[4500];
+		new Random(1).nextBytes(original);
+		Path dir = storage.create("v1");
+		Files.write(dir.resolve("source.mp4"), original);
+		Files.writeString(dir.resolve("720p.m3u8"), "#EXTM3U\n");
+		Files.writeString(dir.resolve("master.m3u8.tmp"), "partial");
+
+		storage.commit("v1");
+
+		String prefix = StorageLayout.shardedPath("v1") + "/";
+		assertThat(objectStore.listObjects(prefix)).containsExactly(prefix + "720p.m3u8", prefix + "source.mp4");
+		Path downloaded = Files.createTempFile(staging, "download", ".mp4");
+		assertThat(objectStore.getObject(prefix + "source.mp4", downloaded)).isTrue();
+		assertThat(Files.readAllBytes(downloaded)).isEqualTo(original);
+	}
+
+	@Test
+	void fetchesCommittedFilesMissingFromStaging() throws Exception {
+		Path dir = storage.create("v1");
+		Files.writeString(dir.resolve("720p.m3u8"), "#EXTM3U\n");
+		storage.commit("v1");
+		Files.delete(dir.resolve("720p.m3u8"));
+
+		Path fetched = storage.file("v1", "720p.m3u8");
+
+		assertThat(fetched).isEqualTo(dir.resolve("720p.m3u8"));
+		assertThat(Files.readString(fetched)).isEqualTo("#EXTM3U\n");
+		assertThat(storage.file("v1", "1080p.m3u8")).isNull();
+		assertThat(storage.file("v2", "720p.m3u8")).isNull();
+		assertThat(storage.directory("v2")).isNull();
+	}
+
+	@Test
+	void evictsCommittedCopiesBeyondTheLocalCacheSize() throws Exception {
+		Path inProgress = storage.create("v0");
+		Files.write(inProgress.resolve("720p_000.ts"), new byte[4000]);
+		List<Path> committed = new ArrayList<>();
+		for (String videoId : List.of("v1", "v2", "v3")) {
+			Path dir = storage.create(videoId);
+			Files.write(dir.resolve("720p_000.ts"), new byte[4000]);
+			storage.commit(videoId);
+			committed.add(dir.resolve("720p_000.ts"));
+		}
+
+		assertThat(committed.stream().filter(Files::exists)).hasSize(1);
+		assertThat(inProgress.resolve("720p_000.ts")).exists();
+		assertThat(storage.file("v1", "720p_000.ts")).exists().hasSize(4000);
+	}
+
+	@Test
+	void deleteRemovesObjectsAndStagedFiles() throws Exception {
+		Path dir = storage.create("v1");
+		Files.write(dir.resolve("720p_000.ts"), new byte[2500]);
+		storage.commit("v1");
+
+		storage.delete("v1");
+
+		assertThat(objectStore.listObjects(StorageLayout.shardedPath("v1"))).isEmpty();
+		assertThat(storage.directory("v1")).isNull();
+	}
+}
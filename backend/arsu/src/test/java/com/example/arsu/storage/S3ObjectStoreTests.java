@@ -0,0 +1,93 @@
+package com.example.arsu.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Error;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class S3ObjectStoreTests {
+
+	@TempDir
+	Path dir;
+
+	private S3Client s3;
+	private S3ObjectStore objectStore;
+
+	@BeforeEach
+	void setUp() {
+		// The consumer overloads are default methods that build the request and call the mocked ones
+		s3 = mock(S3Client.class, CALLS_REAL_METHODS);
+		objectStore = new S3ObjectStore(s3, "videos");
+	}
+
+	@Test
+	void uploadsOnlyThePartsSlice() throws Exception {
+		byte[] content = new byte[100];
+		for (int i = 0; i < content.length; i++) {
+			content[i] = (byte) i;
+		}
+		Path source = dir.resolve("source.mp4");
+		Files.write(source, content);
+		doReturn(UploadPartResponse.builder().eTag("\"abc\"").build()).when(s3).uploadPart(
+				any(UploadPartRequest.class), any(RequestBody.class));
+
+		String eTag = objectStore.uploadPart("k", "u1", 2, source, 40, 30);
+
+		assertThat(eTag).isEqualTo("\"abc\"");
+		ArgumentCaptor<RequestBody> body = ArgumentCaptor.forClass(RequestBody.class);
+		verify(s3).uploadPart(any(UploadPartRequest.class), body.capture());
+		try (InputStream in = body.getValue().contentStreamProvider().newStream()) {
+			assertThat(in.readAllBytes()).isEqualTo(Arrays.copyOfRange(content, 40, 70));
+		}
+	}
+
+	@Test
+	void missingObjectIsNotAnError() throws Exception {
+		doThrow(NoSuchKeyException.builder().message("missing").build())
+				.when(s3).getObject(any(GetObjectRequest.class));
+
+		assertThat(objectStore.getObject("k", dir.resolve("target"))).isFalse();
+	}
+
+	@Test
+	void deletesInBatchesAndReportsFailedKeys() {
+		doReturn(DeleteObjectsResponse.builder().build())
+				.doReturn(DeleteObjectsResponse.builder().build())
+				.doReturn(DeleteObjectsResponse.builder()
+						.errors(S3Error.builder().key("k2400").message("Access Denied").build()).build())
+				.when(s3).deleteObjects(any(DeleteObjectsRequest.class));
+		List<String> keys = IntStream.range(0, 2500).mapToObj(i -> "k" + i).toList();
+
+		assertThatThrownBy(() -> objectStore.deleteObjects(keys))
+				.isInstanceOf(IOException.class)
+				.hasMessageContaining("k2400");
+		verify(s3, times(3)).deleteObjects(any(DeleteObjectsRequest.class));
+	}
+}
@@ -0,0 +1,187 @@
+package com.example.arsu.streaming;
+
+import com.example.arsu.model.ProcessingState;
+import com.example.arsu.model.Video;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.fppt.jedismock.RedisServer;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Load test of the HLS streaming path with simulated players (see {@link SimulatedPlayer}), against the
+ * application booted on in-process stand-ins: embedded Kafka, an in-memory Mongo wire server and a
+ * Redis-protocol mock. The videos under ../../Storage are the fixtures. RabbitMQ has no stand-in and its
+ * listeners are not started.
+ * Not picked up by the default surefire includes; run it explicitly:
+ * <pre>
+ * mvn test -Dtest=HlsLoadBenchmark -Dload.players=200 -Dload.seconds=120 -Dload.speed=1
+ * </pre>
+ * Prints the report and writes it as JSON to target/hls-load-report.json. load.speed above 1 plays media
+ * faster than real time, load.seek-probability is the chance of a seek after each segment and
+ * load.max-buffer-seconds is the forward buffer the players keep (hls.js defaults to 30).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.rabbitmq.listener.simple.auto-startup=false",
+		"mongo.indexes.fail-on-collection-scan=true",
+		"logging.level.com.example.arsu=INFO"
+})
+@EmbeddedKafka(partitions = 1, bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+class HlsLoadBenchmark {
+
+	private static final Path FIXTURES = Path.of(System.getProperty("load.fixtures", "../../Storage"));
+
+	private static MongoServer mongo;
+	private static RedisServer redis;
+	private static Path storage;
+
+	@LocalServerPort
+	int port;
+
+	@Autowired
+	MongoTemplate mongoTemplate;
+
+	@Autowired
+	SegmentCache segmentCache;
+
+	@Autowired
+	SegmentPrefetcher segmentPrefetcher;
+
+	@DynamicPropertySource
+	static void infrastructure(DynamicPropertyRegistry registry) throws IOException {
+		mongo = new MongoServer(new MemoryBackend());
+		InetSocketAddress mongoAddress = mongo.bind();
+		redis = RedisServer.newRedisServer().start();
+		storage = Files.createTempDirectory("arsu-load");
+
+		registry.add("spring.data.mongodb.uri",
+				() -> "mongodb://" + mongoAddress.getHostString() + ":" + mongoAddress.getPort() + "/ARSU");
+		registry.add("spring.data.redis.host", redis::getHost);
+		registry.add("spring.data.redis.port", redis::getBindPort);
+		registry.add("video.storage.paths", storage::toString);
+	}
+
+	@AfterAll
+	static void stopInfrastructure() throws IOException {
+		if (redis != null) {
+			redis.stop();
+		}
+		if (mongo != null) {
+			mongo.shutdown();
+		}
+		if (storage != null) {
+			try (Stream<Path> paths = Files.walk(storage)) {
+				paths.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+			}
+		}
+	}
+
+	@Test
+	void playback() throws Exception {
+		assumeTrue(Files.isDirectory(FIXTURES), "fixtures not found: " + FIXTURES.toAbsolutePath());
+		List<String> videoIds = installFixtures();
+		assumeTrue(!videoIds.isEmpty(), "no HLS fixtures in " + FIXTURES.toAbsolutePath());
+
+		int players = Integer.getInteger("load.players", 50);
+		int seconds = Integer.getInteger("load.seconds", 60);
+		double speed = Double.parseDouble(System.getProperty("load.speed", "1"));
+		double maxBuffer = Double.parseDouble(System.getProperty("load.max-buffer-seconds", "30"));
+		double seekProbability = Double.parseDouble(System.getProperty("load.seek-probability", "0.05"));
+
+		LoadStats stats = new LoadStats();
+		HttpClient client = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(Duration.ofSeconds(5))
+				.build();
+		long start = System.nanoTime();
+		long deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+		ExecutorService executor = Executors.newFixedThreadPool(players);
+		for (int i = 0; i < players; i++) {
+			executor.execute(new SimulatedPlayer(client, "http://localhost:" + port, videoIds, stats, deadline,
+					speed, maxBuffer, seekProbability, i));
+		}
+		executor.shutdown();
+		assertThat(executor.awaitTermination(seconds + 60L, TimeUnit.SECONDS)).isTrue();
+		double wallSeconds = (System.nanoTime() - start) / 1e9;
+
+		Map<String, Object> report = stats.report(players, wallSeconds);
+		report.put("segmentCacheHits", segmentCache.getHitCount());
+		report.put("segmentCacheMisses", segmentCache.getMissCount());
+		report.put("segmentsPrefetched", segmentPrefetcher.getPrefetchedCount());
+		ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+		String json = mapper.writeValueAsString(report);
+		System.out.println(json);
+		Files.writeString(Path.of("target", "hls-load-report.json"), json);
+
+		assertThat(stats.errors.sum()).isZero();
+	}
+
+	/**
+	 * Copies every fixture directory with an HLS playlist into the storage root, where the legacy flat
+	 * layout finds it, and saves a finished video for it.
+	 */
+	private List<String> installFixtures() throws IOException {
+		List<String> videoIds = new ArrayList<>();
+		try (Stream<Path> dirs = Files.list(FIXTURES)) {
+			for (Path dir : dirs.filter(Files::isDirectory).toList()) {
+				if (!Files.isRegularFile(dir.resolve(Rendition.P240.getPlaylistName()))) {
+					continue;
+				}
+				String videoId = dir.getFileName().toString();
+				Path target = Files.createDirectories(storage.resolve(videoId));
+				try (Stream<Path> files = Files.list(dir)) {
+					files.forEach(file -> copy(file, target.resolve(file.getFileName())));
+				}
+
+				Video video = new Video("Load fixture " + videoId, null, "load-test");
+				video.setId(videoId);
+				video.setStorageId(videoId);
+				video.setProcessingState(ProcessingState.DONE);
+				video.setPlayable(true);
+				video.setCreatedAt(new Date());
+				video.setUpdatedAt(new Date());
+				mongoTemplate.save(video);
+				videoIds.add(videoId);
+			}
+		}
+		return videoIds;
+	}
+
+	private static void copy(Path source, Path target) {
+		try {
+			Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+}
@@ -0,0 +1,115 @@
+package com.example.arsu.streaming;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency samples shared by every simulated player of a load run.
+ */
+class LoadStats {
+
+	private final Map<String, Latencies> latencies = new ConcurrentHashMap<>();
+	final LongAdder bytes = new LongAdder();
+	final LongAdder errors = new LongAdder();
+	final LongAdder sessions = new LongAdder();
+	final LongAdder sessionsWithStall = new LongAdder();
+	final LongAdder stalls = new LongAdder();
+	final LongAdder switches = new LongAdder();
+	final LongAdder seeks = new LongAdder();
+	private final LongAdder playedMillis = new LongAdder();
+	private final LongAdder stalledMillis = new LongAdder();
+	private final Latencies startup = new Latencies();
+
+	void recordRequest(String type, long nanos) {
+		latencies.computeIfAbsent(type, t -> new Latencies()).add(nanos);
+	}
+
+	void recordStartup(long nanos) {
+		startup.add(nanos);
+	}
+
+	void recordPlayback(double playedSeconds, double stalledSeconds) {
+		playedMillis.add(Math.round(playedSeconds * 1000));
+		stalledMillis.add(Math.round(stalledSeconds * 1000));
+	}
+
+	/**
+	 * Summary of the run: throughput over the wall time, latency percentiles per request type in
+	 * milliseconds, and the stall rate as the share of watch time spent rebuffering.
+	 */
+	Map<String, Object> report(int players, double wallSeconds) {
+		Map<String, Object> report = new LinkedHashMap<>();
+		long requests = 0;
+		Map<String, Object> requestTypes = new LinkedHashMap<>();
+		for (Map.Entry<String, Latencies> entry : latencies.entrySet()) {
+			requests += entry.getValue().count();
+			requestTypes.put(entry.getKey(), entry.getValue().summary());
+		}
+		double played = playedMillis.sum() / 1000.0;
+		double stalled = stalledMillis.sum() / 1000.0;
+
+		report.put("players", players);
+		report.put("wallSeconds", round(wallSeconds));
+		report.put("requests", requests);
+		report.put("errors", errors.sum());
+		report.put("requestsPerSecond", round(requests / wallSeconds));
+		report.put("megabitsPerSecond", round(bytes.sum() * 8 / 1_000_000.0 / wallSeconds));
+		report.put("latencyMillis", requestTypes);
+		report.put("startupMillis", startup.summary());
+		report.put("sessions", sessions.sum());
+		report.put("stalls", stalls.sum());
+		report.put("sessionsWithStallPercent", round(percent(sessionsWithStall.sum(), sessions.sum())));
+		report.put("stallRatePercent", round(percent(stalled, played + stalled)));
+		report.put("switches", switches.sum());
+		report.put("seeks", seeks.sum());
+		return report;
+	}
+
+	private static double percent(double part, double whole) {
+		return whole == 0 ? 0 : part * 100 / whole;
+	}
+
+	private static double round(double value) {
+		return Math.round(value * 100) / 100.0;
+	}
+
+	private static class Latencies {
+		private long[] nanos = new long[1024];
+		private int size;
+
+		synchronized void add(long value) {
+			if (size == nanos.length) {
+				nanos = Arrays.copyOf(nanos, size * 2);
+			}
+			nanos[size++] = value;
+		}
+
+		synchronized int count() {
+			return size;
+		}
+
+		synchronized Map<String, Object> summary() {
+			long[] sorted = Arrays.copyOf(nanos, size);
+			Arrays.sort(sorted);
+			Map<String, Object> summary = new LinkedHashMap<>();
+			summary.put("count", size);
+			summary.put("p50", percentile(sorted, 50));
+			summary.put("p90", percentile(sorted, 90));
+			summary.put("p99", percentile(sorted, 99));
+			summary.put("max", size == 0 ? 0 : round(sorted[size - 1] / 1e6));
+			return summary;
+		}
+
+		private static double percentile(long[] sorted, double percentile) {
+			if (sorted.length == 0) {
+				return 0;
+			}
+			int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+			return round(sorted[Math.max(index, 0)] / 1e6);
+		}
+	}
+
+}
@@ -0,0 +1,83 @@
+package com.example.arsu.streaming;
+
+import com.example.arsu.storage.LocalDiskStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ManifestCacheTests {
+
+	@TempDir
+	Path disk;
+
+	private Path videoDir;
+	private ManifestCache cache;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		LocalDiskStorage storage = new LocalDiskStorage(List.of(disk), 0);
+		videoDir = storage.create("v1");
+
+		cache = new ManifestCache();
+		ReflectionTestUtils.setField(cache, "maxBytes", 1_000_000L);
+		ReflectionTestUtils.setField(cache, "videoStorage", storage);
+		ReflectionTestUtils.setField(cache, "masterPlaylistGenerator", new MasterPlaylistGenerator());
+		cache.init();
+	}
+
+	private void writePlaylists(String type, boolean ended) throws Exception {
+		Files.writeString(videoDir.resolve("720p.m3u8"), "#EXTM3U\n#EXT-X-TARGETDURATION:10\n"
+				+ "#EXT-X-PLAYLIST-TYPE:" + type + "\n#EXTINF:10.0,\n720p_000.ts\n" + (ended ? "#EXT-X-ENDLIST\n" : ""));
+		Files.writeString(videoDir.resolve("master.m3u8"), "#EXTM3U\n#EXT-X-STREAM-INF:BANDWIDTH=1\n720p.m3u8\n");
+	}
+
+	@Test
+	void finishedVideosGetOneVersionForAllTheirFiles() throws Exception {
+		writePlaylists("VOD", true);
+
+		ManifestCache.Manifest master = cache.getPlaylist("v1", "master.m3u8");
+		ManifestCache.Version version = cache.getVersion("v1");
+
+		assertThat(master.finished()).isTrue();
+		assertThat(master.version()).isEqualTo(version);
+		assertThat(version.eTag()).hasSize(24);
+		assertThat(version.lastModified()).isPositive();
+		assertThat(cache.getSegmentMillis("v1", "720p_000.ts")).isEqualTo(10_000);
+	}
+
+	@Test
+	void segmentsOnlySeeAVersionAPlaylistRequestCached() throws Exception {
+		writePlaylists("VOD", true);
+
+		assertThat(cache.getCachedVersion("v1")).isNull();
+		ManifestCache.Manifest master = cache.getPlaylist("v1", "master.m3u8");
+		assertThat(cache.getCachedVersion("v1")).isEqualTo(master.version());
+	}
+
+	@Test
+	void versionChangesWithThePlaylists() throws Exception {
+		writePlaylists("VOD", true);
+		String before = cache.getVersion("v1").eTag();
+
+		Files.writeString(videoDir.resolve("master.m3u8"), "#EXTM3U\n#EXT-X-STREAM-INF:BANDWIDTH=2\n720p.m3u8\n");
+		cache.invalidate("v1");
+
+		assertThat(cache.getVersion("v1").eTag()).isNotEqualTo(before);
+	}
+
+	@Test
+	void growingPlaylistsHaveNoVersion() throws Exception {
+		writePlaylists("EVENT", false);
+
+		assertThat(cache.getPlaylist("v1", "720p.m3u8").finished()).isFalse();
+		assertThat(cache.getVersion("v1")).isNull();
+		assertThat(cache.getVersion("missing")).isNull();
+	}
+}
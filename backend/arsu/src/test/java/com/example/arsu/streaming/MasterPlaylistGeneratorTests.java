@@ -0,0 +1,88 @@
+package com.example.arsu.streaming;
+
+import com.example.arsu.model.MediaInfo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MasterPlaylistGeneratorTests {
+
+	private final MasterPlaylistGenerator generator = new MasterPlaylistGenerator();
+
+	@TempDir
+	Path videoDir;
+
+	@Test
+	void listsOnlyRenditionsWhoseSegmentsExist() throws Exception {
+		writeRendition("240p", 2, 125_000);
+		writeRendition("720p", 2, 1_250_000);
+		// Playlist written but segments missing, as after a failed encode
+		Files.writeString(videoDir.resolve("1080p.m3u8"), playlist("1080p", 2));
+
+		String master = generator.generate(videoDir, null);
+
+		assertThat(master).startsWith("#EXTM3U\n");
+		assertThat(master).contains("#EXT-X-STREAM-INF:BANDWIDTH=100000,AVERAGE-BANDWIDTH=100000,"
+				+ "RESOLUTION=426x240,CODECS=\"avc1.64001e\"\n240p.m3u8\n");
+		assertThat(master).contains("#EXT-X-STREAM-INF:BANDWIDTH=1000000,AVERAGE-BANDWIDTH=1000000,"
+				+ "RESOLUTION=1280x720,CODECS=\"avc1.64001f\"\n720p.m3u8\n");
+		assertThat(master).doesNotContain("1080p");
+		assertThat(master.indexOf("240p.m3u8")).isLessThan(master.indexOf("720p.m3u8"));
+	}
+
+	@Test
+	void reportsScaledResolutionOfKnownSource() throws Exception {
+		writeRendition("480p", 1, 100_000);
+		MediaInfo source = new MediaInfo();
+		source.setWidth(720);
+		source.setHeight(1280);
+
+		assertThat(generator.generate(videoDir, source)).contains("RESOLUTION=270x480,");
+	}
+
+	@Test
+	void ladderStopsAtSourceResolution() {
+		assertThat(Rendition.ladderFor(854, 480)).containsExactly(Rendition.P240, Rendition.P480);
+		assertThat(Rendition.ladderFor(1920, 1080)).containsExactly(Rendition.values());
+		assertThat(Rendition.ladderFor(720, 1280)).containsExactly(Rendition.values());
+		assertThat(Rendition.ladderFor(160, 120)).containsExactly(Rendition.P240);
+	}
+
+	@Test
+	void returnsNullWithoutPlayableRenditions() throws Exception {
+		assertThat(generator.generate(videoDir, null)).isNull();
+	}
+
+	@Test
+	void parsesMediaPlaylist() {
+		MediaPlaylist playlist = MediaPlaylist.parse(playlist("480p", 3));
+
+		assertThat(playlist.getTargetDuration()).isEqualTo(10);
+		assertThat(playlist.getPlaylistType()).isEqualTo("VOD");
+		assertThat(playlist.isEndList()).isTrue();
+		assertThat(playlist.getSegments()).extracting(MediaPlaylist.Segment::uri)
+				.containsExactly("480p_000.ts", "480p_001.ts", "480p_002.ts");
+		assertThat(playlist.getTotalDuration()).isEqualTo(30.0);
+	}
+
+	private void writeRendition(String quality, int segments, int segmentBytes) throws Exception {
+		Files.writeString(videoDir.resolve(quality + ".m3u8"), playlist(quality, segments));
+		for (int i = 0; i < segments; i++) {
+			Files.write(videoDir.resolve(String.format("%s_%03d.ts", quality, i)), new byte[segmentBytes]);
+		}
+	}
+
+	private String playlist(String quality, int segments) {
+		StringBuilder playlist = new StringBuilder("#EXTM3U\n#EXT-X-VERSION:3\n#EXT-X-TARGETDURATION:10\n"
+				+ "#EXT-X-MEDIA-SEQUENCE:0\n#EXT-X-PLAYLIST-TYPE:VOD\n");
+		for (int i = 0; i < segments; i++) {
+			playlist.append("#EXTINF:10.000000,\n").append(String.format("%s_%03d.ts", quality, i)).append('\n');
+		}
+		return playlist.append("#EXT-X-ENDLIST\n").toString();
+	}
+
+}
@@ -0,0 +1,46 @@
+package com.example.arsu.streaming;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PreviewSpritesTests {
+
+	private List<String> cues(String vtt) {
+		return vtt.lines().filter(line -> line.contains("#xywh=")).toList();
+	}
+
+	@Test
+	void indexesTilesRowByRowAcrossSheets() {
+		String vtt = PreviewSprites.webVtt("v1", List.<double[]>of(new double[]{0, 1000}), 5);
+
+		assertThat(vtt).startsWith("WEBVTT\n");
+		List<String> cues = cues(vtt);
+		assertThat(cues).hasSize(200);
+		assertThat(cues.get(0)).isEqualTo("sprite_v1_0_000.jpg#xywh=0,0,160,90");
+		assertThat(cues.get(11)).isEqualTo("sprite_v1_0_000.jpg#xywh=160,90,160,90");
+		assertThat(cues.get(99)).isEqualTo("sprite_v1_0_000.jpg#xywh=1440,810,160,90");
+		assertThat(cues.get(100)).isEqualTo("sprite_v1_0_001.jpg#xywh=0,0,160,90");
+		assertThat(vtt).contains("00:16:35.000 --> 00:16:40.000\nsprite_v1_0_001.jpg#xywh=1440,810,160,90");
+	}
+
+	@Test
+	void restartsSheetsPerChunkAndClipsTheLastCue() {
+		String vtt = PreviewSprites.webVtt("v1", List.of(new double[]{0, 62.5}, new double[]{62.5, 70}), 5);
+
+		List<String> cues = cues(vtt);
+		assertThat(cues).hasSize(13 + 2);
+		assertThat(vtt).contains("00:01:00.000 --> 00:01:02.500\nsprite_v1_0_000.jpg#xywh=320,90,160,90");
+		assertThat(vtt).contains("00:01:02.500 --> 00:01:07.500\nsprite_v1_1_000.jpg#xywh=0,0,160,90");
+		assertThat(vtt).contains("00:01:07.500 --> 00:01:10.000\nsprite_v1_1_000.jpg#xywh=160,0,160,90");
+	}
+
+	@Test
+	void buildsFilterChains() {
+		assertThat(PreviewSprites.spriteFilter(5)).isEqualTo(
+				"fps=1/5,scale=w=160:h=90:force_original_aspect_ratio=decrease,pad=160:90:(ow-iw)/2:(oh-ih)/2,tile=10x10");
+		assertThat(PreviewSprites.posterFilter(2.5, 640)).isEqualTo("trim=start=2.500,setpts=PTS-STARTPTS,scale=w=640:h=-2");
+	}
+}
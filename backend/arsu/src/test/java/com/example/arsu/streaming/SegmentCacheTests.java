@@ -0,0 +1,84 @@
+package com.example.arsu.streaming;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SegmentCacheTests {
+
+	@TempDir
+	Path storage;
+
+	private SegmentCache cache(long maxBytes) {
+		SegmentCache cache = new SegmentCache();
+		ReflectionTestUtils.setField(cache, "maxBytes", maxBytes);
+		ReflectionTestUtils.setField(cache, "maxEntryBytes", maxBytes);
+		return cache;
+	}
+
+	private Path segment(String name, int size) throws Exception {
+		return Files.write(storage.resolve(name), new byte[size]);
+	}
+
+	@Test
+	void servesLoadedSegmentsFromDirectMemory() throws Exception {
+		SegmentCache cache = cache(1000);
+
+		assertThat(cache.get("v1", "720p_000.ts")).isNull();
+		ByteBuffer loaded = cache.load("v1", "720p_000.ts", segment("a.ts", 100));
+		ByteBuffer hit = cache.get("v1", "720p_000.ts");
+
+		assertThat(loaded.isDirect()).isTrue();
+		assertThat(hit.remaining()).isEqualTo(100);
+		assertThat(hit.isReadOnly()).isTrue();
+		assertThat(cache.getHitCount()).isEqualTo(1);
+		assertThat(cache.getMissCount()).isEqualTo(1);
+		assertThat(cache.getSizeBytes()).isEqualTo(100);
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedOverBudget() throws Exception {
+		SegmentCache cache = cache(250);
+		cache.load("v1", "a.ts", segment("a.ts", 100));
+		cache.load("v1", "b.ts", segment("b.ts", 100));
+		cache.get("v1", "a.ts");
+
+		cache.load("v1", "c.ts", segment("c.ts", 100));
+
+		assertThat(cache.get("v1", "b.ts")).isNull();
+		assertThat(cache.get("v1", "a.ts")).isNotNull();
+		assertThat(cache.get("v1", "c.ts")).isNotNull();
+		assertThat(cache.getEvictionCount()).isEqualTo(1);
+		assertThat(cache.getSizeBytes()).isEqualTo(200);
+	}
+
+	@Test
+	void skipsSegmentsLargerThanTheBudget() throws Exception {
+		SegmentCache cache = cache(50);
+
+		assertThat(cache.load("v1", "a.ts", segment("a.ts", 100))).isNull();
+		assertThat(cache.getSizeBytes()).isZero();
+	}
+
+	@Test
+	void invalidatesAllSegmentsOfAVideo() throws Exception {
+		SegmentCache cache = cache(1000);
+		cache.load("v1", "a.ts", segment("a.ts", 100));
+		cache.load("v1", "b.ts", segment("b.ts", 100));
+		cache.load("v2", "a.ts", segment("c.ts", 100));
+
+		cache.invalidateVideo("v1");
+
+		assertThat(cache.get("v1", "a.ts")).isNull();
+		assertThat(cache.get("v1", "b.ts")).isNull();
+		assertThat(cache.get("v2", "a.ts")).isNotNull();
+		assertThat(cache.getSizeBytes()).isEqualTo(100);
+	}
+
+}
@@ -0,0 +1,91 @@
+package com.example.arsu.streaming;
+
+import com.example.arsu.storage.LocalDiskStorage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SegmentPrefetcherTests {
+
+	@TempDir
+	Path disk;
+
+	private SegmentCache segmentCache;
+	private SegmentPrefetcher prefetcher;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		LocalDiskStorage storage = new LocalDiskStorage(List.of(disk), 0);
+		Path dir = storage.create("v1");
+		for (int i = 0; i < 5; i++) {
+			Files.write(dir.resolve(String.format("720p_%03d.ts", i)), new byte[100]);
+		}
+
+		segmentCache = new SegmentCache();
+		ReflectionTestUtils.setField(segmentCache, "maxBytes", 10_000L);
+		ReflectionTestUtils.setField(segmentCache, "maxEntryBytes", 10_000L);
+
+		prefetcher = new SegmentPrefetcher();
+		ReflectionTestUtils.setField(prefetcher, "enabled", true);
+		ReflectionTestUtils.setField(prefetcher, "depth", 2);
+		ReflectionTestUtils.setField(prefetcher, "threads", 1);
+		ReflectionTestUtils.setField(prefetcher, "queueCapacity", 8);
+		ReflectionTestUtils.setField(prefetcher, "videoStorage", storage);
+		ReflectionTestUtils.setField(prefetcher, "segmentCache", segmentCache);
+		prefetcher.init();
+	}
+
+	@AfterEach
+	void tearDown() {
+		prefetcher.shutdown();
+	}
+
+	@Test
+	void sequentialRequestsWarmTheNextSegments() throws Exception {
+		prefetcher.onSegmentRequested("v1", "720p_000.ts");
+		prefetcher.onSegmentRequested("v1", "720p_001.ts");
+
+		awaitPrefetched(3);
+		assertThat(segmentCache.contains("v1", "720p_002.ts")).isTrue();
+		assertThat(segmentCache.contains("v1", "720p_003.ts")).isTrue();
+		assertThat(segmentCache.contains("v1", "720p_004.ts")).isFalse();
+	}
+
+	@Test
+	void seeksDoNotPrefetch() throws Exception {
+		prefetcher.onSegmentRequested("v1", "720p_000.ts");
+		awaitPrefetched(2);
+
+		prefetcher.onSegmentRequested("v1", "720p_003.ts");
+		Thread.sleep(100);
+
+		assertThat(prefetcher.getPrefetchedCount()).isEqualTo(2);
+		assertThat(segmentCache.contains("v1", "720p_004.ts")).isFalse();
+	}
+
+	@Test
+	void ignoresPlaylistsAndMissingSegments() throws Exception {
+		prefetcher.onSegmentRequested("v1", "720p.m3u8");
+		prefetcher.onSegmentRequested("v1", "720p_004.ts");
+		prefetcher.onSegmentRequested("v1", "720p_005.ts");
+		Thread.sleep(100);
+
+		assertThat(prefetcher.getPrefetchedCount()).isZero();
+	}
+
+	private void awaitPrefetched(long count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (prefetcher.getPrefetchedCount() < count && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(prefetcher.getPrefetchedCount()).isEqualTo(count);
+	}
+}
@@ -0,0 +1,229 @@
+package com.example.arsu.streaming;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A player that behaves like hls.js against the streaming endpoints: it loads the master playlist, starts on
+ * the lowest variant, keeps up to maxBufferSeconds of media buffered while playback drains it in real time
+ * (scaled by speed), picks the variant from the measured segment throughput and now and then seeks.
+ * Playback that runs out of buffer counts as a stall until the next segment arrives.
+ */
+class SimulatedPlayer implements Runnable {
+
+	private static final Pattern BANDWIDTH = Pattern.compile("(?:^|,)BANDWIDTH=(\\d+)");
+
+	// hls.js only switches up when the estimate leaves this much headroom
+	private static final double ABR_SAFETY_FACTOR = 0.7;
+
+	private final HttpClient client;
+	private final String baseUrl;
+	private final List<String> videoIds;
+	private final LoadStats stats;
+	private final long deadlineNanos;
+	private final double speed;
+	private final double maxBufferSeconds;
+	private final double seekProbability;
+	private final Random random;
+
+	private record Variant(String uri, long bandwidth) {
+	}
+
+	SimulatedPlayer(HttpClient client, String baseUrl, List<String> videoIds, LoadStats stats, long deadlineNanos,
+					double speed, double maxBufferSeconds, double seekProbability, long seed) {
+		this.client = client;
+		this.baseUrl = baseUrl;
+		this.videoIds = videoIds;
+		this.stats = stats;
+		this.deadlineNanos = deadlineNanos;
+		this.speed = speed;
+		this.maxBufferSeconds = maxBufferSeconds;
+		this.seekProbability = seekProbability;
+		this.random = new Random(seed);
+	}
+
+	@Override
+	public void run() {
+		while (System.nanoTime() < deadlineNanos && !Thread.currentThread().isInterrupted()) {
+			try {
+				watch(videoIds.get(random.nextInt(videoIds.size())));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (IOException e) {
+				stats.errors.increment();
+			}
+		}
+	}
+
+	/**
+	 * One playback session from the master playlist to the end of the video, or until the deadline.
+	 */
+	private void watch(String videoId) throws IOException, InterruptedException {
+		String videoUrl = baseUrl + "/api/videos/stream/" + videoId + "/";
+		long sessionStart = System.nanoTime();
+		List<Variant> variants = parseMaster(fetchText(videoUrl + MasterPlaylistGenerator.MASTER_PLAYLIST, "master"));
+		if (variants.isEmpty()) {
+			throw new IOException("No variants in master playlist of " + videoId);
+		}
+		stats.sessions.increment();
+
+		Map<String, List<MediaPlaylist.Segment>> playlists = new HashMap<>();
+		int variant = 0;
+		double buffered = 0;
+		double played = 0;
+		double stalled = 0;
+		boolean playing = false;
+		boolean stalledThisSession = false;
+		int next = 0;
+
+		while (System.nanoTime() < deadlineNanos) {
+			List<MediaPlaylist.Segment> segments = playlist(videoUrl, variants.get(variant), playlists);
+			if (next >= segments.size()) {
+				// Play out what is buffered, then the session is over
+				played += sleepMedia(buffered);
+				break;
+			}
+			if (playing && buffered + segments.get(next).duration() > maxBufferSeconds) {
+				double waited = sleepMedia(buffered + segments.get(next).duration() - maxBufferSeconds);
+				buffered -= waited;
+				played += waited;
+				continue;
+			}
+
+			long start = System.nanoTime();
+			long bytes = fetch(videoUrl + segments.get(next).uri(), "segment");
+			double seconds = (System.nanoTime() - start) / 1e9;
+
+			if (!playing) {
+				playing = true;
+				if (played == 0) {
+					stats.recordStartup(System.nanoTime() - sessionStart);
+				}
+			} else {
+				double consumed = seconds * speed;
+				if (consumed > buffered) {
+					stats.stalls.increment();
+					stalledThisSession = true;
+					stalled += (consumed - buffered);
+					played += buffered;
+					buffered = 0;
+				} else {
+					buffered -= consumed;
+					played += consumed;
+				}
+			}
+			buffered += segments.get(next).duration();
+			next++;
+
+			int chosen = chooseVariant(variants, bytes * 8 / Math.max(seconds, 1e-6));
+			if (chosen != variant) {
+				stats.switches.increment();
+				variant = chosen;
+			}
+			if (random.nextDouble() < seekProbability) {
+				// A seek flushes the buffer; the wait for the first segment is not counted as a stall
+				stats.seeks.increment();
+				next = random.nextInt(segments.size());
+				buffered = 0;
+				playing = false;
+			}
+		}
+		if (stalledThisSession) {
+			stats.sessionsWithStall.increment();
+		}
+		stats.recordPlayback(played, stalled);
+	}
+
+	private int chooseVariant(List<Variant> variants, double bitsPerSecond) {
+		int chosen = 0;
+		for (int i = 0; i < variants.size(); i++) {
+			if (variants.get(i).bandwidth() <= bitsPerSecond * ABR_SAFETY_FACTOR) {
+				chosen = i;
+			}
+		}
+		return chosen;
+	}
+
+	private List<MediaPlaylist.Segment> playlist(String videoUrl, Variant variant,
+												 Map<String, List<MediaPlaylist.Segment>> playlists)
+			throws IOException, InterruptedException {
+		// VOD playlists never change, so like hls.js the player loads each variant's playlist once per session
+		List<MediaPlaylist.Segment> segments = playlists.get(variant.uri());
+		if (segments == null) {
+			segments = MediaPlaylist.parse(fetchText(videoUrl + variant.uri(), "playlist")).getSegments();
+			playlists.put(variant.uri(), segments);
+		}
+		return segments;
+	}
+
+	/**
+	 * Variants of the master playlist, lowest bandwidth first.
+	 */
+	private static List<Variant> parseMaster(String master) {
+		List<Variant> variants = new ArrayList<>();
+		String[] lines = master.split("\n");
+		for (int i = 0; i < lines.length - 1; i++) {
+			if (lines[i].startsWith("#EXT-X-STREAM-INF:")) {
+				Matcher matcher = BANDWIDTH.matcher(lines[i].substring("#EXT-X-STREAM-INF:".length()));
+				long bandwidth = matcher.find() ? Long.parseLong(matcher.group(1)) : 0;
+				variants.add(new Variant(lines[i + 1].trim(), bandwidth));
+			}
+		}
+		variants.sort((a, b) -> Long.compare(a.bandwidth(), b.bandwidth()));
+		return variants;
+	}
+
+	private String fetchText(String url, String type) throws IOException, InterruptedException {
+		long start = System.nanoTime();
+		HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(URI.create(url)).build(),
+				HttpResponse.BodyHandlers.ofByteArray());
+		stats.recordRequest(type, System.nanoTime() - start);
+		if (response.statusCode() != 200) {
+			throw new IOException("GET " + url + " returned " + response.statusCode());
+		}
+		stats.bytes.add(response.body().length);
+		return new String(response.body(), StandardCharsets.UTF_8);
+	}
+
+	private long fetch(String url, String type) throws IOException, InterruptedException {
+		long start = System.nanoTime();
+		HttpResponse<InputStream> response = client.send(HttpRequest.newBuilder(URI.create(url)).build(),
+				HttpResponse.BodyHandlers.ofInputStream());
+		long bytes;
+		try (InputStream body = response.body()) {
+			bytes = body.transferTo(OutputStream.nullOutputStream());
+		}
+		stats.recordRequest(type, System.nanoTime() - start);
+		if (response.statusCode() != 200) {
+			throw new IOException("GET " + url + " returned " + response.statusCode());
+		}
+		stats.bytes.add(bytes);
+		return bytes;
+	}
+
+	/**
+	 * Lets playback run for the given media time, cut short at the deadline; returns the media time played.
+	 */
+	private double sleepMedia(double mediaSeconds) throws InterruptedException {
+		long millis = Math.min(Math.round(mediaSeconds / speed * 1000),
+				Math.max(0, (deadlineNanos - System.nanoTime()) / 1_000_000));
+		if (millis > 0) {
+			Thread.sleep(millis);
+		}
+		return Math.min(mediaSeconds, millis * speed / 1000);
+	}
+
+}
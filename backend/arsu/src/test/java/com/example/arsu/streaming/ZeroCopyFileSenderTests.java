@@ -0,0 +1,130 @@
+package com.example.arsu.streaming;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.connector.CoyoteOutputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ZeroCopyFileSenderTests {
+
+	private final ZeroCopyFileSender sender = new ZeroCopyFileSender();
+
+	@TempDir
+	Path tempDir;
+
+	private Path file;
+
+	@BeforeEach
+	void writeFile() throws Exception {
+		file = tempDir.resolve("720p_000.ts");
+		Files.writeString(file, "0123456789abcdef");
+	}
+
+	@Test
+	void sendsWholeFileWithoutRange() throws Exception {
+		MockHttpServletResponse response = send(null);
+
+		assertThat(response.getStatus()).isEqualTo(200);
+		assertThat(response.getHeader("Accept-Ranges")).isEqualTo("bytes");
+		assertThat(response.getContentAsString()).isEqualTo("0123456789abcdef");
+	}
+
+	@Test
+	void sendsSingleRange() throws Exception {
+		MockHttpServletResponse response = send("bytes=4-7");
+
+		assertThat(response.getStatus()).isEqualTo(206);
+		assertThat(response.getHeader("Content-Range")).isEqualTo("bytes 4-7/16");
+		assertThat(response.getContentLengthLong()).isEqualTo(4);
+		assertThat(response.getContentAsString()).isEqualTo("4567");
+	}
+
+	@Test
+	void sendsSuffixRange() throws Exception {
+		MockHttpServletResponse response = send("bytes=-3");
+
+		assertThat(response.getStatus()).isEqualTo(206);
+		assertThat(response.getContentAsString()).isEqualTo("def");
+	}
+
+	@Test
+	void sendsMultipleRangesAsMultipart() throws Exception {
+		MockHttpServletResponse response = send("bytes=0-1,10-11");
+
+		assertThat(response.getStatus()).isEqualTo(206);
+		assertThat(response.getContentType()).startsWith("multipart/byteranges; boundary=");
+		String body = response.getContentAsString(StandardCharsets.US_ASCII);
+		assertThat(body).contains("Content-Range: bytes 0-1/16\r\n\r\n01");
+		assertThat(body).contains("Content-Range: bytes 10-11/16\r\n\r\nab");
+		assertThat(response.getContentLengthLong()).isEqualTo(response.getContentAsByteArray().length);
+	}
+
+	@Test
+	void rejectsUnsatisfiableRange() throws Exception {
+		MockHttpServletResponse response = send("bytes=32-40");
+
+		assertThat(response.getStatus()).isEqualTo(416);
+		assertThat(response.getHeader("Content-Range")).isEqualTo("bytes */16");
+	}
+
+	@Test
+	void handsSingleRangeToSendfileWhenSupported() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+		request.addHeader("Range", "bytes=2-5");
+		request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		sender.send(request, response, file, "video/mp2t");
+
+		assertThat(request.getAttribute("org.apache.tomcat.sendfile.start")).isEqualTo(2L);
+		assertThat(request.getAttribute("org.apache.tomcat.sendfile.end")).isEqualTo(6L);
+		assertThat(response.getContentAsByteArray()).isEmpty();
+	}
+
+	@Test
+	void writesMappedRegionsToTomcatsStreamWithoutSendfile() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+		request.addHeader("Range", "bytes=0-1,10-11");
+		CoyoteOutputStream out = mock(CoyoteOutputStream.class);
+		List<String> written = new ArrayList<>();
+		doAnswer(invocation -> {
+			ByteBuffer region = invocation.getArgument(0);
+			assertThat(region.isDirect()).isTrue();
+			written.add(StandardCharsets.US_ASCII.decode(region).toString());
+			return null;
+		}).when(out).write(any(ByteBuffer.class));
+		HttpServletResponse response = mock(HttpServletResponse.class);
+		when(response.getOutputStream()).thenReturn(out);
+
+		sender.send(request, response, file, "video/mp2t");
+
+		assertThat(written).containsExactly("01", "ab");
+	}
+
+	private MockHttpServletResponse send(String range) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+		if (range != null) {
+			request.addHeader("Range", range);
+		}
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		sender.send(request, response, file, "video/mp2t");
+		return response;
+	}
+
+}
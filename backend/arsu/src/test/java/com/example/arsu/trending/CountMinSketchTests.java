@@ -0,0 +1,79 @@
+package com.example.arsu.trending;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CountMinSketchTests {
+
+	/**
+	 * Zipf-like stream over 20k videos, so a few are hot and most are rarely requested.
+	 */
+	private Map<String, Long> feed(CountMinSketch sketch, long seed, int events) {
+		Random random = new Random(seed);
+		Map<String, Long> exact = new HashMap<>();
+		for (int i = 0; i < events; i++) {
+			String key = "video" + (int) Math.floor(Math.pow(20000, random.nextDouble()));
+			sketch.add(key);
+			exact.merge(key, 1L, Long::sum);
+		}
+		return exact;
+	}
+
+	@Test
+	void estimatesStayWithinTheDocumentedBounds() {
+		CountMinSketch sketch = new CountMinSketch(2048, 4);
+		Map<String, Long> exact = feed(sketch, 42, 200_000);
+
+		long bound = sketch.getErrorBound();
+		int outside = 0;
+		for (Map.Entry<String, Long> entry : exact.entrySet()) {
+			long estimate = sketch.estimate(entry.getKey());
+			assertThat(estimate).isGreaterThanOrEqualTo(entry.getValue());
+			if (estimate - entry.getValue() > bound) {
+				outside++;
+			}
+		}
+		assertThat(sketch.total()).isEqualTo(200_000);
+		assertThat((double) outside / exact.size()).isLessThanOrEqualTo(sketch.getDelta());
+	}
+
+	@Test
+	void mergedSketchEqualsSketchOfCombinedStream() {
+		CountMinSketch first = new CountMinSketch(1024, 3);
+		CountMinSketch second = new CountMinSketch(1024, 3);
+		CountMinSketch combined = new CountMinSketch(1024, 3);
+		feed(first, 1, 20_000);
+		feed(second, 2, 30_000);
+		feed(combined, 1, 20_000);
+		feed(combined, 2, 30_000);
+
+		first.merge(second);
+
+		assertThat(first.total()).isEqualTo(combined.total());
+		for (int i = 1; i < 500; i++) {
+			assertThat(first.estimate("video" + i)).isEqualTo(combined.estimate("video" + i));
+		}
+	}
+
+	@Test
+	void refusesToMergeDifferentDimensions() {
+		assertThatThrownBy(() -> new CountMinSketch(1024, 3).merge(new CountMinSketch(2048, 3)))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void sizesSketchFromErrorBounds() {
+		CountMinSketch sketch = CountMinSketch.withErrorBounds(0.001, 0.01);
+
+		assertThat(sketch.getEpsilon()).isLessThanOrEqualTo(0.001);
+		assertThat(sketch.getDelta()).isLessThanOrEqualTo(0.01);
+		assertThat(sketch.getWidth()).isEqualTo(4096);
+		assertThat(sketch.getDepth()).isEqualTo(5);
+	}
+}
@@ -0,0 +1,76 @@
+package com.example.arsu.trending;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrendingServiceTests {
+
+	private TrendingService trendingService;
+
+	@BeforeEach
+	void setUp() {
+		trendingService = new TrendingService();
+		ReflectionTestUtils.setField(trendingService, "sketchWidth", 2048);
+		ReflectionTestUtils.setField(trendingService, "sketchDepth", 4);
+		ReflectionTestUtils.setField(trendingService, "candidateCapacity", 20);
+		ReflectionTestUtils.setField(trendingService, "publishIntervalMs", 10000L);
+		trendingService.init();
+	}
+
+	/**
+	 * Ten hot videos with distinct volumes in a long tail of 5000 rarely requested ones.
+	 */
+	private TrendingBucket bucket(long start, long seed) {
+		TrendingBucket bucket = new TrendingBucket(start, 2048, 4, 20);
+		Random random = new Random(seed);
+		for (int hot = 0; hot < 10; hot++) {
+			for (int i = 0; i < 1000 * (10 - hot); i++) {
+				bucket.record("hot" + hot);
+			}
+		}
+		for (int i = 0; i < 50_000; i++) {
+			bucket.record("tail" + random.nextInt(5000));
+		}
+		return bucket;
+	}
+
+	@Test
+	void ranksHeavyHittersInOrder() {
+		TrendingService.Ranking ranking = trendingService.rank(TrendingWindow.HOUR, List.of(bucket(0, 1)));
+
+		List<String> top = ranking.entries().stream().limit(10).map(TrendingService.Entry::videoId).toList();
+		assertThat(top).containsExactly("hot0", "hot1", "hot2", "hot3", "hot4", "hot5", "hot6", "hot7", "hot8", "hot9");
+		assertThat(ranking.entries().get(0).requests()).isBetween(10_000L, 10_000L + ranking.errorBound());
+	}
+
+	@Test
+	void mergesBucketsOfAllNodesAfterRoundTrip() throws Exception {
+		TrendingBucket nodeA = TrendingBucket.fromBytes(bucket(0, 1).toBytes());
+		TrendingBucket nodeB = TrendingBucket.fromBytes(bucket(0, 2).toBytes());
+
+		TrendingService.Ranking ranking = trendingService.rank(TrendingWindow.HOUR, List.of(nodeA, nodeB));
+
+		assertThat(ranking.totalRequests()).isEqualTo(2 * (55_000 + 50_000));
+		assertThat(ranking.entries().get(0).videoId()).isEqualTo("hot0");
+		assertThat(ranking.entries().get(0).requests()).isBetween(20_000L, 20_000L + ranking.errorBound());
+	}
+
+	@Test
+	void recordsIntoLocalRanking() {
+		for (int i = 0; i < 5; i++) {
+			trendingService.record("v1");
+		}
+		trendingService.record("v2");
+
+		TrendingService.Ranking ranking = trendingService.getTrending(TrendingWindow.DAY, 1);
+
+		assertThat(ranking.entries()).containsExactly(new TrendingService.Entry("v1", 5));
+		assertThat(ranking.totalRequests()).isEqualTo(6);
+	}
+}